@@ -0,0 +1,391 @@
+package com.yc.snackoverflow.cache;
+
+import com.yc.snackoverflow.dto.response.ProductResponseDto;
+import com.yc.snackoverflow.search.NameCollation;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Immutable snapshot of the product catalog
+ *
+ * Products are held in two parallel arrays sorted by id, so an id lookup is a
+ * binary search over a primitive long array. The active products are further
+ * indexed by class id and by the collation key of their name, and every sortable
+ * column has its active positions presorted, so a listing sorted by one column is
+ * a walk over one array without any sorting. Names are ordered and compared by
+ * {@link NameCollation#key}, like the utf8mb4_unicode_ci column. Name filters are
+ * not evaluated here: the caller passes the ids found by ProductNameIndex.
+ * Inactive products stay in the id index, so a lookup by id behaves like the
+ * database and a late patch cannot resurrect a product that was deactivated by a
+ * newer write.
+ *
+ * A snapshot is never modified; {@link #patch} returns a new one, so readers only
+ * need the reference published by ProductCatalog.
+ */
+public final class CatalogSnapshot {
+
+    private static final int[] NO_POSITIONS = new int[0];
+
+    /**
+     * Matches below this fraction of the active products are sorted instead of
+     * picked out of a presorted column
+     */
+    private static final int SORT_MATCHES_RATIO = 16;
+
+    /**
+     * Sort properties a listing can be ordered by in memory
+     */
+    private static final Set<String> SORT_PROPERTIES = Set.of("id", "name", "price", "createdAt", "updatedAt");
+
+    /**
+     * Sort properties other than id and name, with the comparator of each; nulls
+     * come first like in MySQL
+     */
+    private static final Map<String, Comparator<ProductResponseDto>> VALUE_FIELDS = Map.of(
+            "price", Comparator.comparing(ProductResponseDto::getPrice,
+                    Comparator.nullsFirst(Comparator.naturalOrder())),
+            "createdAt", Comparator.comparing(ProductResponseDto::getCreatedAt,
+                    Comparator.nullsFirst(Comparator.naturalOrder())),
+            "updatedAt", Comparator.comparing(ProductResponseDto::getUpdatedAt,
+                    Comparator.nullsFirst(Comparator.naturalOrder()))
+    );
+
+    private final long[] ids;
+
+    private final ProductResponseDto[] products;
+
+    private final String[] nameKeys;
+
+    private final int[] active;
+
+    private final Map<Long, int[]> activeByClass;
+
+    private final Map<String, ProductResponseDto> activeByName;
+
+    /**
+     * Active positions ordered by each sortable column other than id, ties in id order
+     */
+    private final Map<String, int[]> sortedActive;
+
+    private final long versionSum;
+
+    /**
+     * @param sortedById Products in id order
+     * @param knownNameKeys Name keys already computed for the products, null where unknown
+     */
+    private CatalogSnapshot(ProductResponseDto[] sortedById, String[] knownNameKeys) {
+        int size = sortedById.length;
+        ids = new long[size];
+        products = sortedById;
+        nameKeys = knownNameKeys;
+        int[] activePositions = new int[size];
+        int activeCount = 0;
+        Map<Long, List<Integer>> positionsByClass = new HashMap<>();
+        activeByName = new HashMap<>(size * 2);
+        long sum = 0;
+        for (int i = 0; i < size; i++) {
+            ProductResponseDto product = sortedById[i];
+            ids[i] = product.getId();
+            if (nameKeys[i] == null) {
+                nameKeys[i] = NameCollation.key(product.getName());
+            }
+            sum += version(product);
+            if (Boolean.TRUE.equals(product.getAlive())) {
+                activePositions[activeCount++] = i;
+                positionsByClass.computeIfAbsent(product.getProductClassId(), key -> new ArrayList<>()).add(i);
+                activeByName.put(nameKeys[i], product);
+            }
+        }
+        active = Arrays.copyOf(activePositions, activeCount);
+        activeByClass = new HashMap<>(positionsByClass.size() * 2);
+        positionsByClass.forEach((classId, positions) ->
+                activeByClass.put(classId, positions.stream().mapToInt(Integer::intValue).toArray()));
+        sortedActive = new HashMap<>();
+        for (String property : SORT_PROPERTIES) {
+            if (!"id".equals(property)) {
+                sortedActive.put(property, sort(active, order(property)));
+            }
+        }
+        versionSum = sum;
+    }
+
+    /**
+     * Build a snapshot from a full load of the catalog
+     *
+     * @param products All products, active or not
+     * @return Catalog snapshot
+     */
+    public static CatalogSnapshot of(Collection<ProductResponseDto> products) {
+        ProductResponseDto[] sorted = products.toArray(ProductResponseDto[]::new);
+        Arrays.sort(sorted, Comparator.comparing(ProductResponseDto::getId));
+        return new CatalogSnapshot(sorted, new String[sorted.length]);
+    }
+
+    /**
+     * Copy this snapshot with the given products added or replaced
+     *
+     * A product is only replaced by a row with the same or a newer version, so
+     * patches that are applied out of commit order cannot bring back old data.
+     *
+     * @param changed Current rows of the written products, active or not
+     * @return New snapshot
+     */
+    public CatalogSnapshot patch(Collection<ProductResponseDto> changed) {
+        ProductResponseDto[] updates = changed.toArray(ProductResponseDto[]::new);
+        Arrays.sort(updates, Comparator.comparing(ProductResponseDto::getId));
+        ProductResponseDto[] merged = new ProductResponseDto[products.length + updates.length];
+        // Collation keys are reused for unchanged names, so a patch only computes keys for renamed products
+        String[] mergedKeys = new String[merged.length];
+        int size = 0;
+        int i = 0;
+        int j = 0;
+        while (i < products.length || j < updates.length) {
+            if (j == updates.length || (i < products.length && ids[i] < updates[j].getId())) {
+                mergedKeys[size] = nameKeys[i];
+                merged[size++] = products[i++];
+            } else if (i == products.length || ids[i] > updates[j].getId()) {
+                merged[size++] = updates[j++];
+            } else {
+                merged[size] = version(updates[j]) >= version(products[i]) ? updates[j] : products[i];
+                if (Objects.equals(merged[size].getName(), products[i].getName())) {
+                    mergedKeys[size] = nameKeys[i];
+                }
+                size++;
+                i++;
+                j++;
+            }
+        }
+        return new CatalogSnapshot(Arrays.copyOf(merged, size), Arrays.copyOf(mergedKeys, size));
+    }
+
+    /**
+     * Find a product by id
+     *
+     * @param id Product ID
+     * @return The product, active or not, or null if it is not in the catalog
+     */
+    public ProductResponseDto get(long id) {
+        int position = Arrays.binarySearch(ids, id);
+        return position >= 0 ? products[position] : null;
+    }
+
+    /**
+     * Find the active products with the given names, matched under the column collation
+     *
+     * @param names Product names
+     * @return Matching active products
+     */
+    public List<ProductResponseDto> findActiveByNames(Collection<String> names) {
+        return names.stream()
+                .map(name -> activeByName.get(NameCollation.key(name)))
+                .filter(Objects::nonNull)
+                .distinct()
+                .toList();
+    }
+
+    /**
+     * All active products in id order
+     *
+     * @return Active products
+     */
+    public List<ProductResponseDto> findActive() {
+        List<ProductResponseDto> result = new ArrayList<>(active.length);
+        for (int position : active) {
+            result.add(products[position]);
+        }
+        return result;
+    }
+
+    /**
+     * Count the active products matching the listing filters
+     *
+     * @param nameMatches Ids of the products matching the name filter in ascending
+     *                    order, as found by ProductNameIndex; null without a name filter
+     * @param classId Product class ID (optional)
+     * @return Number of matching products
+     */
+    public long count(long[] nameMatches, Long classId) {
+        return matching(nameMatches, classId).length;
+    }
+
+    /**
+     * Page of the active products matching the listing filters, with a total count
+     *
+     * @param nameMatches Ids of the products matching the name filter in ascending
+     *                    order, as found by ProductNameIndex; null without a name filter
+     * @param classId Product class ID (optional)
+     * @param pageable Pagination information; its sort must pass {@link #canSort}
+     * @return Page of products
+     */
+    public Page<ProductResponseDto> findPage(long[] nameMatches, Long classId, Pageable pageable) {
+        int[] positions = matching(nameMatches, classId);
+        return new PageImpl<>(slice(positions, pageable), pageable, positions.length);
+    }
+
+    /**
+     * Slice of the active products matching the listing filters
+     *
+     * @param nameMatches Ids of the products matching the name filter in ascending
+     *                    order, as found by ProductNameIndex; null without a name filter
+     * @param classId Product class ID (optional)
+     * @param pageable Pagination information; its sort must pass {@link #canSort}
+     * @return Slice of products
+     */
+    public Slice<ProductResponseDto> findSlice(long[] nameMatches, Long classId, Pageable pageable) {
+        int[] positions = matching(nameMatches, classId);
+        boolean hasNext = pageable.isPaged() && pageable.getOffset() + pageable.getPageSize() < positions.length;
+        return new SliceImpl<>(slice(positions, pageable), pageable, hasNext);
+    }
+
+    /**
+     * Whether a listing with the given sort can be answered in memory
+     *
+     * @param sort Requested sort
+     * @return true if every sort property has an in-memory order
+     */
+    public static boolean canSort(Sort sort) {
+        return sort.stream().allMatch(order -> SORT_PROPERTIES.contains(order.getProperty()));
+    }
+
+    /**
+     * Number of products in the snapshot, active or not
+     *
+     * @return Product count
+     */
+    public int size() {
+        return ids.length;
+    }
+
+    /**
+     * Sum of the versions of all products, compared with the database by the consistency check
+     *
+     * @return Version sum
+     */
+    public long versionSum() {
+        return versionSum;
+    }
+
+    /**
+     * Positions of the active products matching the filters, in id order
+     */
+    private int[] matching(long[] nameMatches, Long classId) {
+        int[] candidates = classId != null ? activeByClass.getOrDefault(classId, NO_POSITIONS) : active;
+        if (nameMatches == null) {
+            return candidates;
+        }
+        int[] result = new int[nameMatches.length];
+        int size = 0;
+        for (long id : nameMatches) {
+            int position = Arrays.binarySearch(ids, id);
+            // The name index is updated separately, so check its hits against this snapshot
+            if (position >= 0 && Boolean.TRUE.equals(products[position].getAlive())
+                    && (classId == null || classId.equals(products[position].getProductClassId()))) {
+                result[size++] = position;
+            }
+        }
+        return Arrays.copyOf(result, size);
+    }
+
+    /**
+     * Order the matching products and cut out the requested page
+     *
+     * Ties are broken by id in the direction of the first sort property, like the
+     * trailing id the search adds to its sort.
+     */
+    private List<ProductResponseDto> slice(int[] positions, Pageable pageable) {
+        int from = pageable.isPaged() ? (int) Math.min(pageable.getOffset(), positions.length) : 0;
+        int to = pageable.isPaged() ? Math.min(from + pageable.getPageSize(), positions.length) : positions.length;
+        Sort sort = pageable.getSort();
+        List<Sort.Order> orders = sort.toList();
+        Sort.Order first = orders.isEmpty() ? Sort.Order.asc("id") : orders.get(0);
+        boolean byIdTieBreak = orders.size() <= 1 || (orders.size() == 2
+                && "id".equals(orders.get(1).getProperty())
+                && orders.get(1).getDirection() == first.getDirection());
+
+        List<ProductResponseDto> result = new ArrayList<>(to - from);
+        if ("id".equals(first.getProperty()) && byIdTieBreak) {
+            // Positions are already in id order, so page without sorting
+            for (int i = from; i < to; i++) {
+                result.add(products[positions[first.isDescending() ? positions.length - 1 - i : i]]);
+            }
+            return result;
+        }
+
+        int[] presorted = byIdTieBreak ? sortedActive.get(first.getProperty()) : null;
+        if (presorted != null && positions.length >= presorted.length / SORT_MATCHES_RATIO) {
+            // Walk the presorted column and keep the matching positions until the page is full
+            BitSet matching = null;
+            if (positions != active) {
+                matching = new BitSet(products.length);
+                for (int position : positions) {
+                    matching.set(position);
+                }
+            }
+            int seen = 0;
+            for (int i = 0; i < presorted.length && seen < to; i++) {
+                int position = presorted[first.isDescending() ? presorted.length - 1 - i : i];
+                if (matching == null || matching.get(position)) {
+                    if (seen++ >= from) {
+                        result.add(products[position]);
+                    }
+                }
+            }
+            return result;
+        }
+
+        // Several sort columns, or few enough matches that sorting them beats the walk
+        Comparator<Integer> comparator = null;
+        for (Sort.Order order : orders) {
+            Comparator<Integer> field = order(order.getProperty());
+            if (order.isDescending()) {
+                field = field.reversed();
+            }
+            comparator = comparator == null ? field : comparator.thenComparing(field);
+        }
+        Comparator<Integer> byId = order("id");
+        int[] sorted = sort(positions, comparator.thenComparing(first.isDescending() ? byId.reversed() : byId));
+        for (int i = from; i < to; i++) {
+            result.add(products[sorted[i]]);
+        }
+        return result;
+    }
+
+    /**
+     * Ascending order of positions by one sort property
+     */
+    private Comparator<Integer> order(String property) {
+        return switch (property) {
+            case "id" -> Comparator.comparingLong(position -> ids[position]);
+            case "name" -> Comparator.comparing(position -> nameKeys[position]);
+            default -> Comparator.comparing(position -> products[position], VALUE_FIELDS.get(property));
+        };
+    }
+
+    /**
+     * Sort positions; the sort is stable, so positions in id order keep ties in id order
+     */
+    private static int[] sort(int[] positions, Comparator<Integer> comparator) {
+        Integer[] boxed = Arrays.stream(positions).boxed().toArray(Integer[]::new);
+        Arrays.sort(boxed, comparator);
+        return Arrays.stream(boxed).mapToInt(Integer::intValue).toArray();
+    }
+
+    private static long version(ProductResponseDto product) {
+        return Objects.requireNonNullElse(product.getVersion(), 0L);
+    }
+}
@@ -0,0 +1,76 @@
+package com.yc.snackoverflow.cache;
+
+import com.yc.snackoverflow.event.ProductCatalogResetEvent;
+import com.yc.snackoverflow.event.ProductChangedEvent;
+import com.yc.snackoverflow.event.ProductClassChangedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Aggregate version of the catalog, used as the ETag of listing responses
+ *
+ * The version is bumped after every committed product or product class write,
+ * so a listing can be answered with 304 Not Modified from memory. It is local to
+ * this instance; the start time is part of the version, so a restarted instance
+ * or another node never reuses a version for different data and at worst
+ * answers a conditional request with a full response.
+ */
+@Component
+public class CatalogVersion {
+
+    private final long epoch = System.currentTimeMillis();
+
+    private final AtomicLong changes = new AtomicLong();
+
+    /**
+     * Current catalog version
+     *
+     * Read it before loading the data it labels, so the data is never older
+     * than the version.
+     *
+     * @return Version string
+     */
+    public String current() {
+        return epoch + "-" + changes.get();
+    }
+
+    /**
+     * Bump the version after a product write
+     *
+     * Ordered after the listeners that evict caches and update the name index,
+     * so a request that sees the new version also sees the new data.
+     *
+     * @param event Product changed event
+     */
+    @Order(Ordered.LOWEST_PRECEDENCE)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        changes.incrementAndGet();
+    }
+
+    /**
+     * Bump the version after the catalog is reset, once everything is reloaded
+     *
+     * @param event Product catalog reset event
+     */
+    @Order(Ordered.LOWEST_PRECEDENCE)
+    @EventListener
+    public void onCatalogReset(ProductCatalogResetEvent event) {
+        changes.incrementAndGet();
+    }
+
+    /**
+     * Bump the version after a product class write
+     *
+     * @param event Product class changed event
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductClassChanged(ProductClassChangedEvent event) {
+        changes.incrementAndGet();
+    }
+}
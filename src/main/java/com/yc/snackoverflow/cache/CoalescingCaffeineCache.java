@@ -0,0 +1,49 @@
+package com.yc.snackoverflow.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import io.micrometer.core.instrument.Counter;
+import org.springframework.cache.caffeine.CaffeineCache;
+
+import java.util.concurrent.Callable;
+
+/**
+ * Caffeine cache that counts the requests coalesced onto another caller's load
+ *
+ * With {@code @Cacheable(sync = true)} Spring loads a missing entry through
+ * Caffeine's per-key compute, so concurrent misses on one key run the method once
+ * and the other callers wait for its result. A caller that found no entry but did
+ * not run the loader itself was coalesced.
+ */
+public class CoalescingCaffeineCache extends CaffeineCache {
+
+    private final Counter coalesced;
+
+    /**
+     * Create a cache around a native Caffeine cache
+     *
+     * @param name Cache name
+     * @param cache Native Caffeine cache
+     * @param allowNullValues Whether null values are stored
+     * @param coalesced Counter of coalesced requests
+     */
+    public CoalescingCaffeineCache(String name, Cache<Object, Object> cache, boolean allowNullValues, Counter coalesced) {
+        super(name, cache, allowNullValues);
+        this.coalesced = coalesced;
+    }
+
+    @Override
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        if (getNativeCache().policy().getIfPresentQuietly(key) != null) {
+            return super.get(key, valueLoader);
+        }
+        boolean[] loaded = new boolean[1];
+        T value = super.get(key, () -> {
+            loaded[0] = true;
+            return valueLoader.call();
+        });
+        if (!loaded[0]) {
+            coalesced.increment();
+        }
+        return value;
+    }
+}
@@ -0,0 +1,382 @@
+package com.yc.snackoverflow.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.yc.snackoverflow.constant.CacheNames;
+import com.yc.snackoverflow.dto.response.ProductResponseDto;
+import com.yc.snackoverflow.projector.ProductCatalogChecksum;
+import com.yc.snackoverflow.repository.ProductChangeLogDao;
+import com.yc.snackoverflow.repository.ProductDao;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.context.event.ContextClosedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Dumps the hottest product cache entries on shutdown and restores them on startup
+ *
+ * The file holds the hottest product entries and listing pages in a compact
+ * binary form; a page is stored as the ids of its products. The header carries
+ * the catalog version at dump time: the last change log id together with the
+ * product count and version sum. If the database still has that version, every
+ * entry is restored as written. Otherwise only the products whose version still
+ * matches the catalog snapshot are restored, and the pages are discarded.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ProductCacheDump {
+
+    private static final int MAGIC = 0x534E4B43;
+
+    private static final int FORMAT_VERSION = 1;
+
+    private final CacheManager cacheManager;
+
+    private final ProductCatalog productCatalog;
+
+    private final ProductDao productDao;
+
+    private final ProductChangeLogDao productChangeLogDao;
+
+    @Value("${app.cache.dump.enabled:false}")
+    private boolean enabled;
+
+    @Value("${app.cache.dump.file:${java.io.tmpdir}/snack-overflow-product-cache.bin}")
+    private Path file;
+
+    @Value("${app.cache.dump.max-products:5000}")
+    private int maxProducts;
+
+    @Value("${app.cache.dump.max-pages:500}")
+    private int maxPages;
+
+    /**
+     * Catalog version the dumped entries were read at
+     */
+    private record CatalogMark(long changeLogId, long count, long versionSum) {
+    }
+
+    /**
+     * Write the hottest entries to the dump file
+     *
+     * Runs on graceful shutdown, while the database is still reachable.
+     */
+    @EventListener(ContextClosedEvent.class)
+    public void dump() {
+        if (!enabled) {
+            return;
+        }
+        Cache<Object, Object> products = nativeCache(CacheNames.PRODUCTS);
+        Cache<Object, Object> pages = nativeCache(CacheNames.PRODUCT_PAGES);
+        if (products == null || pages == null) {
+            return;
+        }
+        try {
+            // Read the version first, so the entries are never older than it
+            CatalogMark mark = currentMark();
+            Map<Long, ProductResponseDto> hotProducts = new LinkedHashMap<>();
+            hottest(products, maxProducts).forEach((key, value) -> {
+                if (key instanceof Long id && value instanceof ProductResponseDto product) {
+                    hotProducts.put(id, product);
+                }
+            });
+            Map<ProductPageKey, Slice<?>> hotPages = new LinkedHashMap<>();
+            hottest(pages, maxPages).forEach((key, value) -> {
+                if (key instanceof ProductPageKey pageKey && value instanceof Slice<?> page) {
+                    hotPages.put(pageKey, page);
+                }
+            });
+            // Page contents are written as ids, so their products go into the product section
+            Map<Long, ProductResponseDto> pageProducts = new LinkedHashMap<>();
+            for (Slice<?> page : hotPages.values()) {
+                for (Object item : page.getContent()) {
+                    if (item instanceof ProductResponseDto product && !hotProducts.containsKey(product.getId())) {
+                        pageProducts.put(product.getId(), product);
+                    }
+                }
+            }
+
+            Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                    new GZIPOutputStream(Files.newOutputStream(temp))))) {
+                out.writeInt(MAGIC);
+                out.writeInt(FORMAT_VERSION);
+                out.writeLong(mark.changeLogId());
+                out.writeLong(mark.count());
+                out.writeLong(mark.versionSum());
+                writeProducts(out, hotProducts);
+                writeProducts(out, pageProducts);
+                out.writeInt(hotPages.size());
+                for (Map.Entry<ProductPageKey, Slice<?>> entry : hotPages.entrySet()) {
+                    writePage(out, entry.getKey(), entry.getValue());
+                }
+            }
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            log.info("Dumped {} products and {} product pages to {}", hotProducts.size(), hotPages.size(), file);
+        } catch (IOException | DataAccessException e) {
+            log.warn("Failed to dump product caches to {}: {}", file, e.getMessage());
+        }
+    }
+
+    /**
+     * Reload the entries of the dump file that are still current
+     *
+     * Runs after the catalog snapshot is loaded and before ProductCacheWarmer, so
+     * the warm-up only loads what the dump did not bring back.
+     */
+    @Order(Ordered.LOWEST_PRECEDENCE - 1)
+    @EventListener(ApplicationReadyEvent.class)
+    public void restore() {
+        if (!enabled) {
+            return;
+        }
+        Cache<Object, Object> products = nativeCache(CacheNames.PRODUCTS);
+        Cache<Object, Object> pages = nativeCache(CacheNames.PRODUCT_PAGES);
+        if (products == null || pages == null) {
+            return;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(
+                new GZIPInputStream(Files.newInputStream(file))))) {
+            if (in.readInt() != MAGIC || in.readInt() != FORMAT_VERSION) {
+                log.warn("Ignoring product cache dump {} written in an unknown format", file);
+                return;
+            }
+            CatalogMark dumped = new CatalogMark(in.readLong(), in.readLong(), in.readLong());
+            boolean current = dumped.equals(currentMark());
+            CatalogSnapshot catalog = productCatalog.snapshot();
+
+            Map<Long, ProductResponseDto> known = new HashMap<>();
+            int dumpedProducts = 0;
+            int restoredProducts = 0;
+            for (boolean cached : new boolean[]{true, false}) {
+                int size = in.readInt();
+                for (int i = 0; i < size; i++) {
+                    ProductResponseDto product = readProduct(in);
+                    dumpedProducts += cached ? 1 : 0;
+                    if (!current && !matchesCatalog(catalog, product)) {
+                        continue;
+                    }
+                    known.put(product.getId(), product);
+                    if (cached) {
+                        products.put(product.getId(), product);
+                        restoredProducts++;
+                    }
+                }
+            }
+
+            int dumpedPages = in.readInt();
+            int restoredPages = 0;
+            for (int i = 0; i < dumpedPages; i++) {
+                ProductPageKey key = readPageKey(in);
+                Slice<ProductResponseDto> page = readPage(in, key, known);
+                // A page of an older catalog may be missing products that were added since
+                if (current && page != null) {
+                    pages.put(key, page);
+                    restoredPages++;
+                }
+            }
+            log.info("Restored {} of {} products and {} of {} product pages from {}",
+                    restoredProducts, dumpedProducts, restoredPages, dumpedPages, file);
+        } catch (NoSuchFileException e) {
+            log.info("No product cache dump at {}, starting cold", file);
+        } catch (IOException | DataAccessException e) {
+            log.warn("Failed to restore product caches from {}: {}", file, e.getMessage());
+        }
+    }
+
+    private CatalogMark currentMark() {
+        ProductCatalogChecksum checksum = productDao.findCatalogChecksum();
+        return new CatalogMark(productChangeLogDao.findMaxId(), checksum.getCount(), checksum.getVersionSum());
+    }
+
+    private static boolean matchesCatalog(CatalogSnapshot catalog, ProductResponseDto product) {
+        ProductResponseDto cataloged = catalog != null ? catalog.get(product.getId()) : null;
+        return cataloged != null && cataloged.equals(product);
+    }
+
+    private static Map<Object, Object> hottest(Cache<Object, Object> cache, int limit) {
+        return cache.policy().eviction()
+                .map(eviction -> eviction.hottest(limit))
+                .orElse(Collections.emptyMap());
+    }
+
+    private static void writeProducts(DataOutputStream out, Map<Long, ProductResponseDto> products) throws IOException {
+        out.writeInt(products.size());
+        for (ProductResponseDto product : products.values()) {
+            out.writeLong(product.getId());
+            writeString(out, product.getName());
+            writeInteger(out, product.getPrice());
+            writeString(out, product.getPicture());
+            out.writeByte(product.getAlive() == null ? -1 : product.getAlive() ? 1 : 0);
+            writeLong(out, product.getProductClassId());
+            writeString(out, product.getProductClassName());
+            writeDateTime(out, product.getCreatedAt());
+            writeDateTime(out, product.getUpdatedAt());
+            writeLong(out, product.getVersion());
+        }
+    }
+
+    private static ProductResponseDto readProduct(DataInputStream in) throws IOException {
+        long id = in.readLong();
+        String name = readString(in);
+        Integer price = readInteger(in);
+        String picture = readString(in);
+        byte alive = in.readByte();
+        return ProductResponseDto.builder()
+                .id(id)
+                .name(name)
+                .price(price)
+                .picture(picture)
+                .alive(alive < 0 ? null : alive == 1)
+                .productClassId(readLong(in))
+                .productClassName(readString(in))
+                .createdAt(readDateTime(in))
+                .updatedAt(readDateTime(in))
+                .version(readLong(in))
+                .build();
+    }
+
+    private static void writePage(DataOutputStream out, ProductPageKey key, Slice<?> page) throws IOException {
+        writeString(out, key.name());
+        writeLong(out, key.classId());
+        out.writeInt(key.pageNumber());
+        out.writeInt(key.pageSize());
+        List<Sort.Order> orders = key.sort().toList();
+        out.writeInt(orders.size());
+        for (Sort.Order order : orders) {
+            out.writeUTF(order.getProperty());
+            out.writeBoolean(order.isAscending());
+        }
+        out.writeBoolean(key.counted());
+        out.writeLong(key.counted() ? ((Page<?>) page).getTotalElements() : page.hasNext() ? 1 : 0);
+        out.writeInt(page.getNumberOfElements());
+        for (Object item : page.getContent()) {
+            out.writeLong(((ProductResponseDto) item).getId());
+        }
+    }
+
+    private static ProductPageKey readPageKey(DataInputStream in) throws IOException {
+        String name = readString(in);
+        Long classId = readLong(in);
+        int pageNumber = in.readInt();
+        int pageSize = in.readInt();
+        int orderCount = in.readInt();
+        List<Sort.Order> orders = new ArrayList<>(orderCount);
+        for (int i = 0; i < orderCount; i++) {
+            String property = in.readUTF();
+            orders.add(in.readBoolean() ? Sort.Order.asc(property) : Sort.Order.desc(property));
+        }
+        return new ProductPageKey(name, classId, pageNumber, pageSize, Sort.by(orders), in.readBoolean());
+    }
+
+    /**
+     * Read the rest of a page entry
+     *
+     * @return The page, or null if one of its products was not restored
+     */
+    private static Slice<ProductResponseDto> readPage(DataInputStream in, ProductPageKey key,
+                                                     Map<Long, ProductResponseDto> known) throws IOException {
+        long totalOrHasNext = in.readLong();
+        int size = in.readInt();
+        List<ProductResponseDto> content = new ArrayList<>(size);
+        boolean complete = true;
+        for (int i = 0; i < size; i++) {
+            ProductResponseDto product = known.get(in.readLong());
+            complete &= product != null;
+            content.add(product);
+        }
+        if (!complete) {
+            return null;
+        }
+        return key.counted()
+                ? new PageImpl<>(content, key.pageable(), totalOrHasNext)
+                : new SliceImpl<>(content, key.pageable(), totalOrHasNext == 1);
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    private static void writeLong(DataOutputStream out, Long value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeLong(value);
+        }
+    }
+
+    private static Long readLong(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readLong() : null;
+    }
+
+    private static void writeInteger(DataOutputStream out, Integer value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeInt(value);
+        }
+    }
+
+    private static Integer readInteger(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readInt() : null;
+    }
+
+    private static void writeDateTime(DataOutputStream out, LocalDateTime value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeLong(value.toEpochSecond(ZoneOffset.UTC));
+            out.writeInt(value.getNano());
+        }
+    }
+
+    private static LocalDateTime readDateTime(DataInputStream in) throws IOException {
+        return in.readBoolean() ? LocalDateTime.ofEpochSecond(in.readLong(), in.readInt(), ZoneOffset.UTC) : null;
+    }
+
+    @SuppressWarnings("unchecked")
+    private Cache<Object, Object> nativeCache(String name) {
+        org.springframework.cache.Cache cache = cacheManager.getCache(name);
+        if (cache instanceof CaffeineCache caffeineCache) {
+            return caffeineCache.getNativeCache();
+        }
+        return null;
+    }
+}
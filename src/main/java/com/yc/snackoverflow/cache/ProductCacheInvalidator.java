@@ -0,0 +1,147 @@
+package com.yc.snackoverflow.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.yc.snackoverflow.constant.CacheNames;
+import com.yc.snackoverflow.dto.response.ProductResponseDto;
+import com.yc.snackoverflow.event.ProductCatalogResetEvent;
+import com.yc.snackoverflow.event.ProductChangedEvent;
+import com.yc.snackoverflow.event.ProductState;
+import com.yc.snackoverflow.search.NameCollation;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.domain.Slice;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Targeted invalidation of the product caches
+ *
+ * A cached page depends on the product ids it contains and on its name/class
+ * filters. A write evicts the id entries of the written products and only those
+ * pages that contain one of them or whose filters match the product before or
+ * after the write. Pages of other classes and non-matching name filters survive.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ProductCacheInvalidator {
+
+    private final CacheManager cacheManager;
+
+    /**
+     * Evict the entries affected by a product write
+     *
+     * Runs after the surrounding transaction commits, so a concurrent read cannot
+     * repopulate the cache with the pre-commit rows. Ordered after ProductCatalog
+     * publishes the patched snapshot the evicted entries are reloaded from.
+     *
+     * @param event Product changed event
+     */
+    @Order(Ordered.HIGHEST_PRECEDENCE + 1)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        List<ProductState> states = new ArrayList<>(event.before());
+        states.addAll(event.after());
+        evict(states);
+    }
+
+    /**
+     * Drop every product id and page entry when the catalog is reset
+     *
+     * Ordered after ProductCatalog reloads the snapshot the entries are reloaded from.
+     *
+     * @param event Product catalog reset event
+     */
+    @Order(Ordered.HIGHEST_PRECEDENCE + 1)
+    @EventListener
+    public void onCatalogReset(ProductCatalogResetEvent event) {
+        for (String name : List.of(CacheNames.PRODUCTS, CacheNames.PRODUCT_PAGES)) {
+            org.springframework.cache.Cache cache = cacheManager.getCache(name);
+            if (cache != null) {
+                cache.clear();
+            }
+        }
+        log.info("Cleared the product caches after a catalog reset");
+    }
+
+    private void evict(List<ProductState> states) {
+        Set<Long> productIds = new HashSet<>();
+        for (ProductState state : states) {
+            if (state.id() != null) {
+                productIds.add(state.id());
+            }
+        }
+
+        org.springframework.cache.Cache productCache = cacheManager.getCache(CacheNames.PRODUCTS);
+        if (productCache != null) {
+            productIds.forEach(productCache::evict);
+        }
+
+        Cache<Object, Object> pageCache = nativeCache(CacheNames.PRODUCT_PAGES);
+        if (pageCache == null) {
+            return;
+        }
+        int evicted = 0;
+        for (Map.Entry<Object, Object> entry : pageCache.asMap().entrySet()) {
+            if (entry.getKey() instanceof ProductPageKey key
+                    && isAffected(key, entry.getValue(), productIds, states)) {
+                pageCache.invalidate(key);
+                evicted++;
+            }
+        }
+        log.debug("Evicted {} product ids and {} product pages", productIds.size(), evicted);
+    }
+
+    private boolean isAffected(ProductPageKey key, Object value, Set<Long> productIds, List<ProductState> states) {
+        if (value instanceof Slice<?> page) {
+            for (Object item : page.getContent()) {
+                if (item instanceof ProductResponseDto dto && productIds.contains(dto.getId())) {
+                    return true;
+                }
+            }
+        }
+        for (ProductState state : states) {
+            if (matches(state, key)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Whether a product in the given state belongs to the result set of a page
+     * (LIKE on the name column ignores case, accents and width under the table
+     * collation, so both sides are folded like ProductNameIndex does)
+     */
+    private boolean matches(ProductState state, ProductPageKey key) {
+        if (!state.alive()) {
+            return false;
+        }
+        if (key.classId() != null && !Objects.equals(key.classId(), state.classId())) {
+            return false;
+        }
+        return key.name() == null || (state.name() != null
+                && NameCollation.fold(state.name()).contains(NameCollation.fold(key.name())));
+    }
+
+    @SuppressWarnings("unchecked")
+    private Cache<Object, Object> nativeCache(String name) {
+        org.springframework.cache.Cache cache = cacheManager.getCache(name);
+        if (cache instanceof CaffeineCache caffeineCache) {
+            return caffeineCache.getNativeCache();
+        }
+        return null;
+    }
+}
@@ -0,0 +1,301 @@
+package com.yc.snackoverflow.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.yc.snackoverflow.constant.CacheNames;
+import com.yc.snackoverflow.repository.ProductClassDao;
+import com.yc.snackoverflow.repository.ProductDao;
+import com.yc.snackoverflow.service.ProductService;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.context.event.ContextClosedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Warms the product caches before the application reports ready
+ *
+ * ApplicationReadyEvent listeners run before the readiness state switches to
+ * ACCEPTING_TRAFFIC, so the load balancer only routes traffic to this instance
+ * once the warm-up has finished or timed out. The warm-up loads, through
+ * ProductService and in parallel:
+ * <ul>
+ *     <li>the most booked products</li>
+ *     <li>the first listing page, overall and of every active product class</li>
+ *     <li>a random sample of the hottest listing queries recorded at the last shutdown</li>
+ * </ul>
+ * Going through the service fills the caches and runs the read paths often
+ * enough for the JIT to start compiling them. The duration and the share of the
+ * planned loads that completed are exported as product.warmup.* meters.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ProductCacheWarmer {
+
+    /**
+     * Default listing of GET /api/products
+     */
+    private static final Pageable FIRST_PAGE = PageRequest.of(0, 10, Sort.by(Sort.Direction.DESC, "id"));
+
+    private static final String FIELD_SEPARATOR = "|";
+
+    private final ProductService productService;
+
+    private final ProductDao productDao;
+
+    private final ProductClassDao productClassDao;
+
+    private final CacheManager cacheManager;
+
+    private final MeterRegistry meterRegistry;
+
+    @Value("${app.product.warm-up.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.product.warm-up.top-products:200}")
+    private int topProducts;
+
+    @Value("${app.product.warm-up.recorded-queries:500}")
+    private int recordedQueries;
+
+    @Value("${app.product.warm-up.replayed-queries:100}")
+    private int replayedQueries;
+
+    @Value("${app.product.warm-up.queries-file:${java.io.tmpdir}/snack-overflow-hot-queries.txt}")
+    private Path queriesFile;
+
+    @Value("${app.product.warm-up.threads:4}")
+    private int threads;
+
+    @Value("${app.product.warm-up.timeout:PT30S}")
+    private Duration timeout;
+
+    private final AtomicInteger planned = new AtomicInteger();
+
+    private final AtomicInteger completed = new AtomicInteger();
+
+    /**
+     * Load the hot products and pages into the caches
+     *
+     * Runs last among the ready listeners, after the catalog snapshot is loaded
+     * and the cache dump is restored.
+     */
+    @Order(Ordered.LOWEST_PRECEDENCE)
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        if (!enabled) {
+            return;
+        }
+        Gauge.builder("product.warmup.planned", planned, AtomicInteger::get)
+                .description("Cache loads planned by the startup warm-up")
+                .register(meterRegistry);
+        Gauge.builder("product.warmup.completed", completed, AtomicInteger::get)
+                .description("Cache loads completed by the startup warm-up")
+                .register(meterRegistry);
+        Gauge.builder("product.warmup.coverage", this, ProductCacheWarmer::coverage)
+                .description("Share of the planned warm-up loads that completed")
+                .register(meterRegistry);
+        Timer duration = Timer.builder("product.warmup.duration")
+                .description("Time spent warming the product caches before readiness")
+                .register(meterRegistry);
+
+        long start = System.nanoTime();
+        List<Runnable> loads;
+        try {
+            loads = plan();
+        } catch (DataAccessException e) {
+            log.warn("Failed to plan product cache warm-up: {}", e.getMessage());
+            return;
+        }
+        planned.set(loads.size());
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> futures = new ArrayList<>(loads.size());
+            for (Runnable load : loads) {
+                futures.add(executor.submit(() -> {
+                    try {
+                        load.run();
+                        completed.incrementAndGet();
+                    } catch (RuntimeException e) {
+                        log.debug("Warm-up load failed: {}", e.getMessage());
+                    }
+                }));
+            }
+            executor.shutdown();
+            if (!executor.awaitTermination(timeout.toMillis(), TimeUnit.MILLISECONDS)) {
+                futures.forEach(future -> future.cancel(true));
+                log.warn("Product cache warm-up timed out after {}", timeout);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            executor.shutdownNow();
+        }
+
+        long elapsed = System.nanoTime() - start;
+        duration.record(elapsed, TimeUnit.NANOSECONDS);
+        log.info("Warmed product caches with {} of {} loads in {} ms",
+                completed.get(), planned.get(), TimeUnit.NANOSECONDS.toMillis(elapsed));
+    }
+
+    /**
+     * Record the hottest listing queries for the warm-up of the next start
+     *
+     * Caffeine already ranks the cached pages by access frequency, so the
+     * hottest page keys are the queries worth replaying.
+     */
+    @EventListener(ContextClosedEvent.class)
+    public void recordHotQueries() {
+        if (!enabled) {
+            return;
+        }
+        Cache<Object, Object> pages = nativeCache(CacheNames.PRODUCT_PAGES);
+        if (pages == null) {
+            return;
+        }
+        List<String> lines = new ArrayList<>();
+        pages.policy().eviction()
+                .map(eviction -> eviction.hottest(recordedQueries))
+                .orElse(Collections.emptyMap())
+                .keySet()
+                .forEach(key -> {
+                    // A name with a line break would split its line, so that rare query is not replayed
+                    if (key instanceof ProductPageKey pageKey
+                            && (pageKey.name() == null || pageKey.name().chars().noneMatch(c -> c == '\n' || c == '\r'))) {
+                        lines.add(format(pageKey));
+                    }
+                });
+        try {
+            Path temp = queriesFile.resolveSibling(queriesFile.getFileName() + ".tmp");
+            Files.write(temp, lines, StandardCharsets.UTF_8);
+            Files.move(temp, queriesFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            log.info("Recorded {} hot product queries to {}", lines.size(), queriesFile);
+        } catch (IOException e) {
+            log.warn("Failed to record hot product queries to {}: {}", queriesFile, e.getMessage());
+        }
+    }
+
+    private List<Runnable> plan() {
+        List<Runnable> loads = new ArrayList<>();
+        for (Long id : productDao.findMostBookedIds(PageRequest.of(0, topProducts))) {
+            loads.add(() -> productService.findById(id));
+        }
+        loads.add(() -> productService.findProducts(null, null, FIRST_PAGE));
+        for (Long classId : productClassDao.findActiveIds()) {
+            loads.add(() -> productService.findProducts(null, classId, FIRST_PAGE));
+        }
+        List<ProductPageKey> recorded = readHotQueries();
+        Collections.shuffle(recorded);
+        for (ProductPageKey key : recorded.subList(0, Math.min(replayedQueries, recorded.size()))) {
+            loads.add(key.counted()
+                    ? () -> productService.findProducts(key.name(), key.classId(), key.pageable())
+                    : () -> productService.findProductSlice(key.name(), key.classId(), key.pageable()));
+        }
+        return loads;
+    }
+
+    private List<ProductPageKey> readHotQueries() {
+        List<ProductPageKey> keys = new ArrayList<>();
+        try (BufferedReader reader = Files.newBufferedReader(queriesFile, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                try {
+                    keys.add(parse(line));
+                } catch (IllegalArgumentException e) {
+                    log.debug("Skipping unreadable hot query: {}", line);
+                }
+            }
+        } catch (NoSuchFileException e) {
+            log.info("No recorded hot product queries at {}", queriesFile);
+        } catch (IOException e) {
+            log.warn("Failed to read hot product queries from {}: {}", queriesFile, e.getMessage());
+        }
+        return keys;
+    }
+
+    /**
+     * One line per query: counted|classId|page|size|sort|name, with the name last
+     * so it may contain the separator
+     */
+    private static String format(ProductPageKey key) {
+        List<String> orders = new ArrayList<>();
+        for (Sort.Order order : key.sort()) {
+            orders.add(order.getProperty() + "," + order.getDirection());
+        }
+        return String.join(FIELD_SEPARATOR,
+                String.valueOf(key.counted()),
+                key.classId() == null ? "" : key.classId().toString(),
+                String.valueOf(key.pageNumber()),
+                String.valueOf(key.pageSize()),
+                String.join(";", orders),
+                key.name() == null ? "" : key.name());
+    }
+
+    private static ProductPageKey parse(String line) {
+        String[] fields = line.split("\\" + FIELD_SEPARATOR, 6);
+        if (fields.length != 6) {
+            throw new IllegalArgumentException("Expected 6 fields");
+        }
+        List<Sort.Order> orders = new ArrayList<>();
+        if (!fields[4].isEmpty()) {
+            for (String order : fields[4].split(";")) {
+                String[] parts = order.split(",");
+                if (parts.length != 2) {
+                    throw new IllegalArgumentException("Expected property,direction");
+                }
+                orders.add(new Sort.Order(Sort.Direction.fromString(parts[1]), parts[0]));
+            }
+        }
+        Pageable pageable = PageRequest.of(Integer.parseInt(fields[2]), Integer.parseInt(fields[3]), Sort.by(orders));
+        String name = fields[5].isEmpty() ? null : fields[5];
+        Long classId = fields[1].isEmpty() ? null : Long.valueOf(fields[1]);
+        return Boolean.parseBoolean(fields[0])
+                ? ProductPageKey.of(name, classId, pageable)
+                : ProductPageKey.ofSlice(name, classId, pageable);
+    }
+
+    private double coverage() {
+        int total = planned.get();
+        return total == 0 ? 1.0 : (double) completed.get() / total;
+    }
+
+    @SuppressWarnings("unchecked")
+    private Cache<Object, Object> nativeCache(String name) {
+        org.springframework.cache.Cache cache = cacheManager.getCache(name);
+        if (cache instanceof CaffeineCache caffeineCache) {
+            return caffeineCache.getNativeCache();
+        }
+        return null;
+    }
+}
@@ -0,0 +1,189 @@
+package com.yc.snackoverflow.cache;
+
+import com.yc.snackoverflow.dto.response.ProductResponseDto;
+import com.yc.snackoverflow.event.ProductCatalogResetEvent;
+import com.yc.snackoverflow.event.ProductChangedEvent;
+import com.yc.snackoverflow.event.ProductState;
+import com.yc.snackoverflow.projector.ProductCatalogChecksum;
+import com.yc.snackoverflow.repository.ProductDao;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * In-memory copy of the product catalog, published as an immutable {@link CatalogSnapshot}
+ *
+ * The snapshot is loaded when the application is ready. Product writes patch it
+ * copy-on-write: the changed rows are read inside the writing transaction, and the
+ * patched snapshot is published after the commit, before the product caches are
+ * evicted. Readers take the volatile reference and never lock. A background check
+ * compares the snapshot with the database and resets the catalog on a mismatch,
+ * e.g. after a write that bypassed ProductServiceImpl or that another node logged
+ * after this node gave up waiting for it.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ProductCatalog {
+
+    private final ProductDao productDao;
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    private final Lock lock = new ReentrantLock();
+
+    private volatile CatalogSnapshot snapshot;
+
+    /**
+     * Load the catalog
+     *
+     * Until this succeeds, reads keep going to the database. Runs right after
+     * ProductChangeLogTailer has taken its position, ahead of the cache restore.
+     */
+    @Order(Ordered.HIGHEST_PRECEDENCE + 1)
+    @EventListener(ApplicationReadyEvent.class)
+    public void build() {
+        lock.lock();
+        try {
+            reload();
+        } catch (DataAccessException e) {
+            log.warn("Failed to load product catalog: {}", e.getMessage());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Current snapshot of the catalog
+     *
+     * @return The snapshot, or null if the catalog has not been loaded yet
+     */
+    public CatalogSnapshot snapshot() {
+        return snapshot;
+    }
+
+    /**
+     * Read the rows of a product write and patch the snapshot once it commits
+     *
+     * The rows are read before the commit, on the writer's connection, so the
+     * listener never needs a second connection from the pool. Events published
+     * outside a transaction patch at once, still ahead of ProductCacheInvalidator.
+     *
+     * @param event Product changed event
+     */
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT, fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        if (snapshot == null) {
+            return;
+        }
+        Set<Long> ids = new HashSet<>();
+        for (List<ProductState> states : List.of(event.before(), event.after())) {
+            for (ProductState state : states) {
+                if (state.id() != null) {
+                    ids.add(state.id());
+                }
+            }
+        }
+        if (ids.isEmpty()) {
+            return;
+        }
+        List<ProductResponseDto> changed = productDao.findResponsesByIdIn(ids);
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            patch(changed);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public int getOrder() {
+                // Before ProductCacheInvalidator, so evicted entries are reloaded from the patched snapshot
+                return Ordered.HIGHEST_PRECEDENCE;
+            }
+
+            @Override
+            public void afterCommit() {
+                patch(changed);
+            }
+        });
+    }
+
+    /**
+     * Reload the snapshot when the catalog is reset
+     *
+     * Ordered first, so the caches cleared after it are reloaded from the new snapshot.
+     *
+     * @param event Product catalog reset event
+     */
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @EventListener
+    public void onCatalogReset(ProductCatalogResetEvent event) {
+        build();
+    }
+
+    /**
+     * Compare the snapshot with the database and reset the catalog if they differ
+     *
+     * Every write increments the version of the written product, so the row count
+     * and the sum of the versions change with every insert and update. The reset
+     * also clears the caches and indexes, which missed the same writes.
+     */
+    @Scheduled(initialDelayString = "${app.product.catalog.check-interval:PT5M}",
+            fixedDelayString = "${app.product.catalog.check-interval:PT5M}")
+    public void check() {
+        boolean outOfSync = false;
+        lock.lock();
+        try {
+            if (snapshot == null) {
+                reload();
+                return;
+            }
+            ProductCatalogChecksum checksum = productDao.findCatalogChecksum();
+            if (checksum.getCount() != snapshot.size() || checksum.getVersionSum() != snapshot.versionSum()) {
+                log.warn("Product catalog out of sync (database {} products / version sum {}, memory {} / {}), resetting",
+                        checksum.getCount(), checksum.getVersionSum(), snapshot.size(), snapshot.versionSum());
+                outOfSync = true;
+            }
+        } catch (DataAccessException e) {
+            log.warn("Failed to check product catalog: {}", e.getMessage());
+        } finally {
+            lock.unlock();
+        }
+        if (outOfSync) {
+            eventPublisher.publishEvent(new ProductCatalogResetEvent());
+        }
+    }
+
+    private void patch(List<ProductResponseDto> changed) {
+        lock.lock();
+        try {
+            if (snapshot != null) {
+                snapshot = snapshot.patch(changed);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void reload() {
+        CatalogSnapshot loaded = CatalogSnapshot.of(productDao.findAllResponses());
+        snapshot = loaded;
+        log.info("Loaded product catalog with {} products", loaded.size());
+    }
+}
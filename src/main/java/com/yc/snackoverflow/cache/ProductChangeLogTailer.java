@@ -0,0 +1,240 @@
+package com.yc.snackoverflow.cache;
+
+import com.yc.snackoverflow.event.ProductCatalogResetEvent;
+import com.yc.snackoverflow.event.ProductChangedEvent;
+import com.yc.snackoverflow.event.ProductClassChangedEvent;
+import com.yc.snackoverflow.event.ProductState;
+import com.yc.snackoverflow.model.ProductChangeLog;
+import com.yc.snackoverflow.repository.ProductChangeLogDao;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Keeps the local product caches of several nodes coherent through the product_change_log table
+ *
+ * Every product and product class write adds its before/after states to the log
+ * in the writing transaction. Each node tails the log by id and republishes the
+ * rows written by other nodes as local {@link ProductChangedEvent}s and
+ * {@link ProductClassChangedEvent}s. They are published outside a transaction, so
+ * the cache invalidator, name index, catalog snapshot and catalog version apply
+ * them immediately, while the log writers here skip them. Staleness on other
+ * nodes is bounded by the poll interval.
+ *
+ * Ids are assigned at insert but become visible at commit, so a row can appear
+ * after rows with higher ids. Skipped ids are remembered and re-read until they
+ * show up or the gap timeout passes (a rolled back insert never shows up). An
+ * expired gap may also be a slow transaction that commits later, so it resets
+ * the local catalog copies instead of silently dropping the write.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ProductChangeLogTailer {
+
+    /**
+     * Largest run of missing ids that is tracked; larger jumps come from a changed
+     * auto-increment setting rather than from uncommitted rows
+     */
+    private static final int MAX_TRACKED_GAP = 1000;
+
+    private final String nodeId = UUID.randomUUID().toString();
+
+    private final ProductChangeLogDao productChangeLogDao;
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Value("${app.product.change-log.batch-size:500}")
+    private int batchSize;
+
+    @Value("${app.product.change-log.gap-timeout:PT30S}")
+    private Duration gapTimeout;
+
+    @Value("${app.product.change-log.retention:P1D}")
+    private Duration retention;
+
+    /**
+     * Missing ids below lastId, with the time they were first missed
+     */
+    private final Map<Long, Long> gaps = new HashMap<>();
+
+    private long lastId = -1;
+
+    /**
+     * Start tailing at the end of the log, unless already started
+     *
+     * Runs before the catalog snapshot and the name index are loaded, so no write
+     * that commits in between is missed.
+     */
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void start() {
+        if (lastId >= 0) {
+            return;
+        }
+        try {
+            lastId = productChangeLogDao.findMaxId();
+            log.info("Tailing product change log from id {} as node {}", lastId, nodeId);
+        } catch (DataAccessException e) {
+            log.warn("Failed to read product change log position: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Log the states of a product write in the writing transaction
+     *
+     * @param event Product changed event
+     */
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT)
+    public void onProductChanged(ProductChangedEvent event) {
+        LocalDateTime now = LocalDateTime.now();
+        List<ProductChangeLog> entries = new ArrayList<>(event.before().size() + event.after().size());
+        for (ProductState state : event.before()) {
+            entries.add(entry(state.id(), state.name(), state.classId(), state.alive(), true, now));
+        }
+        for (ProductState state : event.after()) {
+            entries.add(entry(state.id(), state.name(), state.classId(), state.alive(), false, now));
+        }
+        productChangeLogDao.append(entries);
+    }
+
+    /**
+     * Log a product class write in the writing transaction
+     *
+     * @param event Product class changed event
+     */
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT)
+    public void onProductClassChanged(ProductClassChangedEvent event) {
+        LocalDateTime now = LocalDateTime.now();
+        productChangeLogDao.append(event.names().stream()
+                .map(name -> entry(null, name, null, true, false, now))
+                .toList());
+    }
+
+    /**
+     * Apply the writes other nodes logged since the last poll
+     */
+    @Scheduled(fixedDelayString = "${app.product.change-log.poll-interval:PT1S}")
+    public synchronized void poll() {
+        if (lastId < 0) {
+            start();
+            return;
+        }
+        try {
+            List<ProductChangeLog> rows = new ArrayList<>();
+            if (!gaps.isEmpty()) {
+                rows.addAll(productChangeLogDao.findByIdIn(gaps.keySet()));
+            }
+            List<ProductChangeLog> tail = productChangeLogDao.findByIdGreaterThanOrderByIdAsc(
+                    lastId, PageRequest.of(0, batchSize));
+            rows.addAll(tail);
+            int expired = track(rows, tail);
+            apply(rows);
+            if (expired > 0) {
+                log.warn("{} product change log ids did not show up within {}, resetting the local catalog",
+                        expired, gapTimeout);
+                eventPublisher.publishEvent(new ProductCatalogResetEvent());
+            }
+        } catch (DataAccessException e) {
+            log.warn("Failed to poll product change log: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Delete log rows that every node has long since applied
+     */
+    @Scheduled(fixedDelayString = "${app.product.change-log.prune-interval:PT1H}")
+    public void prune() {
+        try {
+            int deleted = productChangeLogDao.deleteByCreatedAtBefore(LocalDateTime.now().minus(retention));
+            log.debug("Pruned {} product change log rows", deleted);
+        } catch (DataAccessException e) {
+            log.warn("Failed to prune product change log: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Advance lastId over the tail and remember the ids it skipped
+     *
+     * @return Number of gaps that expired
+     */
+    private int track(List<ProductChangeLog> rows, List<ProductChangeLog> tail) {
+        long now = System.nanoTime();
+        for (ProductChangeLog row : rows) {
+            gaps.remove(row.getId());
+        }
+        for (ProductChangeLog row : tail) {
+            if (row.getId() - lastId - 1 <= MAX_TRACKED_GAP) {
+                for (long id = lastId + 1; id < row.getId(); id++) {
+                    gaps.put(id, now);
+                }
+            }
+            lastId = row.getId();
+        }
+        int tracked = gaps.size();
+        gaps.values().removeIf(missedAt -> now - missedAt > gapTimeout.toNanos());
+        return tracked - gaps.size();
+    }
+
+    /**
+     * Republish the rows of other nodes as local events
+     */
+    private void apply(List<ProductChangeLog> rows) {
+        rows.sort(Comparator.comparing(ProductChangeLog::getId));
+        List<ProductState> before = new ArrayList<>();
+        List<ProductState> after = new ArrayList<>();
+        List<String> productClasses = new ArrayList<>();
+        for (ProductChangeLog row : rows) {
+            if (nodeId.equals(row.getOrigin())) {
+                continue;
+            }
+            if (row.getProductId() == null) {
+                productClasses.add(row.getName());
+                continue;
+            }
+            ProductState state = new ProductState(
+                    row.getProductId(), row.getName(), row.getProductClassId(), Boolean.TRUE.equals(row.getAlive()));
+            (Boolean.TRUE.equals(row.getBeforeWrite()) ? before : after).add(state);
+        }
+        if (!before.isEmpty() || !after.isEmpty()) {
+            log.debug("Applying {} product changes from other nodes", before.size() + after.size());
+            eventPublisher.publishEvent(new ProductChangedEvent(before, after));
+        }
+        if (!productClasses.isEmpty()) {
+            eventPublisher.publishEvent(new ProductClassChangedEvent(productClasses));
+        }
+    }
+
+    private ProductChangeLog entry(Long productId, String name, Long classId, boolean alive,
+                                   boolean beforeWrite, LocalDateTime createdAt) {
+        return ProductChangeLog.builder()
+                .origin(nodeId)
+                .productId(productId)
+                .name(name)
+                .productClassId(classId)
+                .alive(alive)
+                .beforeWrite(beforeWrite)
+                .createdAt(createdAt)
+                .build();
+    }
+}
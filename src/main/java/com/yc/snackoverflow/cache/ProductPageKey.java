@@ -0,0 +1,66 @@
+package com.yc.snackoverflow.cache;
+
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.util.StringUtils;
+
+/**
+ * Cache key of a product listing page
+ *
+ * The filters are kept as separate components so that ProductCacheInvalidator can
+ * decide which cached pages a product write may affect.
+ *
+ * @param name Name filter, null when not filtered by name
+ * @param classId Product class filter, null when not filtered by class
+ * @param pageNumber Page number
+ * @param pageSize Page size
+ * @param sort Sort order
+ * @param counted Whether the page carries a total count (Page) or only hasNext (Slice)
+ */
+public record ProductPageKey(String name, Long classId, int pageNumber, int pageSize, Sort sort, boolean counted) {
+
+    /**
+     * Create the key for a findProducts call
+     *
+     * @param name Name filter
+     * @param classId Product class filter
+     * @param pageable Pagination information
+     * @return Page key
+     */
+    public static ProductPageKey of(String name, Long classId, Pageable pageable) {
+        return of(name, classId, pageable, true);
+    }
+
+    /**
+     * Create the key for a findProductSlice call
+     *
+     * @param name Name filter
+     * @param classId Product class filter
+     * @param pageable Pagination information
+     * @return Page key
+     */
+    public static ProductPageKey ofSlice(String name, Long classId, Pageable pageable) {
+        return of(name, classId, pageable, false);
+    }
+
+    /**
+     * Pagination information of the page this key stands for
+     *
+     * @return Page request
+     */
+    public Pageable pageable() {
+        return PageRequest.of(pageNumber, pageSize, sort);
+    }
+
+    private static ProductPageKey of(String name, Long classId, Pageable pageable, boolean counted) {
+        return new ProductPageKey(
+                StringUtils.hasText(name) ? name : null,
+                classId,
+                pageable.getPageNumber(),
+                pageable.getPageSize(),
+                pageable.getSort(),
+                counted
+        );
+    }
+}
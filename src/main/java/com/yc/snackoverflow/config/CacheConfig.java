@@ -0,0 +1,116 @@
+package com.yc.snackoverflow.config;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.CacheLoader;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.yc.snackoverflow.cache.CoalescingCaffeineCache;
+import com.yc.snackoverflow.constant.CacheNames;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Lazy;
+
+import java.time.Duration;
+
+/**
+ * Configuration for the in-process Caffeine caches
+ *
+ * Caffeine bounds each cache by size and uses W-TinyLFU admission, so a burst of
+ * one-off page requests cannot push the frequently read products out of the cache.
+ *
+ * The product caches are read with {@code @Cacheable(sync = true)}, so concurrent
+ * misses on one key share a single load; the number of such coalesced requests is
+ * exported as cache.coalesced. Product and page entries that are read after their
+ * refresh interval are reloaded in the background while the old value is still
+ * served, so hot keys do not expire under load.
+ */
+@Configuration
+@EnableCaching
+public class CacheConfig {
+
+    private static final String CACHE_MANAGER_NAME = "cacheManager";
+
+    @Value("${app.cache.products.maximum-size:10000}")
+    private long productMaximumSize;
+
+    @Value("${app.cache.products.expire-after-write:10m}")
+    private Duration productExpireAfterWrite;
+
+    @Value("${app.cache.products.refresh-after-write:8m}")
+    private Duration productRefreshAfterWrite;
+
+    @Value("${app.cache.product-pages.maximum-size:2000}")
+    private long productPageMaximumSize;
+
+    @Value("${app.cache.product-pages.expire-after-write:1m}")
+    private Duration productPageExpireAfterWrite;
+
+    @Value("${app.cache.product-pages.refresh-after-write:45s}")
+    private Duration productPageRefreshAfterWrite;
+
+    @Value("${app.cache.product-counts.maximum-size:1000}")
+    private long productCountMaximumSize;
+
+    @Value("${app.cache.product-counts.expire-after-write:30s}")
+    private Duration productCountExpireAfterWrite;
+
+    /**
+     * Register the product caches and bind their statistics to the meter registry
+     *
+     * @param meterRegistry Meter registry
+     * @param productCacheLoader Reloads product and page entries for refresh-ahead
+     *                           (ProductServiceImpl, resolved lazily as it depends on the caches)
+     * @return Caffeine backed cache manager
+     */
+    @Bean(CACHE_MANAGER_NAME)
+    public CacheManager cacheManager(MeterRegistry meterRegistry, @Lazy CacheLoader<Object, Object> productCacheLoader) {
+        CaffeineCacheManager cacheManager = new CaffeineCacheManager() {
+            @Override
+            protected org.springframework.cache.Cache adaptCaffeineCache(String name, Cache<Object, Object> cache) {
+                Counter coalesced = Counter.builder("cache.coalesced")
+                        .description("Requests that waited for another caller's load of the same key")
+                        .tag("cache", name)
+                        .tag("cacheManager", CACHE_MANAGER_NAME)
+                        .register(meterRegistry);
+                return new CoalescingCaffeineCache(name, cache, isAllowNullValues(), coalesced);
+            }
+        };
+        cacheManager.setAllowNullValues(false);
+
+        registerCache(cacheManager, meterRegistry, CacheNames.PRODUCTS, Caffeine.newBuilder()
+                .maximumSize(productMaximumSize)
+                .expireAfterWrite(productExpireAfterWrite)
+                .refreshAfterWrite(productRefreshAfterWrite)
+                .recordStats()
+                .build(productCacheLoader));
+        registerCache(cacheManager, meterRegistry, CacheNames.PRODUCT_PAGES, Caffeine.newBuilder()
+                .maximumSize(productPageMaximumSize)
+                .expireAfterWrite(productPageExpireAfterWrite)
+                .refreshAfterWrite(productPageRefreshAfterWrite)
+                .recordStats()
+                .build(productCacheLoader));
+        registerCache(cacheManager, meterRegistry, CacheNames.PRODUCT_COUNTS, Caffeine.newBuilder()
+                .maximumSize(productCountMaximumSize)
+                .expireAfterWrite(productCountExpireAfterWrite)
+                .recordStats()
+                .build());
+
+        return cacheManager;
+    }
+
+    /**
+     * Register a bounded cache with the manager and export its
+     * hit/miss/eviction statistics as cache.* meters
+     */
+    private void registerCache(CaffeineCacheManager cacheManager, MeterRegistry meterRegistry,
+                               String name, Cache<Object, Object> cache) {
+        cacheManager.registerCustomCache(name, cache);
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, name, "cacheManager", CACHE_MANAGER_NAME);
+    }
+}
@@ -0,0 +1,42 @@
+package com.yc.snackoverflow.config.web;
+
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.context.request.async.AsyncWebRequest;
+import org.springframework.web.context.request.async.CallableProcessingInterceptor;
+import org.springframework.web.context.request.async.WebAsyncUtils;
+
+import java.time.Duration;
+import java.util.concurrent.Callable;
+
+/**
+ * Per-request timeouts of async responses
+ *
+ * WebConfig replaces the Spring Boot MVC configuration, so spring.mvc.async.*
+ * is not applied and async requests get the container default. A handler that
+ * returns a StreamingResponseBody sets its own timeout here, which is applied
+ * just before the request goes async, and leaves every other request alone.
+ */
+public final class AsyncTimeouts {
+
+    private static final String INTERCEPTOR_KEY = AsyncTimeouts.class.getName();
+
+    private AsyncTimeouts() {
+    }
+
+    /**
+     * Use the given timeout if the current request is processed asynchronously
+     *
+     * @param request Request being handled
+     * @param timeout Time the async response may take to complete
+     */
+    public static void set(WebRequest request, Duration timeout) {
+        WebAsyncUtils.getAsyncManager(request).registerCallableInterceptor(INTERCEPTOR_KEY,
+                new CallableProcessingInterceptor() {
+                    @Override
+                    public <T> void beforeConcurrentHandling(NativeWebRequest webRequest, Callable<T> task) {
+                        ((AsyncWebRequest) webRequest).setTimeout(timeout.toMillis());
+                    }
+                });
+    }
+}
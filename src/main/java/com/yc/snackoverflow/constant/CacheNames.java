@@ -0,0 +1,17 @@
+package com.yc.snackoverflow.constant;
+
+/**
+ * Cache name constants for the application
+ * Each name maps to a separately sized and expiring cache in CacheConfig
+ */
+public final class CacheNames {
+    // Product related caches
+    public static final String PRODUCTS = "products";
+    public static final String PRODUCT_PAGES = "productPages";
+    public static final String PRODUCT_COUNTS = "productCounts";
+
+    // Prevent instantiation
+    private CacheNames() {
+        throw new AssertionError("Cannot instantiate constant class");
+    }
+}
@@ -20,6 +20,7 @@ public final class ErrorCode {
     public static final int DATA_ACCESS_ERROR = 10003;
     public static final int INVALID_REQUEST = 10004;
     public static final int OPERATION_FAILED = 10005;
+    public static final int CONCURRENT_MODIFICATION = 10006;
     
     // Authentication errors: 20000-29999
     public static final int UNAUTHORIZED = 20000;
@@ -1,11 +1,16 @@
 package com.yc.snackoverflow.controller;
 
-import com.yc.snackoverflow.data.BookingData;
+import com.yc.snackoverflow.config.web.AsyncTimeouts;
 import com.yc.snackoverflow.data.BookingDto;
 import com.yc.snackoverflow.data.CountBookingReturnData;
-import com.yc.snackoverflow.enums.UpsertStatusEnum;
+import com.yc.snackoverflow.dto.response.BookingResponseDto;
+import com.yc.snackoverflow.dto.response.BookingUpsertResult;
+import com.yc.snackoverflow.exception.WebErrorEnum;
+import com.yc.snackoverflow.handler.CursorPageResult;
 import com.yc.snackoverflow.handler.ResultData;
+import com.yc.snackoverflow.service.BookingExportService;
 import com.yc.snackoverflow.service.BookingService;
+import com.yc.snackoverflow.service.MemberService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.Content;
@@ -15,6 +20,14 @@ import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.util.StringUtils;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -22,10 +35,15 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.time.Duration;
+import java.time.LocalDate;
 import java.util.List;
 
 
@@ -37,26 +55,42 @@ import java.util.List;
 public class BookingController {
 
 
+    /**
+     * Header that makes a retried create return the first booking instead of booking again
+     */
+    private static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+
     private final BookingService bookingService;
 
+    private final BookingExportService bookingExportService;
+
+    private final MemberService memberService;
+
+    @Value("${app.booking.export.timeout:PT30M}")
+    private Duration exportTimeout;
+
     /**
      * Create a new booking
      */
-    @Operation(summary = "Create booking", description = "Create a new booking")
+    @Operation(summary = "Create booking", description = "Create a new booking; retries with the same Idempotency-Key header book only once")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Booking created successfully"),
             @ApiResponse(responseCode = "400", description = "Invalid input"),
-            @ApiResponse(responseCode = "401", description = "Unauthorized")
+            @ApiResponse(responseCode = "401", description = "Unauthorized"),
+            @ApiResponse(responseCode = "409", description = "The Idempotency-Key was used with a different booking, or a retry with it is still in progress")
     })
     @PostMapping
-    public ResultData<UpsertStatusEnum> createBooking(@Validated @RequestBody BookingDto bookingDto) {
+    public ResultData<BookingUpsertResult> createBooking(
+            @Parameter(description = "Client-generated key, at most 64 characters, identifying this booking across retries")
+            @RequestHeader(value = IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey,
+            @Validated @RequestBody BookingDto bookingDto) {
         String productInfo = "none";
         if (bookingDto.getBookingDetailDtoList() != null && !bookingDto.getBookingDetailDtoList().isEmpty()) {
             productInfo = bookingDto.getBookingDetailDtoList().get(0).getProductName();
         }
         log.info("Creating new booking for member: {}, product: {}", bookingDto.getMemberName(), productInfo);
-        UpsertStatusEnum status = bookingService.createOrUpdate(bookingDto);
-        return ResultData.success("Booking created successfully", status);
+        BookingUpsertResult result = bookingService.createOrUpdate(bookingDto, idempotencyKey);
+        return ResultData.success("Booking created successfully", result);
     }
 
     /**
@@ -70,32 +104,85 @@ public class BookingController {
             @ApiResponse(responseCode = "401", description = "Unauthorized")
     })
     @PutMapping("/{id}")
-    public ResultData<UpsertStatusEnum> updateBooking(
+    public ResultData<BookingUpsertResult> updateBooking(
             @PathVariable Long id,
             @Validated @RequestBody BookingDto bookingDto) {
         log.info("Updating booking with ID: {}", id);
         bookingDto.setId(id); // Ensure ID matches path variable
-        UpsertStatusEnum status = bookingService.createOrUpdate(bookingDto);
-        return ResultData.success("Booking updated successfully", status);
+        BookingUpsertResult result = bookingService.createOrUpdate(bookingDto);
+        return ResultData.success("Booking updated successfully", result);
     }
 
     /**
-     * Get bookings by member and month
+     * Get a member's bookings, newest first, one keyset page at a time
      */
-    @Operation(summary = "Get bookings", description = "Get bookings filtered by member name and month")
+    @Operation(summary = "Get bookings",
+            description = "Get a member's bookings newest first, optionally within a date range; pass nextCursor as after for the next page")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Success"),
+            @ApiResponse(responseCode = "400", description = "Invalid range, cursor or page size"),
+            @ApiResponse(responseCode = "404", description = "Member not found"),
             @ApiResponse(responseCode = "401", description = "Unauthorized")
     })
     @GetMapping
-    public ResultData<List<BookingData>> getBookings(
-            @Parameter(description = "Member name for filtering")
+    public ResultData<CursorPageResult<BookingResponseDto>> getBookings(
+            @Parameter(description = "Member name")
+            @RequestParam String member,
+            @Parameter(description = "First booking date, inclusive (yyyy-MM-dd)")
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @Parameter(description = "Last booking date, inclusive (yyyy-MM-dd)")
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @Parameter(description = "Cursor from the previous page; empty for the first page")
+            @RequestParam(defaultValue = "") String after,
+            @Parameter(description = "Page size")
+            @RequestParam(defaultValue = "20") int size) {
+        log.info("Getting bookings for member: {}, from: {}, to: {}, after: {}", member, from, to, after);
+        return ResultData.success(bookingService.getByMemberAndDate(member, from, to, after, size));
+    }
+
+    /**
+     * Export bookings as NDJSON
+     *
+     * Bookings are streamed one line each from a database cursor, so the export
+     * is not paged and its memory does not grow with the number of bookings.
+     */
+    @Operation(summary = "Export bookings",
+            description = "Stream bookings with their details as NDJSON, optionally for one member and date range")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Success"),
+            @ApiResponse(responseCode = "400", description = "Invalid range",
+                        content = @Content(schema = @Schema(implementation = ResultData.class))),
+            @ApiResponse(responseCode = "404", description = "Member not found",
+                        content = @Content(schema = @Schema(implementation = ResultData.class))),
+            @ApiResponse(responseCode = "401", description = "Unauthorized",
+                        content = @Content(schema = @Schema(implementation = ResultData.class)))
+    })
+    @GetMapping("/export")
+    @PreAuthorize("hasAnyRole('ADMIN', 'MANAGER')")
+    public ResponseEntity<StreamingResponseBody> exportBookings(
+            @Parameter(description = "Member name; all members when omitted")
             @RequestParam(required = false) String member,
-            @Parameter(description = "Month for filtering (1-12)")
-            @RequestParam(required = false) Integer month) {
-        log.info("Getting bookings for member: {}, month: {}", member, month);
-        List<BookingData> bookings = bookingService.getByMemberAndDate(member, month);
-        return ResultData.success(bookings);
+            @Parameter(description = "First booking date, inclusive (yyyy-MM-dd)")
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @Parameter(description = "Last booking date, inclusive (yyyy-MM-dd)")
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            ServletWebRequest request) {
+        if (from != null && to != null && from.isAfter(to)) {
+            throw WebErrorEnum.INVALID_ARG.exception("to");
+        }
+        // Resolve the member before the response is committed, so an unknown one still gets an error response
+        Long memberId = StringUtils.hasText(member) ? memberService.list(List.of(member)).get(0).getId() : null;
+
+        log.info("Exporting bookings for member: {}, from: {}, to: {}", member, from, to);
+        StreamingResponseBody body = output -> bookingExportService.exportNdjson(memberId, from, to, output);
+        AsyncTimeouts.set(request, exportTimeout);
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                        .filename("bookings.ndjson")
+                        .build()
+                        .toString())
+                .body(body);
     }
 
     /**
@@ -108,20 +195,11 @@ public class BookingController {
             @ApiResponse(responseCode = "401", description = "Unauthorized")
     })
     @GetMapping("/{id}")
-    public ResultData<BookingData> getBookingById(
+    public ResultData<BookingResponseDto> getBookingById(
             @Parameter(description = "Booking ID")
             @PathVariable Long id) {
         log.info("Getting booking with ID: {}", id);
-        // We'll need to implement this method in the service
-        // For now, let's assume the service can return a single booking by ID
-        BookingDto bookingDto = new BookingDto();
-        bookingDto.setId(id);
-        List<BookingData> bookings = bookingService.getByMemberAndDate(null, null);
-        BookingData booking = bookings.stream()
-                .filter(b -> b.getId().equals(id))
-                .findFirst()
-                .orElseThrow(() -> new RuntimeException("Booking not found"));
-        return ResultData.success(booking);
+        return ResultData.success(bookingService.findById(id));
     }
 
     /**
@@ -144,39 +222,28 @@ public class BookingController {
         return ResultData.success("Booking deleted successfully", null);
     }
 
+
     /**
      * Count bookings by month and max price
      */
-    @Operation(summary = "Count bookings", description = "Count bookings by month and max price")
+    @Operation(summary = "Count bookings",
+            description = "Count booked quantities per product by year, month and max price, from the monthly rollup")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Success"),
+            @ApiResponse(responseCode = "400", description = "Invalid year or month"),
             @ApiResponse(responseCode = "401", description = "Unauthorized")
     })
     @GetMapping("/count")
     public ResultData<List<CountBookingReturnData>> countBooking(
-            @Parameter(description = "Month for filtering (1-12)")
+            @Parameter(description = "Year for filtering")
+            @RequestParam(required = false) Integer year,
+            @Parameter(description = "Month for filtering (1-12), of every year unless year is given")
             @RequestParam(required = false) Integer month,
             @Parameter(description = "Maximum price for filtering")
             @RequestParam(required = false) Integer maxPrice) {
-        log.info("Counting bookings for month: {}, max price: {}", month, maxPrice);
-        List<CountBookingReturnData> countData = bookingService.countBooking(month, maxPrice);
+        log.info("Counting bookings for year: {}, month: {}, max price: {}", year, month, maxPrice);
+        List<CountBookingReturnData> countData = bookingService.countBooking(year, month, maxPrice);
         return ResultData.success(countData);
     }
 
-    /**
-     * Get all bookings
-     */
-    @Operation(summary = "Get all bookings", description = "Get all bookings in the system")
-    @ApiResponses(value = {
-            @ApiResponse(responseCode = "200", description = "Success"),
-            @ApiResponse(responseCode = "401", description = "Unauthorized")
-    })
-    @GetMapping("/all")
-    public ResultData<List<BookingData>> getAllBookings() {
-        log.info("Getting all bookings");
-        List<BookingData> allBookings = bookingService.getByMemberAndDate(null, null);
-        return ResultData.success(allBookings);
-    }
-
-
 }
@@ -1,6 +1,8 @@
 package com.yc.snackoverflow.controller;
 
+import com.yc.snackoverflow.cache.CatalogVersion;
 import com.yc.snackoverflow.data.ProductClassDto;
+import com.yc.snackoverflow.handler.ConditionalGet;
 import com.yc.snackoverflow.handler.ResultData;
 import com.yc.snackoverflow.service.ProductClassService;
 import io.swagger.v3.oas.annotations.Operation;
@@ -19,6 +21,7 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.ServletWebRequest;
 
 import java.util.List;
 
@@ -32,6 +35,7 @@ public class ProductClassController {
 
 
     private final ProductClassService productClassService;
+    private final CatalogVersion catalogVersion;
 
     /**
      * Create product classes in batch
@@ -56,6 +60,7 @@ public class ProductClassController {
     @Operation(summary = "Get product classes", description = "Get product classes with optional filtering")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Success"),
+            @ApiResponse(responseCode = "304", description = "Not modified since the given ETag"),
             @ApiResponse(responseCode = "401", description = "Unauthorized")
     })
     @GetMapping
@@ -63,7 +68,11 @@ public class ProductClassController {
             @Parameter(description = "List of product class names for filtering")
             @RequestParam(required = false) List<String> names,
             @Parameter(description = "Filter by active status (true/false)")
-            @RequestParam(required = false) Boolean isAlive) {
+            @RequestParam(required = false) Boolean isAlive,
+            ServletWebRequest request) {
+        if (ConditionalGet.notModified(request, "product-classes-" + catalogVersion.current())) {
+            return null;
+        }
         log.info("Getting product classes, filter by names: {}, isAlive: {}", names, isAlive);
         List<String> productClasses = productClassService.list(names, isAlive);
         return ResultData.success(productClasses);
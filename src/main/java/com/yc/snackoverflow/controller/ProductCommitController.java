@@ -1,6 +1,7 @@
 package com.yc.snackoverflow.controller;
 
 import com.yc.snackoverflow.data.ProductDto;
+import com.yc.snackoverflow.enums.UpsertStatusEnum;
 import com.yc.snackoverflow.handler.ResultData;
 import com.yc.snackoverflow.model.Product;
 import com.yc.snackoverflow.service.ProductService;
@@ -46,10 +47,10 @@ public class ProductCommitController {
     })
     @PostMapping
     @PreAuthorize("hasAnyRole('ADMIN', 'MANAGER')")
-    public ResultData<Void> createProducts(@Validated @RequestBody List<ProductDto> productDtos) {
+    public ResultData<List<UpsertStatusEnum>> createProducts(@Validated @RequestBody List<ProductDto> productDtos) {
         log.info("Creating {} products using legacy API", productDtos.size());
-        productService.createOrUpdate(productDtos);
-        return ResultData.success("Products created successfully", null);
+        List<UpsertStatusEnum> statuses = productService.createOrUpdate(productDtos);
+        return ResultData.success("Products created successfully", statuses);
     }
 
     /**
@@ -64,10 +65,10 @@ public class ProductCommitController {
     })
     @PutMapping
     @PreAuthorize("hasAnyRole('ADMIN', 'MANAGER')")
-    public ResultData<Void> updateProducts(@Validated @RequestBody List<ProductDto> productDtos) {
+    public ResultData<List<UpsertStatusEnum>> updateProducts(@Validated @RequestBody List<ProductDto> productDtos) {
         log.info("Updating {} products using legacy API", productDtos.size());
-        productService.createOrUpdate(productDtos);
-        return ResultData.success("Products updated successfully", null);
+        List<UpsertStatusEnum> statuses = productService.createOrUpdate(productDtos);
+        return ResultData.success("Products updated successfully", statuses);
     }
 
     /**
@@ -98,13 +99,13 @@ public class ProductCommitController {
     })
     @DeleteMapping
     @PreAuthorize("hasRole('ADMIN')")
-    public ResultData<Void> deleteProducts(@Validated @RequestBody List<ProductDto> productDtos) {
+    public ResultData<List<UpsertStatusEnum>> deleteProducts(@Validated @RequestBody List<ProductDto> productDtos) {
         log.info("Deleting {} products using legacy API", productDtos.size());
         
         // Set alive to false for all products to perform logical deletion
         productDtos.forEach(product -> product.setAlive(false));
-        productService.createOrUpdate(productDtos);
+        List<UpsertStatusEnum> statuses = productService.createOrUpdate(productDtos);
         
-        return ResultData.success("Products deleted successfully", null);
+        return ResultData.success("Products deleted successfully", statuses);
     }
 }
@@ -1,11 +1,22 @@
 package com.yc.snackoverflow.controller;
 
+import com.yc.snackoverflow.cache.CatalogVersion;
+import com.yc.snackoverflow.config.web.AsyncTimeouts;
 import com.yc.snackoverflow.constant.ApiPath;
 import com.yc.snackoverflow.dto.request.ProductCreateRequestDto;
+import com.yc.snackoverflow.dto.request.ProductSearchRequestDto;
 import com.yc.snackoverflow.dto.request.ProductUpdateRequestDto;
+import com.yc.snackoverflow.dto.response.ProductImportReport;
 import com.yc.snackoverflow.dto.response.ProductResponseDto;
+import com.yc.snackoverflow.dto.response.ProductSearchResult;
+import com.yc.snackoverflow.enums.ProductSortEnum;
+import com.yc.snackoverflow.exception.WebErrorEnum;
+import com.yc.snackoverflow.handler.ConditionalGet;
+import com.yc.snackoverflow.handler.CursorPageResult;
 import com.yc.snackoverflow.handler.PageResult;
 import com.yc.snackoverflow.handler.ResultData;
+import com.yc.snackoverflow.service.ProductExportService;
+import com.yc.snackoverflow.service.ProductImportService;
 import com.yc.snackoverflow.service.ProductService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -17,13 +28,28 @@ import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.domain.Sort;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Duration;
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Locale;
+import java.util.Set;
 
 /**
  * Product controller for managing products
@@ -35,15 +61,33 @@ import java.util.List;
 @Tag(name = "Product Management", description = "API endpoints for product management")
 public class ProductController {
 
+    private static final String TEXT_CSV_VALUE = "text/csv";
+
+    private static final String SEARCH_PLAN_HEADER = "X-Query-Plan";
+
     private final ProductService productService;
+    private final ProductImportService productImportService;
+    private final ProductExportService productExportService;
+    private final CatalogVersion catalogVersion;
+
+    @Value("${app.product.export.timeout:PT30M}")
+    private Duration exportTimeout;
+
+    @Value("${app.product.search.plan-header:false}")
+    private boolean searchPlanHeader;
 
     /**
      * Get a paginated list of products
+     *
+     * Answers If-None-Match with 304 from the catalog version alone, without loading the page.
      */
     @Operation(summary = "Get products", description = "Get a paginated list of products with optional filtering")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Success", 
                         content = @Content(schema = @Schema(implementation = ResultData.class))),
+            @ApiResponse(responseCode = "304", description = "Not modified since the given ETag"),
+            @ApiResponse(responseCode = "400", description = "Unknown sort field", 
+                        content = @Content(schema = @Schema(implementation = ResultData.class))),
             @ApiResponse(responseCode = "401", description = "Unauthorized", 
                         content = @Content(schema = @Schema(implementation = ResultData.class)))
     })
@@ -61,25 +105,232 @@ public class ProductController {
             @Parameter(description = "Page size") 
             @RequestParam(defaultValue = "10") int size,
 
-            @Parameter(description = "Sort field and direction (e.g. name,asc)") 
-            @RequestParam(defaultValue = "id,desc") String sort) {
+            @Parameter(description = "Sort field (id, name, price or createdAt) and direction (e.g. name,asc)") 
+            @RequestParam(defaultValue = "id,desc") String sort,
+
+            @Parameter(description = "Whether to count the total number of products; false returns only hasNext") 
+            @RequestParam(defaultValue = "true") boolean withTotal,
+
+            @Parameter(description = "With withTotal=false, fill in an approximate total from a short-lived cache") 
+            @RequestParam(defaultValue = "false") boolean estimateTotal,
+
+            ServletWebRequest request) {
 
-        String[] sortParams = sort.split(",");
-        Sort.Direction direction = sortParams.length > 1 && "asc".equalsIgnoreCase(sortParams[1]) ? 
-                Sort.Direction.ASC : Sort.Direction.DESC;
-        PageRequest pageRequest = PageRequest.of(page, size, Sort.by(direction, sortParams[0]));
+        // Unknown sort keys are rejected before any lookup
+        Sort sortOrder = ProductSortEnum.parse(sort);
+        if (ConditionalGet.notModified(request, "products-" + catalogVersion.current())) {
+            return null;
+        }
+
+        PageRequest pageRequest = PageRequest.of(page, size, sortOrder);
+
+        if (!withTotal) {
+            Slice<ProductResponseDto> products = productService.findProductSlice(name, classId, pageRequest);
+            Long estimatedTotal = estimateTotal ? productService.estimateProductCount(name, classId) : null;
+            return ResultData.success(PageResult.from(products, estimatedTotal));
+        }
 
         Page<ProductResponseDto> products = productService.findProducts(name, classId, pageRequest);
         return ResultData.success(PageResult.from(products));
     }
 
+    /**
+     * Get products using keyset (cursor) pagination; selected by the presence of the after parameter
+     */
+    @Operation(summary = "Get products by cursor",
+            description = "Get products after a cursor, without a total count. Pass an empty after for the first page, then the returned nextCursor")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Success", 
+                        content = @Content(schema = @Schema(implementation = ResultData.class))),
+            @ApiResponse(responseCode = "304", description = "Not modified since the given ETag"),
+            @ApiResponse(responseCode = "400", description = "Invalid cursor or sort field", 
+                        content = @Content(schema = @Schema(implementation = ResultData.class))),
+            @ApiResponse(responseCode = "401", description = "Unauthorized", 
+                        content = @Content(schema = @Schema(implementation = ResultData.class)))
+    })
+    @GetMapping(params = "after")
+    public ResultData<CursorPageResult<ProductResponseDto>> getProductsAfter(
+            @Parameter(description = "Product name for filtering") 
+            @RequestParam(required = false) String name,
+
+            @Parameter(description = "Product class ID for filtering") 
+            @RequestParam(required = false) Long classId,
+
+            @Parameter(description = "Cursor from the previous page (empty for the first page)") 
+            @RequestParam String after,
+
+            @Parameter(description = "Page size") 
+            @RequestParam(defaultValue = "10") int size,
+
+            @Parameter(description = "Sort field and direction for the first page (id, name or price, e.g. price,asc)") 
+            @RequestParam(defaultValue = "id,desc") String sort,
+
+            ServletWebRequest request) {
+
+        // Unknown sort keys are rejected before any lookup
+        Sort sortOrder = ProductSortEnum.parse(sort);
+        if (ConditionalGet.notModified(request, "products-" + catalogVersion.current())) {
+            return null;
+        }
+
+        CursorPageResult<ProductResponseDto> products =
+                productService.findProductsAfter(name, classId, after, size, sortOrder);
+        return ResultData.success(products);
+    }
+
+    /**
+     * Get several products by ID in one request; selected by the presence of the ids parameter
+     */
+    @Operation(summary = "Get products by IDs",
+            description = "Get the products with the given IDs (e.g. ids=1,2,3) in the requested order, repeated IDs included; unknown IDs are skipped")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Success", 
+                        content = @Content(schema = @Schema(implementation = ResultData.class))),
+            @ApiResponse(responseCode = "304", description = "Not modified since the given ETag"),
+            @ApiResponse(responseCode = "400", description = "Too many IDs", 
+                        content = @Content(schema = @Schema(implementation = ResultData.class))),
+            @ApiResponse(responseCode = "401", description = "Unauthorized", 
+                        content = @Content(schema = @Schema(implementation = ResultData.class)))
+    })
+    @GetMapping(params = "ids")
+    public ResultData<List<ProductResponseDto>> getProductsByIds(
+            @Parameter(description = "Comma-separated product IDs") 
+            @RequestParam List<Long> ids,
+
+            ServletWebRequest request) {
+
+        if (ConditionalGet.notModified(request, "products-" + catalogVersion.current())) {
+            return null;
+        }
+
+        List<ProductResponseDto> products = productService.findByIds(ids);
+        return ResultData.success(products);
+    }
+
+    /**
+     * Search products by several criteria at once
+     */
+    @Operation(summary = "Search products",
+            description = "Filter by name, product classes, price range, active flag and creation time range, with pagination")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Success", 
+                        content = @Content(schema = @Schema(implementation = ResultData.class))),
+            @ApiResponse(responseCode = "304", description = "Not modified since the given ETag"),
+            @ApiResponse(responseCode = "400", description = "Invalid range or sort field", 
+                        content = @Content(schema = @Schema(implementation = ResultData.class))),
+            @ApiResponse(responseCode = "401", description = "Unauthorized", 
+                        content = @Content(schema = @Schema(implementation = ResultData.class)))
+    })
+    @GetMapping("/search")
+    public ResultData<PageResult<ProductResponseDto>> searchProducts(
+            @Parameter(description = "Product name for filtering") 
+            @RequestParam(required = false) String name,
+
+            @Parameter(description = "Comma-separated product class IDs, any of which matches") 
+            @RequestParam(required = false) Set<Long> classIds,
+
+            @Parameter(description = "Lowest price, inclusive") 
+            @RequestParam(required = false) Integer minPrice,
+
+            @Parameter(description = "Highest price, inclusive") 
+            @RequestParam(required = false) Integer maxPrice,
+
+            @Parameter(description = "Active flag; omit to match both active and inactive products") 
+            @RequestParam(required = false) Boolean alive,
+
+            @Parameter(description = "Earliest creation time, inclusive (ISO date-time)") 
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime createdFrom,
+
+            @Parameter(description = "Latest creation time, exclusive (ISO date-time)") 
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime createdTo,
+
+            @Parameter(description = "Page number (0-based)") 
+            @RequestParam(defaultValue = "0") int page,
+
+            @Parameter(description = "Page size") 
+            @RequestParam(defaultValue = "10") int size,
+
+            @Parameter(description = "Sort field (id, name, price or createdAt) and direction (e.g. price,asc)") 
+            @RequestParam(defaultValue = "id,desc") String sort,
+
+            ServletWebRequest request) {
+
+        // Unknown sort keys are rejected before any lookup
+        Sort sortOrder = ProductSortEnum.parse(sort);
+        if (ConditionalGet.notModified(request, "products-" + catalogVersion.current())) {
+            return null;
+        }
+
+        ProductSearchRequestDto criteria = ProductSearchRequestDto.builder()
+                .name(name)
+                .classIds(classIds)
+                .minPrice(minPrice)
+                .maxPrice(maxPrice)
+                .alive(alive)
+                .createdFrom(createdFrom)
+                .createdTo(createdTo)
+                .build();
+
+        ProductSearchResult result = productService.searchProducts(
+                criteria, PageRequest.of(page, size, sortOrder));
+        if (searchPlanHeader && request.getResponse() != null) {
+            request.getResponse().setHeader(SEARCH_PLAN_HEADER, result.getPlan());
+        }
+        return ResultData.success(PageResult.from(result.getPage()));
+    }
+
+    /**
+     * Export the catalog as a stream
+     */
+    @Operation(summary = "Export products",
+            description = "Stream all active products as NDJSON (default) or CSV, without paging")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Success"),
+            @ApiResponse(responseCode = "400", description = "Unknown format",
+                        content = @Content(schema = @Schema(implementation = ResultData.class))),
+            @ApiResponse(responseCode = "401", description = "Unauthorized",
+                        content = @Content(schema = @Schema(implementation = ResultData.class)))
+    })
+    @GetMapping("/export")
+    @PreAuthorize("hasAnyRole('ADMIN', 'MANAGER')")
+    public ResponseEntity<StreamingResponseBody> exportProducts(
+            @Parameter(description = "Export format: ndjson or csv")
+            @RequestParam(defaultValue = "ndjson") String format,
+            ServletWebRequest request) {
+
+        StreamingResponseBody body;
+        MediaType mediaType;
+        if ("ndjson".equalsIgnoreCase(format)) {
+            body = productExportService::exportNdjson;
+            mediaType = MediaType.APPLICATION_NDJSON;
+        } else if ("csv".equalsIgnoreCase(format)) {
+            body = productExportService::exportCsv;
+            mediaType = MediaType.parseMediaType(TEXT_CSV_VALUE);
+        } else {
+            throw WebErrorEnum.INVALID_ARG.exception("format");
+        }
+
+        log.info("Exporting products as {}", format);
+        AsyncTimeouts.set(request, exportTimeout);
+        return ResponseEntity.ok()
+                .contentType(mediaType)
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                        .filename("products." + format.toLowerCase(Locale.ROOT))
+                        .build()
+                        .toString())
+                .body(body);
+    }
+
     /**
      * Get a product by ID
+     *
+     * The ETag is the product version; a cached product answers If-None-Match without a query.
      */
     @Operation(summary = "Get product by ID", description = "Get a specific product by its ID")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Success", 
                         content = @Content(schema = @Schema(implementation = ResultData.class))),
+            @ApiResponse(responseCode = "304", description = "Not modified since the given ETag"),
             @ApiResponse(responseCode = "404", description = "Product not found", 
                         content = @Content(schema = @Schema(implementation = ResultData.class))),
             @ApiResponse(responseCode = "401", description = "Unauthorized", 
@@ -87,9 +338,13 @@ public class ProductController {
     })
     @GetMapping("/{id}")
     public ResultData<ProductResponseDto> getProduct(
-            @Parameter(description = "Product ID") @PathVariable Long id) {
+            @Parameter(description = "Product ID") @PathVariable Long id,
+            ServletWebRequest request) {
 
         ProductResponseDto product = productService.findById(id);
+        if (ConditionalGet.notModified(request, "product-" + id + "-" + product.getVersion())) {
+            return null;
+        }
         return ResultData.success(product);
     }
 
@@ -137,6 +392,56 @@ public class ProductController {
         return ResultData.success("Products created successfully", createdProducts);
     }
 
+    /**
+     * Import products from newline-delimited JSON
+     */
+    @Operation(summary = "Import products (NDJSON)",
+            description = "Stream products as one JSON object per line, committed in chunks")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Import finished, see the per-chunk report",
+                        content = @Content(schema = @Schema(implementation = ResultData.class))),
+            @ApiResponse(responseCode = "400", description = "Invalid chunk size",
+                        content = @Content(schema = @Schema(implementation = ResultData.class))),
+            @ApiResponse(responseCode = "401", description = "Unauthorized",
+                        content = @Content(schema = @Schema(implementation = ResultData.class)))
+    })
+    @PostMapping(value = "/import", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+    @PreAuthorize("hasAnyRole('ADMIN', 'MANAGER')")
+    public ResultData<ProductImportReport> importProductsNdjson(
+            InputStream body,
+            @Parameter(description = "Rows per transaction")
+            @RequestParam(required = false) Integer chunkSize) throws IOException {
+
+        log.info("Importing products from NDJSON");
+        ProductImportReport report = productImportService.importNdjson(body, chunkSize);
+        return ResultData.success("Products imported", report);
+    }
+
+    /**
+     * Import products from CSV
+     */
+    @Operation(summary = "Import products (CSV)",
+            description = "Stream products as CSV with a header row (name, price, picture, productClassId), committed in chunks")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Import finished, see the per-chunk report",
+                        content = @Content(schema = @Schema(implementation = ResultData.class))),
+            @ApiResponse(responseCode = "400", description = "Invalid chunk size",
+                        content = @Content(schema = @Schema(implementation = ResultData.class))),
+            @ApiResponse(responseCode = "401", description = "Unauthorized",
+                        content = @Content(schema = @Schema(implementation = ResultData.class)))
+    })
+    @PostMapping(value = "/import", consumes = TEXT_CSV_VALUE)
+    @PreAuthorize("hasAnyRole('ADMIN', 'MANAGER')")
+    public ResultData<ProductImportReport> importProductsCsv(
+            InputStream body,
+            @Parameter(description = "Rows per transaction")
+            @RequestParam(required = false) Integer chunkSize) throws IOException {
+
+        log.info("Importing products from CSV");
+        ProductImportReport report = productImportService.importCsv(body, chunkSize);
+        return ResultData.success("Products imported", report);
+    }
+
     /**
      * Update an existing product
      */
@@ -148,6 +453,8 @@ public class ProductController {
                         content = @Content(schema = @Schema(implementation = ResultData.class))),
             @ApiResponse(responseCode = "404", description = "Product not found", 
                         content = @Content(schema = @Schema(implementation = ResultData.class))),
+            @ApiResponse(responseCode = "409", description = "Product was updated concurrently",
+                        content = @Content(schema = @Schema(implementation = ResultData.class))),
             @ApiResponse(responseCode = "401", description = "Unauthorized", 
                         content = @Content(schema = @Schema(implementation = ResultData.class)))
     })
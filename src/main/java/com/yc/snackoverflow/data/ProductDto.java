@@ -23,4 +23,9 @@ public class ProductDto {
 
     private Boolean alive;
 
+    /**
+     * Product class of a new product; optional when updating an existing one
+     */
+    private Long productClassId;
+
 }
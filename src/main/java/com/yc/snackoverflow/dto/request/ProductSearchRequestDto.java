@@ -0,0 +1,54 @@
+package com.yc.snackoverflow.dto.request;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.Set;
+
+/**
+ * DTO for product search criteria; every criterion is optional
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductSearchRequestDto {
+
+    /**
+     * Substring of the product name
+     */
+    private String name;
+
+    /**
+     * Product class IDs, any of which matches
+     */
+    private Set<Long> classIds;
+
+    /**
+     * Lowest price, inclusive
+     */
+    private Integer minPrice;
+
+    /**
+     * Highest price, inclusive
+     */
+    private Integer maxPrice;
+
+    /**
+     * Active flag; null matches both active and inactive products
+     */
+    private Boolean alive;
+
+    /**
+     * Earliest creation time, inclusive
+     */
+    private LocalDateTime createdFrom;
+
+    /**
+     * Latest creation time, exclusive
+     */
+    private LocalDateTime createdTo;
+}
@@ -0,0 +1,23 @@
+package com.yc.snackoverflow.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * DTO for the details of a booking response
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BookingDetailResponseDto {
+
+    private Long productId;
+    private String productName;
+    private String productClassName;
+    private Integer price;
+    private Integer count;
+    private Integer priority;
+}
@@ -0,0 +1,25 @@
+package com.yc.snackoverflow.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Date;
+import java.util.List;
+
+/**
+ * DTO for booking responses
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BookingResponseDto {
+
+    private Long id;
+    private String memberName;
+    private Date date;
+    private Integer totalPrice;
+    private List<BookingDetailResponseDto> details;
+}
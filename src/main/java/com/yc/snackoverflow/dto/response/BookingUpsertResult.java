@@ -0,0 +1,20 @@
+package com.yc.snackoverflow.dto.response;
+
+import com.yc.snackoverflow.enums.UpsertStatusEnum;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * DTO for the outcome of a booking create or update with the booking it refers to
+ */
+@Data
+@AllArgsConstructor
+public class BookingUpsertResult {
+
+    private UpsertStatusEnum status;
+
+    /**
+     * Booking as saved, or the booking first created with the Idempotency-Key of a retried create
+     */
+    private BookingResponseDto booking;
+}
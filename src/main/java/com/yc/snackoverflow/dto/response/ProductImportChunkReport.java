@@ -0,0 +1,29 @@
+package com.yc.snackoverflow.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * DTO for one committed chunk of a streaming product import
+ *
+ * Rows are identified by their line in the input. Skipped rows carry a name that
+ * already exists; failed rows are listed in errors, up to a configured limit.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductImportChunkReport {
+
+    private int chunk;
+    private long firstLine;
+    private long lastLine;
+    private int created;
+    private int skipped;
+    private int failed;
+    private List<String> errors;
+}
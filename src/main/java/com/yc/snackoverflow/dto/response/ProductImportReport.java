@@ -0,0 +1,24 @@
+package com.yc.snackoverflow.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * DTO for the result of a streaming product import
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductImportReport {
+
+    private long totalRows;
+    private long created;
+    private long skipped;
+    private long failed;
+    private List<ProductImportChunkReport> chunks;
+}
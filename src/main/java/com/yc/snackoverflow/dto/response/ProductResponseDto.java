@@ -25,4 +25,5 @@ public class ProductResponseDto {
     private String productClassName;
     private LocalDateTime createdAt;
     private LocalDateTime updatedAt;
+    private Long version;
 }
@@ -0,0 +1,21 @@
+package com.yc.snackoverflow.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import org.springframework.data.domain.Page;
+
+/**
+ * DTO for a page of product search results with the plan it was run with
+ */
+@Data
+@AllArgsConstructor
+public class ProductSearchResult {
+
+    private Page<ProductResponseDto> page;
+
+    /**
+     * Index the query is shaped for, the filters left to row checks, and whether
+     * the rows are sorted after the lookup
+     */
+    private String plan;
+}
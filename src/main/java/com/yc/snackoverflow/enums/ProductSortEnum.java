@@ -0,0 +1,89 @@
+package com.yc.snackoverflow.enums;
+
+import com.fasterxml.jackson.annotation.JsonValue;
+import com.yc.snackoverflow.exception.WebErrorEnum;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Sort;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Sort keys accepted by the product listings, each backed by composite indexes
+ *
+ * Every key is sorted with id as a unique tiebreak in the same direction, which
+ * is the trailing column of both indexes, so a page is read in index order
+ * without a filesort: {@link #index} for the unfiltered listing, {@link #classIndex}
+ * for a listing of one product class. Keys that are not listed here are rejected.
+ */
+@Getter
+@RequiredArgsConstructor
+public enum ProductSortEnum implements BaseEnum<String> {
+
+    ID("id", "id", "PRIMARY", "idx_product_alive_class"),
+
+    NAME("name", "name", "idx_product_alive_name", "idx_product_alive_class_name"),
+
+    PRICE("price", "price", "idx_product_alive_price", "idx_product_alive_class_price"),
+
+    CREATED_AT("createdAt", "createdAt", "idx_product_alive_created", "idx_product_alive_class_created"),
+    ;
+
+    /**
+     * Key of the sort request parameter
+     */
+    @JsonValue
+    private final String value;
+
+    /**
+     * Product attribute sorted on
+     */
+    private final String property;
+
+    /**
+     * Index serving the listing of all active products
+     */
+    private final String index;
+
+    /**
+     * Index serving the listing of the active products of one class
+     */
+    private final String classIndex;
+
+    private static final Map<String, ProductSortEnum> ENUMS = Arrays.stream(values()).collect(Collectors.toUnmodifiableMap(ProductSortEnum::getValue, Function.identity()));
+
+    public static Optional<ProductSortEnum> lookup(final String value) {
+        return Optional.ofNullable(ENUMS.get(value));
+    }
+
+    /**
+     * Parse a sort request parameter such as {@code price,asc}; the direction
+     * defaults to descending
+     *
+     * @param sort Sort key and optional direction
+     * @return Sort on the key with the id tiebreak
+     */
+    public static Sort parse(String sort) {
+        String[] sortParams = sort.split(",");
+        Sort.Direction direction = sortParams.length > 1 && "asc".equalsIgnoreCase(sortParams[1].trim()) ?
+                Sort.Direction.ASC : Sort.Direction.DESC;
+        return lookup(sortParams[0].trim())
+                .orElseThrow(() -> WebErrorEnum.INVALID_ARG.exception("sort"))
+                .sort(direction);
+    }
+
+    /**
+     * Sort on this key with the id tiebreak
+     *
+     * @param direction Sort direction, also used for the tiebreak
+     * @return Sort
+     */
+    public Sort sort(Sort.Direction direction) {
+        Sort sort = Sort.by(direction, property);
+        return this == ID ? sort : sort.and(Sort.by(direction, ID.property));
+    }
+}
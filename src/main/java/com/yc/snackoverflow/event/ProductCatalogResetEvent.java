@@ -0,0 +1,12 @@
+package com.yc.snackoverflow.event;
+
+/**
+ * Published when this node may have missed product writes, so every in-memory
+ * copy of the catalog (snapshot, caches, indexes) must be reloaded from the database
+ *
+ * Sent by ProductChangeLogTailer when a change log gap expires and by
+ * ProductCatalog when its periodic check finds the snapshot out of sync.
+ * Published outside a transaction, so listeners use plain {@code @EventListener}.
+ */
+public record ProductCatalogResetEvent() {
+}
@@ -0,0 +1,36 @@
+package com.yc.snackoverflow.event;
+
+import java.util.List;
+
+/**
+ * Published by ProductServiceImpl for every product write
+ *
+ * Listeners that keep in-memory structures in sync (caches, indexes) should use
+ * {@code @TransactionalEventListener} so they only see committed changes.
+ *
+ * @param before States of the changed products before the write (empty for creations)
+ * @param after States of the changed products after the write
+ */
+public record ProductChangedEvent(List<ProductState> before, List<ProductState> after) {
+
+    /**
+     * Event for newly created products
+     *
+     * @param created States of the created products
+     * @return Product changed event
+     */
+    public static ProductChangedEvent created(List<ProductState> created) {
+        return new ProductChangedEvent(List.of(), List.copyOf(created));
+    }
+
+    /**
+     * Event for a single updated product
+     *
+     * @param before State before the update
+     * @param after State after the update
+     * @return Product changed event
+     */
+    public static ProductChangedEvent updated(ProductState before, ProductState after) {
+        return new ProductChangedEvent(List.of(before), List.of(after));
+    }
+}
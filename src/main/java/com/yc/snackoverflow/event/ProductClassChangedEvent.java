@@ -0,0 +1,11 @@
+package com.yc.snackoverflow.event;
+
+import java.util.List;
+
+/**
+ * Published by ProductClassServiceImpl for every product class write
+ *
+ * @param names Names of the created or changed product classes
+ */
+public record ProductClassChangedEvent(List<String> names) {
+}
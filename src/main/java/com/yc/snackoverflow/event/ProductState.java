@@ -0,0 +1,29 @@
+package com.yc.snackoverflow.event;
+
+import com.yc.snackoverflow.model.Product;
+
+/**
+ * The fields of a product that decide which listings and indexes it appears in
+ *
+ * @param id Product ID
+ * @param name Product name
+ * @param classId Product class ID
+ * @param alive Whether the product is active
+ */
+public record ProductState(Long id, String name, Long classId, boolean alive) {
+
+    /**
+     * Capture the current state of a product entity
+     *
+     * @param product Product entity
+     * @return Product state
+     */
+    public static ProductState of(Product product) {
+        return new ProductState(
+                product.getId(),
+                product.getName(),
+                product.getProductClass() != null ? product.getProductClass().getId() : null,
+                Boolean.TRUE.equals(product.getAlive())
+        );
+    }
+}
@@ -9,8 +9,11 @@ import io.jsonwebtoken.security.SignatureException;
 import jakarta.persistence.EntityNotFoundException;
 import jakarta.validation.ConstraintViolationException;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
 import org.springframework.dao.DataAccessException;
 import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.http.converter.HttpMessageNotReadableException;
@@ -34,19 +37,25 @@ import java.util.stream.Collectors;
 
 /**
  * Global exception handler for all controllers
+ *
+ * Ordered first, so no other advice can answer a WebException before it.
  */
 @Slf4j
+@Order(Ordered.HIGHEST_PRECEDENCE)
 @RestControllerAdvice
 public class GlobalExceptionHandler {
 
     /**
      * Handle custom WebException
+     *
+     * Answers with the status of its WebError, e.g. 404 for BOOKING_NOT_FOUND or 409
+     * for IDEMPOTENCY_KEY_REUSED, and with 400 when it carries only an error code.
      */
     @ExceptionHandler(WebException.class)
     public ResponseEntity<ResultData<?>> handleWebException(WebException ex) {
         log.warn("Web exception: {}", ex.getMessage());
         return ResponseEntity
-                .status(HttpStatus.BAD_REQUEST)
+                .status(ex.getWebError() != null ? ex.getWebError().getStatusCode() : HttpStatus.BAD_REQUEST)
                 .body(ResultData.fail(ex.getCode(), ex.getWebErrorMsg()));
     }
 
@@ -91,6 +100,17 @@ public class GlobalExceptionHandler {
                 .body(ResultData.fail(ErrorCode.DATA_ACCESS_ERROR, "Data integrity violation: The operation conflicts with existing data"));
     }
 
+    /**
+     * Handle writes that lost an optimistic lock to a concurrent write of the same row
+     */
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    public ResponseEntity<ResultData<?>> handleOptimisticLockingFailure(OptimisticLockingFailureException ex) {
+        log.warn("Concurrent modification: {}", ex.getMessage());
+        return ResponseEntity
+                .status(HttpStatus.CONFLICT)
+                .body(ResultData.fail(ErrorCode.CONCURRENT_MODIFICATION, "The resource was modified concurrently, please retry"));
+    }
+
     /**
      * Handle database access exceptions
      */
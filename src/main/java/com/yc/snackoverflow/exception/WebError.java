@@ -7,6 +7,9 @@ import org.springframework.http.HttpStatus;
  */
 public interface WebError {
 
+    /**
+     * HTTP status the response to a WebException of this error carries
+     */
     HttpStatus getStatusCode();
 
     String getErrorCode();
@@ -33,6 +33,7 @@ public enum WebErrorEnum implements WebError {
     PRODUCT_CLASS_ALREADY_EXISTS(HttpStatus.CONFLICT, "ERR0019", "Product class already exists. "),
     UNAUTHORIZED(HttpStatus.UNAUTHORIZED, "ERR0020", "Unauthorized access. "),
     USER_NOT_FOUND(HttpStatus.NOT_FOUND, "ERR0021", "User not found. "),
+    IDEMPOTENCY_KEY_REUSED(HttpStatus.CONFLICT, "ERR0022", "Idempotency-Key [%s] was already used for a different booking. "),
     ;
 
     private final HttpStatus statusCode;
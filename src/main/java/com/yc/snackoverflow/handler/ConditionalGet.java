@@ -0,0 +1,34 @@
+package com.yc.snackoverflow.handler;
+
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.context.request.ServletWebRequest;
+
+/**
+ * Helper for conditional GET with ETag / If-None-Match
+ */
+public final class ConditionalGet {
+
+    // Prevent instantiation
+    private ConditionalGet() {
+        throw new AssertionError("Cannot instantiate utility class");
+    }
+
+    /**
+     * Set the ETag of the response and check it against If-None-Match
+     *
+     * Responses are marked no-cache, so clients keep them but revalidate on every
+     * use instead of the no-store default. When this returns true the status is
+     * already 304 and the handler should return null.
+     *
+     * @param request Current request
+     * @param etag Strong ETag of the representation, without quotes
+     * @return true if the client copy is current
+     */
+    public static boolean notModified(ServletWebRequest request, String etag) {
+        if (request.getResponse() != null) {
+            request.getResponse().setHeader(HttpHeaders.CACHE_CONTROL, CacheControl.noCache().getHeaderValue());
+        }
+        return request.checkNotModified(etag);
+    }
+}
@@ -0,0 +1,23 @@
+package com.yc.snackoverflow.handler;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * Cursor (keyset) page result wrapper for API responses
+ *
+ * Unlike PageResult it carries no total count; clients fetch the next page by
+ * passing nextCursor back as the after parameter.
+ *
+ * @param <T> Type of the page items
+ */
+@Data
+@AllArgsConstructor
+public class CursorPageResult<T> {
+    private List<T> content;
+    private String nextCursor;
+    private int pageSize;
+    private boolean hasNext;
+}
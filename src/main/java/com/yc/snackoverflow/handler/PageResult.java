@@ -3,25 +3,31 @@ package com.yc.snackoverflow.handler;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Slice;
 
 import java.util.List;
 
 /**
  * Page result wrapper for API responses
  *
+ * Pages fetched without a total count leave totalElements and totalPages null
+ * (or fill them from an estimate, flagged by totalEstimated) and rely on hasNext.
+ *
  * @param <T> Type of the page items
  */
 @Data
 @AllArgsConstructor
 public class PageResult<T> {
     private List<T> content;
-    private long totalElements;
-    private int totalPages;
+    private Long totalElements;
+    private Integer totalPages;
     private int pageNumber;
     private int pageSize;
     private boolean first;
     private boolean last;
     private boolean empty;
+    private boolean hasNext;
+    private boolean totalEstimated;
 
     /**
      * Create from Spring Data Page
@@ -39,7 +45,35 @@ public class PageResult<T> {
                 page.getSize(),
                 page.isFirst(),
                 page.isLast(),
-                page.isEmpty()
+                page.isEmpty(),
+                page.hasNext(),
+                false
+        );
+    }
+
+    /**
+     * Create from Spring Data Slice
+     *
+     * @param slice Spring Data Slice
+     * @param estimatedTotal Approximate total number of elements, or null when not requested
+     * @param <T> Type of the page items
+     * @return PageResult instance
+     */
+    public static <T> PageResult<T> from(Slice<T> slice, Long estimatedTotal) {
+        Integer estimatedPages = estimatedTotal == null || slice.getSize() == 0
+                ? null
+                : (int) Math.ceil((double) estimatedTotal / slice.getSize());
+        return new PageResult<>(
+                slice.getContent(),
+                estimatedTotal,
+                estimatedPages,
+                slice.getNumber(),
+                slice.getSize(),
+                slice.isFirst(),
+                slice.isLast(),
+                slice.isEmpty(),
+                slice.hasNext(),
+                estimatedTotal != null
         );
     }
 }
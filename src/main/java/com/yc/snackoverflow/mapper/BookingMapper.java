@@ -0,0 +1,46 @@
+package com.yc.snackoverflow.mapper;
+
+import com.yc.snackoverflow.dto.response.BookingDetailResponseDto;
+import com.yc.snackoverflow.dto.response.BookingResponseDto;
+import com.yc.snackoverflow.model.Booking;
+import com.yc.snackoverflow.model.BookingDetail;
+import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
+
+/**
+ * Mapper for Booking entity and DTOs
+ */
+@Mapper(componentModel = "spring")
+public interface BookingMapper {
+
+    /**
+     * Convert Booking entity to BookingResponseDto
+     *
+     * @param booking The booking entity, with its member and details loaded
+     * @return BookingResponseDto
+     */
+    @Mapping(target = "memberName", source = "member.name")
+    @Mapping(target = "details", source = "bookingDetails")
+    BookingResponseDto toResponseDto(Booking booking);
+
+    /**
+     * Convert Booking entity to BookingResponseDto without touching its details
+     *
+     * @param booking The booking entity, with its member loaded
+     * @return BookingResponseDto whose details are left null
+     */
+    @Mapping(target = "memberName", source = "member.name")
+    @Mapping(target = "details", ignore = true)
+    BookingResponseDto toSummaryDto(Booking booking);
+
+    /**
+     * Convert BookingDetail entity to BookingDetailResponseDto
+     *
+     * @param bookingDetail The booking detail entity
+     * @return BookingDetailResponseDto
+     */
+    @Mapping(target = "productId", source = "product.id")
+    @Mapping(target = "productName", source = "product.name")
+    @Mapping(target = "productClassName", source = "product.productClass.name")
+    BookingDetailResponseDto toDetailResponseDto(BookingDetail bookingDetail);
+}
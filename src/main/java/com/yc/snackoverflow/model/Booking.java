@@ -3,10 +3,12 @@ package com.yc.snackoverflow.model;
 
 import com.yc.snackoverflow.model.baseAbstract.BaseLongIdDO;
 import jakarta.persistence.CascadeType;
+import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.FetchType;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.OneToMany;
+import jakarta.persistence.OrderBy;
 import jakarta.persistence.Table;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -31,10 +33,31 @@ public class Booking extends BaseLongIdDO {
             cascade = {CascadeType.PERSIST, CascadeType.MERGE})
     private Member member;
 
+    @Column(name = "booking_time")
     private Date date;
 
+    /**
+     * Sum of price times count over the details
+     */
+    private Integer totalPrice;
+
+    /**
+     * Idempotency-Key the booking was created with, unique per member
+     */
+    private String idempotencyKey;
+
+    /**
+     * SHA-256 of the create request the Idempotency-Key was first used with
+     */
+    private String idempotencyFingerprint;
+
+    /**
+     * Details are persisted with the booking and inserted as one JDBC batch
+     */
     @OneToMany(
-            mappedBy = "booking"
+            mappedBy = "booking",
+            cascade = CascadeType.PERSIST
     )
+    @OrderBy("id")
     private Set<BookingDetail> bookingDetails;
 }
\ No newline at end of file
@@ -1,7 +1,8 @@
 package com.yc.snackoverflow.model;
 
-import com.yc.snackoverflow.model.baseAbstract.BaseLongIdDO;
+import com.yc.snackoverflow.model.baseAbstract.BasePooledLongIdDO;
 import jakarta.persistence.CascadeType;
+import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.FetchType;
 import jakarta.persistence.ManyToOne;
@@ -17,7 +18,7 @@ import lombok.NoArgsConstructor;
 @AllArgsConstructor
 @Builder
 @Table(name = "BOOKING_DETAIL")
-public class BookingDetail extends BaseLongIdDO {
+public class BookingDetail extends BasePooledLongIdDO {
 
     @ManyToOne(
             fetch = FetchType.LAZY,
@@ -32,5 +33,11 @@ public class BookingDetail extends BaseLongIdDO {
     )
     private Booking booking;
 
+    @Column(name = "quantity")
     private Integer count;
+
+    /**
+     * Unit price of the product when it was booked
+     */
+    private Integer price;
 }
\ No newline at end of file
@@ -0,0 +1,67 @@
+package com.yc.snackoverflow.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+import jakarta.persistence.EmbeddedId;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.Date;
+
+/**
+ * Booked quantity of one product in one calendar month
+ *
+ * Rows are adjusted in the transaction of every booking write, so summing them
+ * gives the same counts as grouping all booking details, without reading them.
+ */
+@Entity
+@Getter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Table(name = "booking_monthly_count")
+public class BookingMonthlyCount {
+
+    @EmbeddedId
+    private Key id;
+
+    @Column(nullable = false)
+    private Long quantity;
+
+    /**
+     * Month as yyyyMM and product id
+     */
+    @Embeddable
+    @Getter
+    @EqualsAndHashCode
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+
+        @Column(name = "booking_month")
+        private Integer bookingMonth;
+
+        @Column(name = "product_id")
+        private Long productId;
+    }
+
+    /**
+     * Month of a booking time as yyyyMM, in the zone booking times are stored in
+     *
+     * @param date Booking time
+     * @param zone Zone of the stored booking times
+     * @return Month key
+     */
+    public static int monthOf(Date date, ZoneId zone) {
+        ZonedDateTime time = date.toInstant().atZone(zone);
+        return time.getYear() * 100 + time.getMonthValue();
+    }
+}
@@ -1,6 +1,6 @@
 package com.yc.snackoverflow.model;
 
-import com.yc.snackoverflow.model.baseAbstract.BaseLongIdDO;
+import com.yc.snackoverflow.model.baseAbstract.BasePooledLongIdDO;
 import jakarta.persistence.CascadeType;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
@@ -9,6 +9,7 @@ import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.OneToMany;
 import jakarta.persistence.Table;
+import jakarta.persistence.Version;
 import lombok.AllArgsConstructor;
 import lombok.experimental.SuperBuilder;
 import lombok.Getter;
@@ -25,7 +26,7 @@ import java.util.Set;
 @AllArgsConstructor
 @SuperBuilder
 @Table(name = "PRODUCT")
-public class Product extends BaseLongIdDO {
+public class Product extends BasePooledLongIdDO {
 
     @Column(nullable = false)
     private String name;
@@ -53,4 +54,10 @@ public class Product extends BaseLongIdDO {
     @JoinColumn(nullable = false)
     private ProductClass productClass;
 
+    /**
+     * Incremented on every update; doubles as the ETag of the product
+     */
+    @Version
+    private Long version;
+
 }
\ No newline at end of file
@@ -0,0 +1,66 @@
+package com.yc.snackoverflow.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+/**
+ * One entry of the product change log
+ *
+ * Rows are written in the transaction of the product or product class write and
+ * tailed by id on every node. The id is an AUTO_INCREMENT value, so it orders the
+ * rows by insert, not by commit.
+ */
+@Entity
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Table(name = "product_change_log")
+public class ProductChangeLog {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    /**
+     * Node that made the write; it has already applied the change itself
+     */
+    @Column(nullable = false, length = 36)
+    private String origin;
+
+    /**
+     * Written product, or null for a product class write
+     */
+    private Long productId;
+
+    /**
+     * Product name, or the product class name
+     */
+    private String name;
+
+    private Long productClassId;
+
+    @Column(nullable = false)
+    private Boolean alive;
+
+    /**
+     * Whether the row holds the state before the write rather than after it
+     */
+    @Column(nullable = false)
+    private Boolean beforeWrite;
+
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+}
@@ -0,0 +1,33 @@
+package com.yc.snackoverflow.model.baseAbstract;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.MappedSuperclass;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.experimental.SuperBuilder;
+
+/**
+ * Base class for entities that are inserted in bulk
+ *
+ * Unlike IDENTITY, the id is assigned before the insert from a per-entity
+ * sequence ({@code <table>_seq}, a single-row table on MySQL) that hands out
+ * blocks of 50 ids, so Hibernate can send the inserts as JDBC batches.
+ */
+@Setter
+@Getter
+@SuperBuilder
+@MappedSuperclass
+@NoArgsConstructor
+@AllArgsConstructor
+public abstract class BasePooledLongIdDO extends BaseDO {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE)
+    @JsonIgnore
+    private Long id;
+}
@@ -0,0 +1,8 @@
+package com.yc.snackoverflow.projector;
+
+public interface ProductCatalogChecksum {
+    Long getCount();
+
+    Long getVersionSum();
+
+}
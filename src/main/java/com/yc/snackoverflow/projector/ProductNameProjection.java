@@ -0,0 +1,10 @@
+package com.yc.snackoverflow.projector;
+
+public interface ProductNameProjection {
+    Long getId();
+
+    String getName();
+
+    Long getProductClassId();
+
+}
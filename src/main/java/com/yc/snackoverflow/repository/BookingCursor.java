@@ -0,0 +1,60 @@
+package com.yc.snackoverflow.repository;
+
+import com.yc.snackoverflow.exception.WebErrorEnum;
+import com.yc.snackoverflow.model.Booking;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Date;
+
+/**
+ * Keyset position in a member's booking listing, which runs from the newest
+ * booking to the oldest: the booking time and id of the last row returned,
+ * encoded as an opaque URL-safe token
+ *
+ * @param date Booking time of the last row
+ * @param id ID of the last row, used as tiebreak
+ */
+public record BookingCursor(Date date, Long id) {
+
+    private static final String SEPARATOR = "|";
+
+    /**
+     * Create the cursor pointing after the given booking
+     *
+     * @param booking Last booking of the page
+     * @return Booking cursor
+     */
+    public static BookingCursor after(Booking booking) {
+        return new BookingCursor(booking.getDate(), booking.getId());
+    }
+
+    /**
+     * Decode a token created by {@link #encode()}
+     *
+     * @param token Cursor token
+     * @return Booking cursor
+     */
+    public static BookingCursor decode(String token) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            String[] parts = raw.split("\\" + SEPARATOR);
+            if (parts.length != 2) {
+                throw WebErrorEnum.INVALID_ARG.exception("after");
+            }
+            return new BookingCursor(new Date(Long.parseLong(parts[0])), Long.valueOf(parts[1]));
+        } catch (IllegalArgumentException e) {
+            throw WebErrorEnum.INVALID_ARG.exception("after");
+        }
+    }
+
+    /**
+     * Encode the cursor as an opaque token
+     *
+     * @return Cursor token
+     */
+    public String encode() {
+        String raw = date.getTime() + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+}
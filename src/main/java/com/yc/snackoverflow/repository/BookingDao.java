@@ -1,34 +1,79 @@
 package com.yc.snackoverflow.reposity;
 
 import com.yc.snackoverflow.model.Booking;
+import com.yc.snackoverflow.repository.BookingCursor;
+import com.yc.snackoverflow.repository.BookingExportDao;
+import com.yc.snackoverflow.repository.BookingSpecifications;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
-import java.util.Date;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
-public interface BookingDao extends JpaRepository<Booking, Long> {
-
-//    @Modifying
-//    @Query(value = "INSERT INTO BOOKING (date,count ) VALUES (:name, :price, :picture )" +
-//            " ON DUPLICATE KEY UPDATE NAME = :name, PRICE = :price, PICTURE = :picture", nativeQuery = true)
-//    int saveOrUpdate(String name, int price, String picture);
-//
-//    default int saveOrUpdate(Booking booking) {
-//        return saveOrUpdate(booking.get(), booking.getPrice(), booking.getPicture());
-//    }
-//    @Modifying
-//    @Query(value = "INSERT INTO BOOKING (memberId,date ) VALUES (:memberId, :date  )" +
-//            " ON DUPLICATE KEY UPDATE memberId = :memberId, date = :date", nativeQuery = true)
-//    int saveOrUpdate(Long memberId, Date date);
-//
-//    default int saveOrUpdate(Booking booking) {
-//        return saveOrUpdate(booking.getMember().getId(), booking.getDate());
-//    }
-
-    @Query(value = "SELECT * FROM BOOKING WHERE (:bookingDaoList IS NULL OR NAME IN (:bookingDaoList))", nativeQuery = true)
-    List<BookingDao> list(List<String> bookingDaoList);
-}
+public interface BookingDao extends JpaRepository<Booking, Long>, JpaSpecificationExecutor<Booking>, BookingExportDao {
+
+    /**
+     * Order of the member listings, served by the (member_id, booking_time, id) index
+     */
+    Sort NEWEST_FIRST = Sort.by(Sort.Direction.DESC, "date", "id");
+
+    /**
+     * Find a booking and lock its row until the transaction ends, so concurrent
+     * updates and deletes of it adjust the monthly counts one after another
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    Optional<Booking> findForUpdateById(Long id);
+
+    /**
+     * Find a booking with its member and its details' products and product classes in one select
+     */
+    @EntityGraph(attributePaths = {"member", "bookingDetails.product.productClass"})
+    Optional<Booking> findWithDetailsById(Long id);
+
+    /**
+     * Find bookings with their details' products and product classes in one select
+     */
+    @EntityGraph(attributePaths = {"member", "bookingDetails.product.productClass"})
+    List<Booking> findWithDetailsByIdIn(Collection<Long> ids);
 
+    /**
+     * Find a keyset page of bookings, newest first
+     *
+     * @param filter Listing filter
+     * @param after Position of the last row already returned, null for the first page
+     * @param limit Maximum number of rows
+     * @return Bookings after the cursor, newest first
+     */
+    default List<Booking> findAfter(Specification<Booking> filter, BookingCursor after, int limit) {
+        Specification<Booking> spec = after == null ? filter : filter.and(BookingSpecifications.after(after));
+        return findBy(spec, query -> query.sortBy(NEWEST_FIRST).limit(limit).all());
+    }
+
+    /**
+     * Find the booking a member created with an Idempotency-Key
+     */
+    Optional<Booking> findByMemberIdAndIdempotencyKey(Long memberId, String idempotencyKey);
+
+    /**
+     * Delete the details of a booking with one statement
+     */
+    @Modifying
+    @Query("DELETE FROM BookingDetail d WHERE d.booking.id = :bookingId")
+    int deleteDetailsByBookingId(Long bookingId);
+
+    /**
+     * Find the bookings containing any of the given products
+     */
+    @Query("SELECT DISTINCT b FROM Booking b JOIN b.bookingDetails d WHERE d.product.name IN :productNames")
+    List<Booking> findByProductNames(Collection<String> productNames);
+}
@@ -0,0 +1,24 @@
+package com.yc.snackoverflow.repository;
+
+import com.yc.snackoverflow.model.BookingDetail;
+
+import java.util.Date;
+import java.util.stream.Stream;
+
+/**
+ * Streaming reads of bookings for exports
+ */
+public interface BookingExportDao {
+
+    /**
+     * Stream the details of the matching bookings with their booking, member,
+     * product and product class, grouped by booking in id order
+     *
+     * Every join is to-one, so each row is one detail and the stream can be
+     * consumed without holding more than a fetch block in memory; the caller
+     * must consume it inside a transaction and close it. With the MySQL
+     * streaming fetch size no other statement may run on the connection until
+     * the stream is closed.
+     */
+    Stream<BookingDetail> streamDetails(Long memberId, Date from, Date to);
+}
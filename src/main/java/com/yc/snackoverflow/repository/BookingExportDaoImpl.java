@@ -0,0 +1,45 @@
+package com.yc.snackoverflow.repository;
+
+import com.yc.snackoverflow.model.BookingDetail;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.beans.factory.annotation.Value;
+
+import java.util.Date;
+import java.util.stream.Stream;
+
+/**
+ * Implementation of {@link BookingExportDao}
+ *
+ * The fetch size is applied to this query only: Integer.MIN_VALUE makes MySQL
+ * Connector/J stream the result row by row without switching every connection
+ * to server-side cursors.
+ */
+public class BookingExportDaoImpl implements BookingExportDao {
+
+    private static final String STREAM_DETAILS = "SELECT d FROM BookingDetail d JOIN FETCH d.booking b JOIN FETCH b.member m " +
+            "JOIN FETCH d.product p JOIN FETCH p.productClass " +
+            "WHERE (:memberId IS NULL OR m.id = :memberId) " +
+            "AND (:from IS NULL OR b.date >= :from) " +
+            "AND (:to IS NULL OR b.date < :to) " +
+            "ORDER BY b.id, d.id";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Value("${app.booking.export.fetch-size:" + Integer.MIN_VALUE + "}")
+    private int fetchSize;
+
+    @Override
+    public Stream<BookingDetail> streamDetails(Long memberId, Date from, Date to) {
+        return entityManager.createQuery(STREAM_DETAILS, BookingDetail.class)
+                .setParameter("memberId", memberId)
+                .setParameter("from", from)
+                .setParameter("to", to)
+                .setHint(HibernateHints.HINT_FETCH_SIZE, fetchSize)
+                .setHint(HibernateHints.HINT_READ_ONLY, true)
+                .setHint(HibernateHints.HINT_CACHEABLE, false)
+                .getResultStream();
+    }
+}
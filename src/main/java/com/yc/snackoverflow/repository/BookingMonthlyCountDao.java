@@ -0,0 +1,40 @@
+package com.yc.snackoverflow.repository;
+
+import com.yc.snackoverflow.data.CountBookingReturnData;
+import com.yc.snackoverflow.model.BookingMonthlyCount;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+/**
+ * Repository for the monthly booking counts
+ *
+ * The table has one row per month and booked product, so the reports read a
+ * range of its primary key instead of grouping the booking details.
+ */
+@Repository
+public interface BookingMonthlyCountDao extends JpaRepository<BookingMonthlyCount, BookingMonthlyCount.Key>,
+        BookingMonthlyCountUpsertDao {
+
+    /**
+     * Booked count per product over a range of months, optionally of one calendar
+     * month (1-12) in every year and up to a maximum product price
+     *
+     * @param firstMonth First month as yyyyMM, inclusive
+     * @param lastMonth Last month as yyyyMM, inclusive
+     * @param month Calendar month, null for all
+     * @param maxPrice Maximum current product price, null for any
+     * @return Count per product with bookings, ordered by product id
+     */
+    @Query("SELECT new com.yc.snackoverflow.data.CountBookingReturnData(p.name, p.price, CAST(SUM(c.quantity) AS Integer)) " +
+            "FROM BookingMonthlyCount c JOIN Product p ON p.id = c.id.productId " +
+            "WHERE c.id.bookingMonth BETWEEN :firstMonth AND :lastMonth " +
+            "AND (:month IS NULL OR MOD(c.id.bookingMonth, 100) = :month) " +
+            "AND (:maxPrice IS NULL OR p.price <= :maxPrice) " +
+            "GROUP BY p.id, p.name, p.price " +
+            "HAVING SUM(c.quantity) > 0 " +
+            "ORDER BY p.id")
+    List<CountBookingReturnData> countByProduct(int firstMonth, int lastMonth, Integer month, Integer maxPrice);
+}
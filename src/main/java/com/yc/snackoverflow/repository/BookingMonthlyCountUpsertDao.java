@@ -0,0 +1,22 @@
+package com.yc.snackoverflow.repository;
+
+import com.yc.snackoverflow.model.BookingMonthlyCount;
+
+import java.util.Map;
+
+/**
+ * Native increments of the monthly booking counts
+ */
+public interface BookingMonthlyCountUpsertDao {
+
+    /**
+     * Add quantities to the monthly counts with a single INSERT ... ON DUPLICATE KEY UPDATE
+     *
+     * Rows are written in key order, so concurrent bookings of the same products
+     * lock them in the same order.
+     *
+     * @param deltas Quantity to add per month and product; negative to take a booking back out
+     * @return Affected rows as reported with useAffectedRows
+     */
+    int addQuantities(Map<BookingMonthlyCount.Key, Long> deltas);
+}
@@ -0,0 +1,54 @@
+package com.yc.snackoverflow.repository;
+
+import com.yc.snackoverflow.model.BookingMonthlyCount;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Query;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * MySQL implementation of {@link BookingMonthlyCountUpsertDao}
+ */
+public class BookingMonthlyCountUpsertDaoImpl implements BookingMonthlyCountUpsertDao {
+
+    private static final String UPSERT_INSERT = "INSERT INTO booking_monthly_count (booking_month, product_id, quantity) VALUES ";
+
+    private static final String UPSERT_ROW = "(?, ?, ?)";
+
+    private static final String UPSERT_UPDATE = " ON DUPLICATE KEY UPDATE quantity = quantity + VALUES(quantity)";
+
+    private static final Comparator<BookingMonthlyCount.Key> KEY_ORDER =
+            Comparator.comparing(BookingMonthlyCount.Key::getBookingMonth)
+                    .thenComparing(BookingMonthlyCount.Key::getProductId);
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public int addQuantities(Map<BookingMonthlyCount.Key, Long> deltas) {
+        List<Map.Entry<BookingMonthlyCount.Key, Long>> rows = deltas.entrySet().stream()
+                .filter(entry -> entry.getValue() != 0)
+                .sorted(Map.Entry.comparingByKey(KEY_ORDER))
+                .toList();
+        if (rows.isEmpty()) {
+            return 0;
+        }
+        StringBuilder sql = new StringBuilder(UPSERT_INSERT);
+        for (int i = 0; i < rows.size(); i++) {
+            sql.append(i == 0 ? "" : ", ").append(UPSERT_ROW);
+        }
+        sql.append(UPSERT_UPDATE);
+
+        Query query = entityManager.createNativeQuery(sql.toString());
+        int position = 1;
+        for (Map.Entry<BookingMonthlyCount.Key, Long> row : rows) {
+            query.setParameter(position++, row.getKey().getBookingMonth());
+            query.setParameter(position++, row.getKey().getProductId());
+            query.setParameter(position++, row.getValue());
+        }
+        return query.executeUpdate();
+    }
+}
@@ -0,0 +1,73 @@
+package com.yc.snackoverflow.repository;
+
+import com.yc.snackoverflow.model.Booking;
+import jakarta.persistence.criteria.Path;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.Date;
+
+/**
+ * Reusable Specifications for querying bookings
+ */
+public final class BookingSpecifications {
+
+    /**
+     * Bookings of the given member
+     */
+    public static Specification<Booking> ofMember(Long memberId) {
+        return (root, query, cb) -> cb.equal(root.get("member").get("id"), memberId);
+    }
+
+    /**
+     * Bookings made on the given days, both inclusive; each bound is ignored when null
+     *
+     * @param zone Zone booking times are stored in, which decides where a day starts
+     */
+    public static Specification<Booking> bookedBetween(LocalDate from, LocalDate to, ZoneId zone) {
+        if (from == null && to == null) {
+            return null;
+        }
+        return (root, query, cb) -> {
+            Path<Date> date = root.get("date");
+            if (from == null) {
+                return cb.lessThan(date, startOfDay(to.plusDays(1), zone));
+            }
+            if (to == null) {
+                return cb.greaterThanOrEqualTo(date, startOfDay(from, zone));
+            }
+            return cb.and(cb.greaterThanOrEqualTo(date, startOfDay(from, zone)), cb.lessThan(date, startOfDay(to.plusDays(1), zone)));
+        };
+    }
+
+    /**
+     * Seek predicate for keyset pagination: rows strictly after the cursor in
+     * (date, id) descending order
+     *
+     * The redundant upper bound on the date lets the (member_id, booking_time, id)
+     * index be read as a range starting at the cursor.
+     */
+    public static Specification<Booking> after(BookingCursor cursor) {
+        return (root, query, cb) -> {
+            Path<Date> date = root.get("date");
+            Path<Long> id = root.get("id");
+            return cb.and(
+                    cb.lessThanOrEqualTo(date, cursor.date()),
+                    cb.or(cb.lessThan(date, cursor.date()),
+                            cb.and(cb.equal(date, cursor.date()), cb.lessThan(id, cursor.id()))));
+        };
+    }
+
+    /**
+     * First instant of a day in the given zone
+     */
+    public static Date startOfDay(LocalDate day, ZoneId zone) {
+        return Date.from(day.atStartOfDay(zone).toInstant());
+    }
+
+    // Prevent instantiation
+    private BookingSpecifications() {
+        throw new AssertionError("Cannot instantiate utility class");
+    }
+}
@@ -24,4 +24,16 @@ public interface MemberDao extends JpaRepository<Member, Long> {
 
     Optional<Member> findByEmail(String name);
 
+    /**
+     * Load the name of every member for the name uniqueness filter
+     */
+    @Query("SELECT m.name FROM Member m WHERE m.name IS NOT NULL")
+    List<String> findAllNames();
+
+    /**
+     * Load the email of every member for the name uniqueness filter
+     */
+    @Query("SELECT m.email FROM Member m WHERE m.email IS NOT NULL")
+    List<String> findAllEmails();
+
 }
@@ -0,0 +1,19 @@
+package com.yc.snackoverflow.repository;
+
+import com.yc.snackoverflow.model.ProductChangeLog;
+
+import java.util.List;
+
+/**
+ * Native bulk insert of change log rows
+ */
+public interface ProductChangeLogAppendDao {
+
+    /**
+     * Insert change log rows with a single multi-row INSERT
+     *
+     * @param entries Rows to insert; their ids are assigned by the database
+     * @return Inserted rows
+     */
+    int append(List<ProductChangeLog> entries);
+}
@@ -0,0 +1,61 @@
+package com.yc.snackoverflow.repository;
+
+import com.yc.snackoverflow.model.ProductChangeLog;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Query;
+
+import java.util.List;
+
+/**
+ * Implementation of {@link ProductChangeLogAppendDao}
+ *
+ * IDENTITY ids keep Hibernate from batching inserts, so a bulk write would log
+ * its products one statement per row; a multi-row INSERT logs them in a few.
+ * Each INSERT carries at most MAX_ROWS_PER_INSERT rows, well below the 65,535
+ * placeholders a server-side prepared statement accepts.
+ */
+public class ProductChangeLogAppendDaoImpl implements ProductChangeLogAppendDao {
+
+    private static final String APPEND_INSERT = "INSERT INTO product_change_log "
+            + "(origin, product_id, name, product_class_id, alive, before_write, created_at) VALUES ";
+
+    private static final String APPEND_ROW = "(?, ?, ?, ?, ?, ?, ?)";
+
+    /**
+     * Rows per INSERT; 7 placeholders each
+     */
+    private static final int MAX_ROWS_PER_INSERT = 1000;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public int append(List<ProductChangeLog> entries) {
+        int inserted = 0;
+        for (int from = 0; from < entries.size(); from += MAX_ROWS_PER_INSERT) {
+            inserted += insert(entries.subList(from, Math.min(from + MAX_ROWS_PER_INSERT, entries.size())));
+        }
+        return inserted;
+    }
+
+    private int insert(List<ProductChangeLog> entries) {
+        StringBuilder sql = new StringBuilder(APPEND_INSERT);
+        for (int i = 0; i < entries.size(); i++) {
+            sql.append(i == 0 ? "" : ", ").append(APPEND_ROW);
+        }
+
+        Query query = entityManager.createNativeQuery(sql.toString());
+        int position = 1;
+        for (ProductChangeLog entry : entries) {
+            query.setParameter(position++, entry.getOrigin());
+            query.setParameter(position++, entry.getProductId());
+            query.setParameter(position++, entry.getName());
+            query.setParameter(position++, entry.getProductClassId());
+            query.setParameter(position++, entry.getAlive());
+            query.setParameter(position++, entry.getBeforeWrite());
+            query.setParameter(position++, entry.getCreatedAt());
+        }
+        return query.executeUpdate();
+    }
+}
@@ -0,0 +1,44 @@
+package com.yc.snackoverflow.repository;
+
+import com.yc.snackoverflow.model.ProductChangeLog;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Repository for the product change log
+ */
+@Repository
+public interface ProductChangeLogDao extends JpaRepository<ProductChangeLog, Long>, ProductChangeLogAppendDao {
+
+    /**
+     * Highest id written so far, 0 for an empty log
+     */
+    @Query("SELECT COALESCE(MAX(l.id), 0) FROM ProductChangeLog l")
+    long findMaxId();
+
+    /**
+     * Next rows after an id, in id order
+     */
+    List<ProductChangeLog> findByIdGreaterThanOrderByIdAsc(Long id, Pageable pageable);
+
+    /**
+     * Rows with the given ids, used to pick up rows that committed after later ones
+     */
+    List<ProductChangeLog> findByIdIn(Collection<Long> ids);
+
+    /**
+     * Delete rows older than the retention period
+     */
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM ProductChangeLog l WHERE l.createdAt < :before")
+    int deleteByCreatedAtBefore(LocalDateTime before);
+}
@@ -14,4 +14,10 @@ public interface ProductClassDao extends JpaRepository<ProductClass, Long> {
 
     @Query(value = "SELECT * FROM Product_class WHERE (:nameList IS NULL OR NAME IN (:nameList)) ", nativeQuery = true)
     List<ProductClass> list(List<String> nameList);
+
+    /**
+     * Find the ids of the active product classes
+     */
+    @Query("SELECT c.id FROM ProductClass c WHERE c.alive = true ORDER BY c.id")
+    List<Long> findActiveIds();
 }
@@ -0,0 +1,89 @@
+package com.yc.snackoverflow.repository;
+
+import com.yc.snackoverflow.exception.WebErrorEnum;
+import com.yc.snackoverflow.model.Product;
+import org.springframework.data.domain.Sort;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Set;
+
+/**
+ * Keyset position in a product listing: the sort key and id of the last row
+ * returned, encoded as an opaque URL-safe token
+ *
+ * @param sortField Sorted product attribute (id, name or price)
+ * @param direction Sort direction
+ * @param sortValue Value of the sort attribute on the last row
+ * @param id ID of the last row, used as tiebreak
+ */
+public record ProductCursor(String sortField, Sort.Direction direction, Comparable<?> sortValue, Long id) {
+
+    /**
+     * Product attributes a cursor can seek on
+     */
+    public static final Set<String> SORT_FIELDS = Set.of("id", "name", "price");
+
+    private static final String SEPARATOR = "|";
+
+    /**
+     * Create the cursor pointing after the given product
+     *
+     * @param order Sort order of the listing
+     * @param product Last product of the page
+     * @return Product cursor
+     */
+    public static ProductCursor after(Sort.Order order, Product product) {
+        Comparable<?> value = switch (order.getProperty()) {
+            case "name" -> product.getName();
+            case "price" -> product.getPrice();
+            default -> product.getId();
+        };
+        return new ProductCursor(order.getProperty(), order.getDirection(), value, product.getId());
+    }
+
+    /**
+     * Decode a token created by {@link #encode()}
+     *
+     * @param token Cursor token
+     * @return Product cursor
+     */
+    public static ProductCursor decode(String token) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            // The value goes last so that a name containing the separator survives the split
+            String[] parts = raw.split("\\" + SEPARATOR, 4);
+            String sortField = parts[0];
+            if (parts.length != 4 || !SORT_FIELDS.contains(sortField)) {
+                throw WebErrorEnum.INVALID_ARG.exception("after");
+            }
+            Comparable<?> value = switch (sortField) {
+                case "name" -> parts[3];
+                case "price" -> Integer.valueOf(parts[3]);
+                default -> Long.valueOf(parts[3]);
+            };
+            return new ProductCursor(sortField, Sort.Direction.fromString(parts[1]), value, Long.valueOf(parts[2]));
+        } catch (IllegalArgumentException e) {
+            throw WebErrorEnum.INVALID_ARG.exception("after");
+        }
+    }
+
+    /**
+     * Encode the cursor as an opaque token
+     *
+     * @return Cursor token
+     */
+    public String encode() {
+        String raw = sortField + SEPARATOR + direction.name() + SEPARATOR + id + SEPARATOR + sortValue;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Sort order this cursor was created for
+     *
+     * @return Sort order
+     */
+    public Sort.Order order() {
+        return new Sort.Order(direction, sortField);
+    }
+}
@@ -1,62 +1,269 @@
 package com.yc.snackoverflow.repository;
 
+import com.yc.snackoverflow.dto.response.ProductResponseDto;
 import com.yc.snackoverflow.model.Product;
+import com.yc.snackoverflow.projector.ProductCatalogChecksum;
+import com.yc.snackoverflow.projector.ProductNameProjection;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.Set;
 
 /**
  * Repository for Product entity
+ *
+ * Every product response carries its class id and name, so the listing queries
+ * fetch the lazy productClass association in the same select through an entity
+ * graph instead of one extra select per product when the page is mapped.
+ * Read-only listings go further and select ProductResponseDto rows directly.
  */
 @Repository
-public interface ProductDao extends JpaRepository<Product, Long>, JpaSpecificationExecutor<Product> {
+public interface ProductDao extends JpaRepository<Product, Long>, JpaSpecificationExecutor<Product>, ProductUpsertDao,
+        ProductExportDao {
+
+    /**
+     * Select clause of the read-only listings that build ProductResponseDto rows directly,
+     * skipping entity hydration, the persistence context and the mapper
+     */
+    String RESPONSE_SELECT = "SELECT new com.yc.snackoverflow.dto.response.ProductResponseDto("
+            + "p.id, p.name, p.price, p.picture, p.alive, c.id, c.name, p.createdAt, p.updatedAt, p.version) "
+            + "FROM Product p JOIN p.productClass c ";
+
+    /**
+     * Name filter of the DTO listings, escaping LIKE wildcards the same way as derived Containing queries
+     */
+    String NAME_CONTAINS = "p.name LIKE %:#{escape(#name)}% ESCAPE :#{escapeCharacter()}";
+
+    /**
+     * Find a product by ID together with its product class
+     */
+    @Override
+    @EntityGraph(attributePaths = "productClass")
+    Optional<Product> findById(Long id);
+
+    /**
+     * Find products by IDs together with their product classes
+     */
+    @Override
+    @EntityGraph(attributePaths = "productClass")
+    List<Product> findAllById(Iterable<Long> ids);
 
     /**
      * Find all products that are active
      */
+    @EntityGraph(attributePaths = "productClass")
     List<Product> findByAliveTrue();
 
     /**
      * Find active products with pagination
      */
+    @EntityGraph(attributePaths = "productClass")
     Page<Product> findByAliveTrue(Pageable pageable);
 
     /**
      * Find active products by name containing a string with pagination
      */
+    @EntityGraph(attributePaths = "productClass")
     Page<Product> findByNameContainingAndAliveTrue(String name, Pageable pageable);
 
     /**
      * Find active products by product class ID with pagination
      */
+    @EntityGraph(attributePaths = "productClass")
     Page<Product> findByProductClassIdAndAliveTrue(Long productClassId, Pageable pageable);
 
     /**
      * Find active products by name containing a string and product class ID with pagination
      */
+    @EntityGraph(attributePaths = "productClass")
     Page<Product> findByNameContainingAndProductClassIdAndAliveTrue(String name, Long productClassId, Pageable pageable);
 
+    /**
+     * Find active products with pagination, without counting the total
+     */
+    @EntityGraph(attributePaths = "productClass")
+    Slice<Product> findSliceByAliveTrue(Pageable pageable);
+
+    /**
+     * Find active products by name containing a string, without counting the total
+     */
+    @EntityGraph(attributePaths = "productClass")
+    Slice<Product> findSliceByNameContainingAndAliveTrue(String name, Pageable pageable);
+
+    /**
+     * Find active products by product class ID, without counting the total
+     */
+    @EntityGraph(attributePaths = "productClass")
+    Slice<Product> findSliceByProductClassIdAndAliveTrue(Long productClassId, Pageable pageable);
+
+    /**
+     * Find active products by name containing a string and product class ID, without counting the total
+     */
+    @EntityGraph(attributePaths = "productClass")
+    Slice<Product> findSliceByNameContainingAndProductClassIdAndAliveTrue(String name, Long productClassId, Pageable pageable);
+
     /**
      * Find active products by names in a list
      */
+    @EntityGraph(attributePaths = "productClass")
     List<Product> findByNameInAndAliveTrue(List<String> names);
 
+    /**
+     * Load id, name and class of every active product for the in-memory name index
+     */
+    @Query("SELECT p.id AS id, p.name AS name, p.productClass.id AS productClassId FROM Product p WHERE p.alive = true")
+    List<ProductNameProjection> findNameIndexEntries();
+
+    /**
+     * Find active products as response DTOs with pagination
+     */
+    @Query(value = RESPONSE_SELECT + "WHERE p.alive = true",
+            countQuery = "SELECT COUNT(p) FROM Product p WHERE p.alive = true")
+    Page<ProductResponseDto> findResponsesByAliveTrue(Pageable pageable);
+
+    /**
+     * Find active products by name containing a string as response DTOs with pagination
+     */
+    @Query(value = RESPONSE_SELECT + "WHERE p.alive = true AND " + NAME_CONTAINS,
+            countQuery = "SELECT COUNT(p) FROM Product p WHERE p.alive = true AND " + NAME_CONTAINS)
+    Page<ProductResponseDto> findResponsesByNameContainingAndAliveTrue(String name, Pageable pageable);
+
+    /**
+     * Find active products by product class ID as response DTOs with pagination
+     */
+    @Query(value = RESPONSE_SELECT + "WHERE p.alive = true AND c.id = :productClassId",
+            countQuery = "SELECT COUNT(p) FROM Product p WHERE p.alive = true AND p.productClass.id = :productClassId")
+    Page<ProductResponseDto> findResponsesByProductClassIdAndAliveTrue(Long productClassId, Pageable pageable);
+
+    /**
+     * Find active products by name containing a string and product class ID as response DTOs with pagination
+     */
+    @Query(value = RESPONSE_SELECT + "WHERE p.alive = true AND c.id = :productClassId AND " + NAME_CONTAINS,
+            countQuery = "SELECT COUNT(p) FROM Product p WHERE p.alive = true "
+                    + "AND p.productClass.id = :productClassId AND " + NAME_CONTAINS)
+    Page<ProductResponseDto> findResponsesByNameContainingAndProductClassIdAndAliveTrue(String name, Long productClassId, Pageable pageable);
+
+    /**
+     * Find active products among the given ids as response DTOs with pagination
+     */
+    @Query(value = RESPONSE_SELECT + "WHERE p.alive = true AND p.id IN :ids",
+            countQuery = "SELECT COUNT(p) FROM Product p WHERE p.alive = true AND p.id IN :ids")
+    Page<ProductResponseDto> findResponsesByIdInAndAliveTrue(Collection<Long> ids, Pageable pageable);
+
+    /**
+     * Find active products among the given ids as response DTOs, in no particular order
+     */
+    @Query(RESPONSE_SELECT + "WHERE p.alive = true AND p.id IN :ids")
+    List<ProductResponseDto> findResponsesByIdInAndAliveTrue(Collection<Long> ids);
+
+    /**
+     * Find all active products as response DTOs
+     */
+    @Query(RESPONSE_SELECT + "WHERE p.alive = true")
+    List<ProductResponseDto> findResponsesByAliveTrue();
+
+    /**
+     * Find active products by names in a list as response DTOs
+     */
+    @Query(RESPONSE_SELECT + "WHERE p.alive = true AND p.name IN :names")
+    List<ProductResponseDto> findResponsesByNameInAndAliveTrue(List<String> names);
+
+    /**
+     * Find products, active or not, by names in a list as response DTOs
+     */
+    @Query(RESPONSE_SELECT + "WHERE p.name IN :names")
+    List<ProductResponseDto> findResponsesByNameIn(List<String> names);
+
+    /**
+     * Find all products, active or not, as response DTOs in id order
+     */
+    @Query(RESPONSE_SELECT + "ORDER BY p.id")
+    List<ProductResponseDto> findAllResponses();
+
+    /**
+     * Find products by ids, active or not, as response DTOs
+     */
+    @Query(RESPONSE_SELECT + "WHERE p.id IN :ids")
+    List<ProductResponseDto> findResponsesByIdIn(Collection<Long> ids);
+
+    /**
+     * Count all products and sum their versions, to compare with the in-memory catalog
+     */
+    @Query("SELECT COUNT(p) AS count, COALESCE(SUM(p.version), 0) AS versionSum FROM Product p")
+    ProductCatalogChecksum findCatalogChecksum();
+
+    /**
+     * Find the ids of the active products booked in the largest quantities, for the cache warm-up
+     *
+     * Sums the monthly counts rather than grouping every booking detail.
+     */
+    @Query("SELECT c.id.productId FROM BookingMonthlyCount c JOIN Product p ON p.id = c.id.productId " +
+            "WHERE p.alive = true " +
+            "GROUP BY c.id.productId HAVING SUM(c.quantity) > 0 ORDER BY SUM(c.quantity) DESC")
+    List<Long> findMostBookedIds(Pageable pageable);
+
+    /**
+     * Load the name of every product, active or not, for the name uniqueness filter
+     */
+    @Query("SELECT p.name FROM Product p")
+    List<String> findAllNames();
+
     /**
      * Check if a product with a specific name exists
      */
     boolean existsByName(String name);
 
+    /**
+     * Find which of the given names are already taken by a product, active or not
+     */
+    @Query("SELECT p.name FROM Product p WHERE p.name IN :names")
+    Set<String> findExistingNames(Collection<String> names);
+
     /**
      * Check if a product with a specific name exists but is not the specified ID
      * (used when updating to check for name conflicts)
      */
     boolean existsByNameAndIdNot(String name, Long id);
 
+    /**
+     * Find the next keyset page of products matching a filter, without a COUNT query
+     *
+     * @param filter Listing filter
+     * @param order Sort order; id is appended as unique tiebreak
+     * @param after Position of the last row already returned, null for the first page
+     * @param limit Maximum number of rows
+     * @return Products after the cursor, in sort order
+     */
+    default List<Product> findAfter(Specification<Product> filter, Sort.Order order, ProductCursor after, int limit) {
+        Specification<Product> spec = after == null ? filter : filter.and(ProductSpecifications.after(after));
+        Sort sort = "id".equals(order.getProperty())
+                ? Sort.by(order)
+                : Sort.by(order, new Sort.Order(order.getDirection(), "id"));
+        return findBy(spec, query -> query.sortBy(sort).project("productClass").limit(limit).all());
+    }
+
+    /**
+     * Find a page of products matching a filter, fetching their classes in the same select
+     *
+     * @param filter Search filter
+     * @param pageable Pagination information; its sort should end in a unique column
+     * @return Page of products
+     */
+    default Page<Product> findPage(Specification<Product> filter, Pageable pageable) {
+        return findBy(filter, query -> query.project("productClass").page(pageable));
+    }
+
     /**
      * Legacy method: List products by name list
      */
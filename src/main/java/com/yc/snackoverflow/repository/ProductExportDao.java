@@ -0,0 +1,21 @@
+package com.yc.snackoverflow.repository;
+
+import com.yc.snackoverflow.model.Product;
+
+import java.util.stream.Stream;
+
+/**
+ * Streaming reads of the catalog for exports
+ */
+public interface ProductExportDao {
+
+    /**
+     * Stream all active products with their classes in id order
+     *
+     * Rows are read with the configured export fetch size and loaded read-only,
+     * so the caller must consume the stream inside a transaction and close it.
+     * With the MySQL streaming fetch size no other statement may run on the
+     * connection until the stream is closed.
+     */
+    Stream<Product> streamByAliveTrue();
+}
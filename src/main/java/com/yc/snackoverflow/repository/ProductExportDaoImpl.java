@@ -0,0 +1,37 @@
+package com.yc.snackoverflow.repository;
+
+import com.yc.snackoverflow.model.Product;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.beans.factory.annotation.Value;
+
+import java.util.stream.Stream;
+
+/**
+ * Implementation of {@link ProductExportDao}
+ *
+ * The fetch size is applied to this query only: Integer.MIN_VALUE makes MySQL
+ * Connector/J stream the result row by row without switching every connection
+ * to server-side cursors.
+ */
+public class ProductExportDaoImpl implements ProductExportDao {
+
+    private static final String STREAM_ACTIVE =
+            "SELECT p FROM Product p JOIN FETCH p.productClass WHERE p.alive = true ORDER BY p.id";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Value("${app.product.export.fetch-size:" + Integer.MIN_VALUE + "}")
+    private int fetchSize;
+
+    @Override
+    public Stream<Product> streamByAliveTrue() {
+        return entityManager.createQuery(STREAM_ACTIVE, Product.class)
+                .setHint(HibernateHints.HINT_FETCH_SIZE, fetchSize)
+                .setHint(HibernateHints.HINT_READ_ONLY, true)
+                .setHint(HibernateHints.HINT_CACHEABLE, false)
+                .getResultStream();
+    }
+}
@@ -0,0 +1,149 @@
+package com.yc.snackoverflow.repository;
+
+import com.yc.snackoverflow.dto.request.ProductSearchRequestDto;
+import com.yc.snackoverflow.model.Product;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.query.EscapeCharacter;
+import org.springframework.util.StringUtils;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+
+/**
+ * Reusable Specifications for querying products
+ */
+public final class ProductSpecifications {
+
+    /**
+     * Active products only
+     */
+    public static Specification<Product> alive() {
+        return (root, query, cb) -> cb.isTrue(root.get("alive"));
+    }
+
+    /**
+     * Products whose name contains the given string, ignored when blank
+     */
+    public static Specification<Product> nameContains(String name) {
+        if (!StringUtils.hasText(name)) {
+            return null;
+        }
+        String pattern = "%" + EscapeCharacter.DEFAULT.escape(name) + "%";
+        return (root, query, cb) -> cb.like(root.get("name"), pattern, EscapeCharacter.DEFAULT.getEscapeCharacter());
+    }
+
+    /**
+     * Products of the given product class, ignored when null
+     */
+    public static Specification<Product> inClass(Long classId) {
+        if (classId == null) {
+            return null;
+        }
+        return (root, query, cb) -> cb.equal(root.get("productClass").get("id"), classId);
+    }
+
+    /**
+     * Products of any of the given product classes, ignored when empty
+     */
+    public static Specification<Product> inClasses(Collection<Long> classIds) {
+        if (classIds == null || classIds.isEmpty()) {
+            return null;
+        }
+        return (root, query, cb) -> root.get("productClass").get("id").in(classIds);
+    }
+
+    /**
+     * Products with the given active flag, ignored when null
+     */
+    public static Specification<Product> aliveIs(Boolean alive) {
+        if (alive == null) {
+            return null;
+        }
+        return (root, query, cb) -> cb.equal(root.get("alive"), alive);
+    }
+
+    /**
+     * Products priced within the given inclusive bounds, each ignored when null
+     */
+    public static Specification<Product> priceBetween(Integer minPrice, Integer maxPrice) {
+        if (minPrice == null && maxPrice == null) {
+            return null;
+        }
+        return (root, query, cb) -> {
+            Path<Integer> price = root.get("price");
+            if (minPrice == null) {
+                return cb.le(price, maxPrice);
+            }
+            return maxPrice == null ? cb.ge(price, minPrice) : cb.between(price, minPrice, maxPrice);
+        };
+    }
+
+    /**
+     * Products created from (inclusive) and before (exclusive) the given times, each ignored when null
+     */
+    public static Specification<Product> createdBetween(LocalDateTime from, LocalDateTime to) {
+        if (from == null && to == null) {
+            return null;
+        }
+        return (root, query, cb) -> {
+            Path<LocalDateTime> createdAt = root.get("createdAt");
+            if (from == null) {
+                return cb.lessThan(createdAt, to);
+            }
+            return to == null
+                    ? cb.greaterThanOrEqualTo(createdAt, from)
+                    : cb.and(cb.greaterThanOrEqualTo(createdAt, from), cb.lessThan(createdAt, to));
+        };
+    }
+
+    /**
+     * Products matching the criteria of GET /api/products/search
+     *
+     * The predicates are listed in the column order of the composite indexes
+     * (alive, class, price or creation time), then the name filter, which no
+     * index can serve.
+     */
+    public static Specification<Product> search(ProductSearchRequestDto criteria) {
+        return Specification.where(aliveIs(criteria.getAlive()))
+                .and(inClasses(criteria.getClassIds()))
+                .and(priceBetween(criteria.getMinPrice(), criteria.getMaxPrice()))
+                .and(createdBetween(criteria.getCreatedFrom(), criteria.getCreatedTo()))
+                .and(nameContains(criteria.getName()));
+    }
+
+    /**
+     * Active products matching the optional name and class filters of GET /api/products
+     */
+    public static Specification<Product> listing(String name, Long classId) {
+        return Specification.where(alive())
+                .and(nameContains(name))
+                .and(inClass(classId));
+    }
+
+    /**
+     * Seek predicate for keyset pagination: rows strictly after the cursor in
+     * (sort key, id) order
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public static Specification<Product> after(ProductCursor cursor) {
+        return (root, query, cb) -> {
+            boolean ascending = cursor.direction().isAscending();
+            Path<Long> id = root.get("id");
+            Predicate idAfter = ascending ? cb.greaterThan(id, cursor.id()) : cb.lessThan(id, cursor.id());
+            if ("id".equals(cursor.sortField())) {
+                return idAfter;
+            }
+            Path<Comparable> key = root.get(cursor.sortField());
+            Comparable value = cursor.sortValue();
+            Predicate keyAfter = ascending ? cb.greaterThan(key, value) : cb.lessThan(key, value);
+            return cb.or(keyAfter, cb.and(cb.equal(key, value), idAfter));
+        };
+    }
+
+    // Prevent instantiation
+    private ProductSpecifications() {
+        throw new AssertionError("Cannot instantiate utility class");
+    }
+}
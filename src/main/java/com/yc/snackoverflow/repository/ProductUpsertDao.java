@@ -0,0 +1,30 @@
+package com.yc.snackoverflow.repository;
+
+import com.yc.snackoverflow.model.Product;
+
+import java.util.List;
+
+/**
+ * Native bulk writes of products that bypass the persistence context
+ */
+public interface ProductUpsertDao {
+
+    /**
+     * Reserve consecutive ids from the pooled product sequence
+     *
+     * @param count Number of ids needed
+     * @return First id of a block of at least count unused ids
+     */
+    long reserveIds(int count);
+
+    /**
+     * Insert or update products with a single INSERT ... ON DUPLICATE KEY UPDATE
+     *
+     * Every product must carry its id: a reserved id for a new row or the id of
+     * the existing row to update.
+     *
+     * @param products Products to write
+     * @return Affected rows as reported with useAffectedRows: 1 per inserted row, 2 per changed row
+     */
+    int upsert(List<Product> products);
+}
@@ -0,0 +1,87 @@
+package com.yc.snackoverflow.repository;
+
+import com.yc.snackoverflow.model.Product;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Query;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.data.domain.AuditorAware;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * MySQL implementation of {@link ProductUpsertDao}
+ */
+@RequiredArgsConstructor
+public class ProductUpsertDaoImpl implements ProductUpsertDao {
+
+    /**
+     * Allocation size of the pooled product sequence, see BasePooledLongIdDO
+     */
+    private static final int ID_BLOCK_SIZE = 50;
+
+    private static final String UPSERT_INSERT = "INSERT INTO product "
+            + "(id, name, picture, price, alive, product_class_id, created_by, created_at, updated_by, updated_at, version) VALUES ";
+
+    private static final String UPSERT_ROW = "(?, ?, ?, ?, ?, ?, ?, ?, ?, ?, 0)";
+
+    private static final String UPSERT_UPDATE = " ON DUPLICATE KEY UPDATE "
+            + "name = VALUES(name), picture = VALUES(picture), price = VALUES(price), alive = VALUES(alive), "
+            + "product_class_id = VALUES(product_class_id), updated_by = VALUES(updated_by), updated_at = VALUES(updated_at), "
+            + "version = version + 1";
+
+    private final ObjectProvider<AuditorAware<String>> auditorAware;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public long reserveIds(int count) {
+        int blocks = (count + ID_BLOCK_SIZE - 1) / ID_BLOCK_SIZE;
+        long increment = (long) blocks * ID_BLOCK_SIZE;
+        entityManager.createNativeQuery("UPDATE product_seq SET next_val = LAST_INSERT_ID(next_val + ?)")
+                .setParameter(1, increment)
+                .executeUpdate();
+        long nextValue = ((Number) entityManager.createNativeQuery("SELECT LAST_INSERT_ID()").getSingleResult()).longValue();
+        // Hibernate's pooled optimizer hands out the block of ids ending at each value it reads,
+        // so advancing by whole blocks claims the blocks ending at the skipped values
+        return nextValue - increment - ID_BLOCK_SIZE + 1;
+    }
+
+    @Override
+    public int upsert(List<Product> products) {
+        if (products.isEmpty()) {
+            return 0;
+        }
+        StringBuilder sql = new StringBuilder(UPSERT_INSERT);
+        for (int i = 0; i < products.size(); i++) {
+            sql.append(i == 0 ? "" : ", ").append(UPSERT_ROW);
+        }
+        sql.append(UPSERT_UPDATE);
+
+        String auditor = currentAuditor();
+        LocalDateTime now = LocalDateTime.now();
+        Query query = entityManager.createNativeQuery(sql.toString());
+        int position = 1;
+        for (Product product : products) {
+            query.setParameter(position++, product.getId());
+            query.setParameter(position++, product.getName());
+            query.setParameter(position++, product.getPicture());
+            query.setParameter(position++, product.getPrice());
+            query.setParameter(position++, product.getAlive());
+            query.setParameter(position++, product.getProductClass().getId());
+            query.setParameter(position++, auditor);
+            query.setParameter(position++, now);
+            query.setParameter(position++, auditor);
+            query.setParameter(position++, now);
+        }
+        return query.executeUpdate();
+    }
+
+    private String currentAuditor() {
+        AuditorAware<String> aware = auditorAware.getIfAvailable();
+        return aware == null ? null : aware.getCurrentAuditor().orElse(null);
+    }
+}
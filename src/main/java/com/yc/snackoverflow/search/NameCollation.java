@@ -0,0 +1,58 @@
+package com.yc.snackoverflow.search;
+
+import java.nio.charset.StandardCharsets;
+import java.text.Collator;
+import java.text.Normalizer;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.regex.Pattern;
+
+/**
+ * In-memory stand-ins for the utf8mb4_unicode_ci comparisons on name columns
+ *
+ * {@link #key} orders and equates names like ORDER BY and = on the column;
+ * {@link #fold} maps a name to a form where substring matching behaves like
+ * LIKE '%...%', folding case, accents, compatibility forms and ß/ss.
+ */
+public final class NameCollation {
+
+    /**
+     * Collators are not thread-safe
+     */
+    private static final ThreadLocal<Collator> COLLATOR = ThreadLocal.withInitial(() -> {
+        Collator collator = Collator.getInstance(Locale.ROOT);
+        collator.setStrength(Collator.PRIMARY);
+        collator.setDecomposition(Collator.FULL_DECOMPOSITION);
+        return collator;
+    });
+
+    private static final Pattern COMBINING_MARKS = Pattern.compile("\\p{M}+");
+
+    private NameCollation() {
+    }
+
+    /**
+     * Primary-strength collation key of a name; trailing spaces are dropped, as
+     * the PAD SPACE database collation ignores them
+     *
+     * @param name Name, or null
+     * @return Key whose String order and equality follow the collation
+     */
+    public static String key(String name) {
+        byte[] key = COLLATOR.get().getCollationKey(Objects.requireNonNullElse(name, "").stripTrailing()).toByteArray();
+        return new String(key, StandardCharsets.ISO_8859_1);
+    }
+
+    /**
+     * Case, accent and compatibility folded form of a name for substring matching
+     *
+     * @param name Name, or null
+     * @return Folded name
+     */
+    public static String fold(String name) {
+        String decomposed = Normalizer.normalize(Objects.requireNonNullElse(name, ""), Normalizer.Form.NFKD);
+        return COMBINING_MARKS.matcher(decomposed).replaceAll("")
+                .toLowerCase(Locale.ROOT)
+                .replace("ß", "ss");
+    }
+}
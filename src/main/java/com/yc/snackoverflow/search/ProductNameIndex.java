@@ -0,0 +1,321 @@
+package com.yc.snackoverflow.search;
+
+import com.yc.snackoverflow.event.ProductCatalogResetEvent;
+import com.yc.snackoverflow.event.ProductChangedEvent;
+import com.yc.snackoverflow.event.ProductState;
+import com.yc.snackoverflow.projector.ProductNameProjection;
+import com.yc.snackoverflow.repository.ProductDao;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory inverted trigram index over the names of active products
+ *
+ * Names are folded like the utf8mb4_unicode_ci LIKE on the column (see
+ * {@link NameCollation#fold}) and split into trigrams of code points, so CJK names
+ * are indexed the same way as Latin ones. Each trigram maps to a postings list of
+ * internal document numbers held in a primitive int array. A substring query
+ * intersects the postings of its trigrams and verifies the candidates against the
+ * stored names; queries shorter than a trigram scan the stored names directly.
+ *
+ * The index is built when the application is ready and kept up to date from
+ * {@link ProductChangedEvent}s after each commit. An updated product gets a new
+ * document and its old one is marked deleted; deleted documents are compacted
+ * away once they make up half of the index.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ProductNameIndex {
+
+    private static final int GRAM_LENGTH = 3;
+
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private final ProductDao productDao;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private Map<Long, Postings> postings = new HashMap<>();
+
+    private Map<Long, Integer> docByProductId = new HashMap<>();
+
+    private long[] docProductIds = new long[INITIAL_CAPACITY];
+
+    private long[] docClassIds = new long[INITIAL_CAPACITY];
+
+    private String[] docNames = new String[INITIAL_CAPACITY];
+
+    private BitSet deletedDocs = new BitSet();
+
+    private int docCount;
+
+    private int deletedCount;
+
+    private volatile boolean ready;
+
+    /**
+     * Load all active products and build the index
+     *
+     * Until this succeeds, name filters keep falling back to the LIKE queries.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void build() {
+        lock.writeLock().lock();
+        try {
+            // Loading inside the write lock makes concurrent change events wait and
+            // re-apply on top of the fresh index instead of being lost
+            List<ProductNameProjection> products = productDao.findNameIndexEntries();
+            clear(products.size());
+            for (ProductNameProjection product : products) {
+                addDoc(product.getId(), product.getProductClassId(), product.getName());
+            }
+            ready = true;
+            log.info("Built product name index with {} products and {} trigrams", docCount, postings.size());
+        } catch (DataAccessException e) {
+            log.warn("Failed to build product name index: {}", e.getMessage());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Rebuild the index when the catalog is reset
+     *
+     * @param event Product catalog reset event
+     */
+    @EventListener
+    public void onCatalogReset(ProductCatalogResetEvent event) {
+        build();
+    }
+
+    /**
+     * Apply committed product writes to the index
+     *
+     * @param event Product changed event
+     */
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        lock.writeLock().lock();
+        try {
+            for (ProductState state : event.after()) {
+                if (state.id() == null) {
+                    continue;
+                }
+                Integer doc = docByProductId.remove(state.id());
+                if (doc != null) {
+                    deletedDocs.set(doc);
+                    deletedCount++;
+                }
+                if (state.alive() && state.name() != null) {
+                    addDoc(state.id(), state.classId(), state.name());
+                }
+            }
+            if (deletedCount > INITIAL_CAPACITY && deletedCount * 2 > docCount) {
+                compact();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Find the active products whose name contains the given string
+     *
+     * @param name Substring to search for, matched like LIKE under the column collation
+     * @param classId Product class ID for filtering (optional)
+     * @return Matching product ids in ascending order
+     * @throws IllegalStateException If the index is not built yet
+     */
+    public long[] search(String name, Long classId) {
+        if (!ready) {
+            throw new IllegalStateException("Product name index is not built yet");
+        }
+        String query = normalize(name);
+        lock.readLock().lock();
+        try {
+            long[] result = new long[16];
+            int size = 0;
+            int[] candidates = query.codePointCount(0, query.length()) < GRAM_LENGTH
+                    ? null
+                    : candidates(query);
+            int candidateCount = candidates == null ? docCount : candidates.length;
+            for (int i = 0; i < candidateCount; i++) {
+                int doc = candidates == null ? i : candidates[i];
+                if (deletedDocs.get(doc)
+                        || (classId != null && docClassIds[doc] != classId)
+                        || !docNames[doc].contains(query)) {
+                    continue;
+                }
+                if (size == result.length) {
+                    result = Arrays.copyOf(result, size * 2);
+                }
+                result[size++] = docProductIds[doc];
+            }
+            long[] ids = Arrays.copyOf(result, size);
+            Arrays.sort(ids);
+            return ids;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Whether the index has been built and can answer searches
+     *
+     * @return true once the index is built
+     */
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Intersect the postings lists of all trigrams of the query
+     */
+    private int[] candidates(String query) {
+        long[] grams = grams(query);
+        Postings[] lists = new Postings[grams.length];
+        for (int i = 0; i < grams.length; i++) {
+            lists[i] = postings.get(grams[i]);
+            if (lists[i] == null) {
+                return new int[0];
+            }
+        }
+        // Start from the shortest list so the intermediate results stay small
+        Arrays.sort(lists, Comparator.comparingInt(Postings::size));
+        int[] result = Arrays.copyOf(lists[0].docs, lists[0].size);
+        int resultSize = result.length;
+        for (int i = 1; i < lists.length && resultSize > 0; i++) {
+            resultSize = intersect(result, resultSize, lists[i]);
+        }
+        return Arrays.copyOf(result, resultSize);
+    }
+
+    /**
+     * Intersect two sorted doc lists in place, returning the new size of the first
+     */
+    private static int intersect(int[] docs, int size, Postings other) {
+        int i = 0;
+        int j = 0;
+        int k = 0;
+        while (i < size && j < other.size) {
+            if (docs[i] < other.docs[j]) {
+                i++;
+            } else if (docs[i] > other.docs[j]) {
+                j++;
+            } else {
+                docs[k++] = docs[i];
+                i++;
+                j++;
+            }
+        }
+        return k;
+    }
+
+    private void addDoc(Long productId, Long classId, String name) {
+        int doc = docCount++;
+        if (doc == docProductIds.length) {
+            int capacity = docProductIds.length * 2;
+            docProductIds = Arrays.copyOf(docProductIds, capacity);
+            docClassIds = Arrays.copyOf(docClassIds, capacity);
+            docNames = Arrays.copyOf(docNames, capacity);
+        }
+        String normalized = normalize(name);
+        docProductIds[doc] = productId;
+        docClassIds[doc] = classId != null ? classId : -1L;
+        docNames[doc] = normalized;
+        docByProductId.put(productId, doc);
+        // Doc numbers only grow, so appending keeps every postings list sorted
+        for (long gram : grams(normalized)) {
+            postings.computeIfAbsent(gram, key -> new Postings()).add(doc);
+        }
+    }
+
+    /**
+     * Rebuild the index from the live documents, dropping deleted ones
+     */
+    private void compact() {
+        long[] productIds = docProductIds;
+        long[] classIds = docClassIds;
+        String[] names = docNames;
+        BitSet deleted = deletedDocs;
+        int count = docCount;
+        clear(count - deletedCount);
+        for (int doc = 0; doc < count; doc++) {
+            if (!deleted.get(doc)) {
+                addDoc(productIds[doc], classIds[doc], names[doc]);
+            }
+        }
+        log.debug("Compacted product name index to {} products", docCount);
+    }
+
+    private void clear(int expectedDocs) {
+        int capacity = Math.max(INITIAL_CAPACITY, expectedDocs);
+        postings = new HashMap<>();
+        docByProductId = new HashMap<>(capacity * 2);
+        docProductIds = new long[capacity];
+        docClassIds = new long[capacity];
+        docNames = new String[capacity];
+        deletedDocs = new BitSet();
+        docCount = 0;
+        deletedCount = 0;
+    }
+
+    /**
+     * Distinct trigrams of a normalized string, each packed into a long as three
+     * 21-bit code points
+     */
+    private static long[] grams(String text) {
+        int[] codePoints = text.codePoints().toArray();
+        if (codePoints.length < GRAM_LENGTH) {
+            return new long[0];
+        }
+        long[] grams = new long[codePoints.length - GRAM_LENGTH + 1];
+        for (int i = 0; i < grams.length; i++) {
+            grams[i] = ((long) codePoints[i] << 42) | ((long) codePoints[i + 1] << 21) | codePoints[i + 2];
+        }
+        return Arrays.stream(grams).distinct().toArray();
+    }
+
+    private static String normalize(String text) {
+        return NameCollation.fold(text);
+    }
+
+    /**
+     * Growable sorted array of doc numbers
+     */
+    private static final class Postings {
+
+        private int[] docs = new int[4];
+
+        private int size;
+
+        void add(int doc) {
+            if (size == docs.length) {
+                docs = Arrays.copyOf(docs, size * 2);
+            }
+            docs[size++] = doc;
+        }
+
+        int size() {
+            return size;
+        }
+    }
+}
@@ -0,0 +1,226 @@
+package com.yc.snackoverflow.search;
+
+import com.yc.snackoverflow.event.ProductChangedEvent;
+import com.yc.snackoverflow.event.ProductState;
+import com.yc.snackoverflow.model.Member;
+import com.yc.snackoverflow.reposity.MemberDao;
+import com.yc.snackoverflow.repository.ProductDao;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+
+/**
+ * Bloom filters over the product names, member names and member emails in use
+ *
+ * Lets the uniqueness checks skip their query when a name is definitely not
+ * taken; a possible hit is still confirmed against the database. Keys are
+ * primary-strength collation keys, which fold case, accents, compatibility forms
+ * (full-width letters, ligatures) and expansions like ß/ss at least as far as the
+ * utf8mb4_unicode_ci connection collation does. Folding further only costs an
+ * extra query, while folding less could wrongly skip one.
+ *
+ * The filters are built when the application is ready and rebuilt periodically,
+ * which resizes them and drops names that are no longer used. Committed product
+ * writes (including the ones replayed from other nodes by the change log) and
+ * member creations are added as they happen. Until the first build succeeds
+ * every name might be taken, so the checks keep querying. Names created on other
+ * nodes show up late, members only after the next rebuild; the unique keys on the
+ * product and member tables (V8, V13) reject them in the meantime.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class UniqueNameFilter {
+
+    private final ProductDao productDao;
+
+    private final MemberDao memberDao;
+
+    @Value("${app.name-filter.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.name-filter.min-capacity:10000}")
+    private int minCapacity;
+
+    @Value("${app.name-filter.fpp:0.01}")
+    private double fpp;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private volatile Filters filters;
+
+    /**
+     * Filters being loaded by a rebuild; names added meanwhile go to both
+     */
+    private Filters building;
+
+    /**
+     * Load all names and swap in fresh filters
+     *
+     * The new filters are installed for writes before the load starts, so a
+     * write committed after the load query began still reaches them.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(initialDelayString = "${app.name-filter.rebuild-interval:PT1H}",
+            fixedDelayString = "${app.name-filter.rebuild-interval:PT1H}")
+    public void build() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            long products = productDao.count();
+            long members = memberDao.count();
+            Filters next = new Filters(
+                    BloomFilter.create(Math.max(minCapacity, products * 2), fpp),
+                    BloomFilter.create(Math.max(minCapacity, members * 2), fpp),
+                    BloomFilter.create(Math.max(minCapacity, members * 2), fpp));
+            withWriteLock(() -> building = next);
+            try {
+                putAll(next.productNames(), productDao.findAllNames());
+                putAll(next.memberNames(), memberDao.findAllNames());
+                putAll(next.memberEmails(), memberDao.findAllEmails());
+                withWriteLock(() -> filters = next);
+            } finally {
+                withWriteLock(() -> building = null);
+            }
+            log.info("Built name filters for {} products and {} members", products, members);
+        } catch (DataAccessException e) {
+            log.warn("Failed to build name filters: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Add the names of committed product writes
+     *
+     * @param event Product changed event
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        for (ProductState state : event.after()) {
+            if (state.name() != null) {
+                put(Filters::productNames, state.name());
+            }
+        }
+    }
+
+    /**
+     * Add the name and email of a saved member once its transaction commits
+     *
+     * @param member Saved member
+     */
+    public void addMember(Member member) {
+        String name = member.getName();
+        String email = member.getEmail();
+        Runnable add = () -> {
+            if (name != null) {
+                put(Filters::memberNames, name);
+            }
+            if (email != null) {
+                put(Filters::memberEmails, email);
+            }
+        };
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    add.run();
+                }
+            });
+        } else {
+            add.run();
+        }
+    }
+
+    /**
+     * Whether a product, active or not, may already use the name
+     *
+     * @param name Product name
+     * @return false if no product uses the name
+     */
+    public boolean mightHaveProductName(String name) {
+        return mightContain(Filters::productNames, name);
+    }
+
+    /**
+     * Whether a member may already use the name
+     *
+     * @param name Member name
+     * @return false if no member uses the name
+     */
+    public boolean mightHaveMemberName(String name) {
+        return mightContain(Filters::memberNames, name);
+    }
+
+    /**
+     * Whether a member may already use the email
+     *
+     * @param email Member email
+     * @return false if no member uses the email
+     */
+    public boolean mightHaveMemberEmail(String email) {
+        return mightContain(Filters::memberEmails, email);
+    }
+
+    private boolean mightContain(Function<Filters, BloomFilter> selector, String name) {
+        Filters current = filters;
+        return current == null || name == null || selector.apply(current).mightContain(normalize(name));
+    }
+
+    /**
+     * Puts share the read lock; only installing and swapping filters is exclusive
+     */
+    private void put(Function<Filters, BloomFilter> selector, String name) {
+        String key = normalize(name);
+        lock.readLock().lock();
+        try {
+            Filters current = filters;
+            if (current != null) {
+                selector.apply(current).put(key);
+            }
+            if (building != null) {
+                selector.apply(building).put(key);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private static void putAll(BloomFilter filter, List<String> names) {
+        for (String name : names) {
+            filter.put(normalize(name));
+        }
+    }
+
+    private void withWriteLock(Runnable action) {
+        lock.writeLock().lock();
+        try {
+            action.run();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Primary-strength collation key of a name; trailing spaces are dropped, as
+     * the PAD SPACE database collation ignores them
+     */
+    static String normalize(String name) {
+        return NameCollation.key(name);
+    }
+
+    private record Filters(BloomFilter productNames, BloomFilter memberNames, BloomFilter memberEmails) {
+    }
+}
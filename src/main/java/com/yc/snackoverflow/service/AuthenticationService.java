@@ -6,6 +6,7 @@ import com.yc.snackoverflow.data.auth.RegisterReq;
 import com.yc.snackoverflow.exception.WebErrorEnum;
 import com.yc.snackoverflow.model.Member;
 import com.yc.snackoverflow.reposity.MemberDao;
+import com.yc.snackoverflow.search.UniqueNameFilter;
 import lombok.RequiredArgsConstructor;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
@@ -28,6 +29,7 @@ public class AuthenticationService {
     private final MemberService memberService;
     private final JwtTokenProvider jwtService;
     private final AuthenticationManager authenticationManager;
+    private final UniqueNameFilter uniqueNameFilter;
 
     @Transactional
     public AuthenticationRes register(RegisterReq registerRequestData) {
@@ -37,6 +39,7 @@ public class AuthenticationService {
         // Generate and save member
         Member member = memberService.generateMember(registerRequestData);
         memberDao.save(member);
+        uniqueNameFilter.addMember(member);
         
         // Generate token once and return
         String token = jwtService.generateToken(member);
@@ -46,10 +49,13 @@ public class AuthenticationService {
     }
 
     private void checkUserExists(RegisterReq registerRequestData) {
-        if (!memberDao.list(List.of(registerRequestData.getUsername())).isEmpty()) {
+        // Only query for names and emails the filter cannot rule out
+        if (uniqueNameFilter.mightHaveMemberName(registerRequestData.getUsername())
+                && !memberDao.list(List.of(registerRequestData.getUsername())).isEmpty()) {
             throw WebErrorEnum.USER_ALREADY_EXISTS.exception();
         }
-        if (memberDao.findByEmail(registerRequestData.getEmail()).isPresent()) {
+        if (uniqueNameFilter.mightHaveMemberEmail(registerRequestData.getEmail())
+                && memberDao.findByEmail(registerRequestData.getEmail()).isPresent()) {
             throw WebErrorEnum.EMAIL_ALREADY_EXISTS.exception();
         }
     }
@@ -0,0 +1,25 @@
+package com.yc.snackoverflow.service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDate;
+
+/**
+ * Service for streaming booking exports
+ *
+ * Booking details are read from a database cursor and written to the output
+ * booking by booking, so heap use does not grow with the number of bookings.
+ */
+public interface BookingExportService {
+
+    /**
+     * Write the matching bookings as newline-delimited JSON, one BookingResponseDto per line
+     *
+     * @param memberId Member ID for filtering (optional)
+     * @param from First day, inclusive (optional)
+     * @param to Last day, inclusive (optional)
+     * @param output Response stream
+     * @throws IOException If writing fails
+     */
+    void exportNdjson(Long memberId, LocalDate from, LocalDate to, OutputStream output) throws IOException;
+}
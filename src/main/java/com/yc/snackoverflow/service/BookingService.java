@@ -1,24 +1,73 @@
 package com.yc.snackoverflow.service;
 
-import com.yc.snackoverflow.data.BookingData;
 import com.yc.snackoverflow.data.BookingDto;
 import com.yc.snackoverflow.data.CountBookingReturnData;
-import com.yc.snackoverflow.enums.UpsertStatusEnum;
+import com.yc.snackoverflow.dto.response.BookingResponseDto;
+import com.yc.snackoverflow.dto.response.BookingUpsertResult;
+import com.yc.snackoverflow.handler.CursorPageResult;
 import com.yc.snackoverflow.model.Booking;
 
+import java.time.LocalDate;
 import java.util.List;
 
 public interface BookingService {
-    UpsertStatusEnum createOrUpdate(BookingDto bookingDto);
+    BookingUpsertResult createOrUpdate(BookingDto bookingDto);
+
+    /**
+     * Create a booking, or update it when the DTO carries an id
+     *
+     * @param bookingDto Booking with its details
+     * @param idempotencyKey Idempotency-Key header of a create (optional); a retried
+     *                       create with the same key and payload returns the first
+     *                       booking without booking again
+     * @return Upsert status with the saved booking
+     * @throws com.yc.snackoverflow.exception.WebException IDEMPOTENCY_KEY_REUSED if the
+     *         key was already used with a different payload
+     */
+    BookingUpsertResult createOrUpdate(BookingDto bookingDto, String idempotencyKey);
+
+    /**
+     * Find a booking with its details
+     *
+     * @param id Booking ID
+     * @return Booking response
+     */
+    BookingResponseDto findById(Long id);
 
     List<Booking> list(List<String> productNameList);
 
-    List<BookingData> getByMemberAndDate(String memberName, Integer date);
+    /**
+     * Find a member's bookings made between two days using keyset (cursor) pagination, newest first
+     *
+     * @param memberName Member name
+     * @param from First day, inclusive (optional)
+     * @param to Last day, inclusive (optional)
+     * @param after Cursor from the previous page, empty for the first page
+     * @param size Page size
+     * @return Cursor page of bookings with their details
+     */
+    CursorPageResult<BookingResponseDto> getByMemberAndDate(String memberName, LocalDate from, LocalDate to, String after, int size);
 
-    List<BookingData> getByMember(String memberName);
+    /**
+     * Find all of a member's bookings using keyset (cursor) pagination, newest first
+     *
+     * @param memberName Member name
+     * @param after Cursor from the previous page, empty for the first page
+     * @param size Page size
+     * @return Cursor page of bookings with their details
+     */
+    CursorPageResult<BookingResponseDto> getByMember(String memberName, String after, int size);
 
     void deleteBooking(BookingDto member);
 
-    List<CountBookingReturnData> countBooking(Integer date, Integer maxPrice);
+    /**
+     * Booked count per product, read from the monthly rollup
+     *
+     * @param year Year (optional)
+     * @param month Calendar month 1-12, of every year unless year is given (optional)
+     * @param maxPrice Maximum current product price (optional)
+     * @return Count per booked product
+     */
+    List<CountBookingReturnData> countBooking(Integer year, Integer month, Integer maxPrice);
 
 }
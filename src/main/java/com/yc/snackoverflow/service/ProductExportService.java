@@ -0,0 +1,29 @@
+package com.yc.snackoverflow.service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Service for streaming catalog exports
+ *
+ * Products are read from a database cursor and written to the output one by
+ * one, so heap use does not grow with the catalog size.
+ */
+public interface ProductExportService {
+
+    /**
+     * Write all active products as newline-delimited JSON, one ProductResponseDto per line
+     *
+     * @param output Response stream
+     * @throws IOException If writing fails
+     */
+    void exportNdjson(OutputStream output) throws IOException;
+
+    /**
+     * Write all active products as CSV with a header row
+     *
+     * @param output Response stream
+     * @throws IOException If writing fails
+     */
+    void exportCsv(OutputStream output) throws IOException;
+}
@@ -0,0 +1,35 @@
+package com.yc.snackoverflow.service;
+
+import com.yc.snackoverflow.dto.response.ProductImportReport;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Service for streaming bulk imports of products
+ *
+ * The input is read row by row and committed in chunks, so memory use does not
+ * grow with the input size and a bad row only fails itself.
+ */
+public interface ProductImportService {
+
+    /**
+     * Import products from newline-delimited JSON, one ProductCreateRequestDto per line
+     *
+     * @param input Request body
+     * @param chunkSize Rows per transaction, null for the configured default
+     * @return Import report with one entry per committed chunk
+     * @throws IOException If reading the input fails
+     */
+    ProductImportReport importNdjson(InputStream input, Integer chunkSize) throws IOException;
+
+    /**
+     * Import products from CSV with a header row naming the ProductCreateRequestDto fields
+     *
+     * @param input Request body
+     * @param chunkSize Rows per transaction, null for the configured default
+     * @return Import report with one entry per committed chunk
+     * @throws IOException If reading the input fails
+     */
+    ProductImportReport importCsv(InputStream input, Integer chunkSize) throws IOException;
+}
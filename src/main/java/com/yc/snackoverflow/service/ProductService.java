@@ -1,11 +1,17 @@
 package com.yc.snackoverflow.service;
 
 import com.yc.snackoverflow.dto.request.ProductCreateRequestDto;
+import com.yc.snackoverflow.dto.request.ProductSearchRequestDto;
 import com.yc.snackoverflow.dto.request.ProductUpdateRequestDto;
 import com.yc.snackoverflow.dto.response.ProductResponseDto;
+import com.yc.snackoverflow.dto.response.ProductSearchResult;
+import com.yc.snackoverflow.enums.UpsertStatusEnum;
+import com.yc.snackoverflow.handler.CursorPageResult;
 import com.yc.snackoverflow.model.Product;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
 
 import java.util.List;
 
@@ -24,6 +30,48 @@ public interface ProductService {
      */
     Page<ProductResponseDto> findProducts(String name, Long classId, Pageable pageable);
 
+    /**
+     * Find products with optional filtering and pagination, without a total count
+     *
+     * @param name Product name for filtering (optional)
+     * @param classId Product class ID for filtering (optional)
+     * @param pageable Pagination information
+     * @return Slice of products
+     */
+    Slice<ProductResponseDto> findProductSlice(String name, Long classId, Pageable pageable);
+
+    /**
+     * Estimate the number of products matching a filter; the count is cached
+     * for a short time, so it may lag behind recent writes
+     *
+     * @param name Product name for filtering (optional)
+     * @param classId Product class ID for filtering (optional)
+     * @return Approximate number of matching products
+     */
+    long estimateProductCount(String name, Long classId);
+
+    /**
+     * Search products by any combination of name, classes, price range, active flag
+     * and creation time range
+     *
+     * @param criteria Search criteria
+     * @param pageable Pagination information; sortable by id, name, price and createdAt
+     * @return Page of products with the plan of the query
+     */
+    ProductSearchResult searchProducts(ProductSearchRequestDto criteria, Pageable pageable);
+
+    /**
+     * Find products with optional filtering using keyset (cursor) pagination
+     *
+     * @param name Product name for filtering (optional)
+     * @param classId Product class ID for filtering (optional)
+     * @param after Cursor returned with the previous page, empty for the first page
+     * @param size Page size
+     * @param sort Sort for the first page; later pages keep the sort encoded in the cursor
+     * @return Cursor page of products
+     */
+    CursorPageResult<ProductResponseDto> findProductsAfter(String name, Long classId, String after, int size, Sort sort);
+
     /**
      * Find a product by ID
      *
@@ -32,6 +80,14 @@ public interface ProductService {
      */
     ProductResponseDto findById(Long id);
 
+    /**
+     * Find products by IDs in one round trip
+     *
+     * @param ids Product IDs
+     * @return Products in the requested order, repeated IDs included; unknown IDs are skipped
+     */
+    List<ProductResponseDto> findByIds(List<Long> ids);
+
     /**
      * Create a new product
      *
@@ -81,9 +137,11 @@ public interface ProductService {
     List<Product> list(List<String> productNameList);
 
     /**
-     * Create or update products from DTOs
+     * Create or update products from DTOs, matched by name against the active products
      *
      * @param productDtos List of product DTOs
+     * @return Result of each DTO, in request order
+     * @throws org.springframework.dao.OptimisticLockingFailureException if the products changed between the lookup and the write
      */
-    void createOrUpdate(List<com.yc.snackoverflow.data.ProductDto> productDtos);
+    List<UpsertStatusEnum> createOrUpdate(List<com.yc.snackoverflow.data.ProductDto> productDtos);
 }
@@ -0,0 +1,103 @@
+package com.yc.snackoverflow.service.impl;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.yc.snackoverflow.dto.response.BookingResponseDto;
+import com.yc.snackoverflow.mapper.BookingMapper;
+import com.yc.snackoverflow.model.BookingDetail;
+import com.yc.snackoverflow.reposity.BookingDao;
+import com.yc.snackoverflow.repository.BookingSpecifications;
+import com.yc.snackoverflow.service.BookingExportService;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * Implementation of the BookingExportService interface
+ *
+ * The details arrive grouped by booking, so a booking is written as soon as
+ * the first detail of the next one is read. The read-only transaction stays
+ * open while the cursor is consumed and the persistence context is cleared
+ * every clear-interval bookings, so only the booking being assembled is held
+ * in memory.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class BookingExportServiceImpl implements BookingExportService {
+
+    private final BookingDao bookingDao;
+    private final BookingMapper bookingMapper;
+    private final ObjectMapper objectMapper;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Value("${app.booking.export.clear-interval:1000}")
+    private int clearInterval;
+
+    /**
+     * Zone booking times are stored in, which decides where the from/to days start
+     */
+    @Value("${spring.jpa.properties.hibernate.jdbc.time_zone:UTC}")
+    private ZoneId bookingZone;
+
+    @Override
+    @Transactional(readOnly = true)
+    public void exportNdjson(Long memberId, LocalDate from, LocalDate to, OutputStream output) throws IOException {
+        ObjectWriter writer = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(output);
+             Stream<BookingDetail> details = bookingDao.streamDetails(memberId,
+                     from != null ? BookingSpecifications.startOfDay(from, bookingZone) : null,
+                     to != null ? BookingSpecifications.startOfDay(to.plusDays(1), bookingZone) : null)) {
+            generator.setRootValueSeparator(null);
+            long count = 0;
+            BookingResponseDto booking = null;
+            for (Iterator<BookingDetail> iterator = details.iterator(); iterator.hasNext(); ) {
+                BookingDetail detail = iterator.next();
+                if (booking == null || !booking.getId().equals(detail.getBooking().getId())) {
+                    if (booking != null) {
+                        count = write(writer, generator, booking, count);
+                    }
+                    booking = bookingMapper.toSummaryDto(detail.getBooking());
+                    booking.setDetails(new ArrayList<>());
+                }
+                booking.getDetails().add(bookingMapper.toDetailResponseDto(detail));
+            }
+            if (booking != null) {
+                count = write(writer, generator, booking, count);
+            }
+            log.info("Exported {} bookings as NDJSON", count);
+        }
+    }
+
+    /**
+     * Write one booking line, periodically pushing the output to the client and
+     * detaching the entities read so far
+     */
+    private long write(ObjectWriter writer, JsonGenerator generator, BookingResponseDto booking, long count)
+            throws IOException {
+        writer.writeValue(generator, booking);
+        generator.writeRaw('\n');
+        count++;
+        if (count % clearInterval == 0) {
+            generator.flush();
+            entityManager.clear();
+        }
+        return count;
+    }
+}
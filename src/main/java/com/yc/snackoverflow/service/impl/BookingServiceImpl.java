@@ -1,97 +1,369 @@
 package com.yc.snackoverflow.service.impl;
 
-import com.yc.snackoverflow.data.BookingData;
+import com.yc.snackoverflow.constant.ErrorCode;
 import com.yc.snackoverflow.data.BookingDetailDto;
 import com.yc.snackoverflow.data.BookingDto;
 import com.yc.snackoverflow.data.CountBookingReturnData;
+import com.yc.snackoverflow.dto.response.BookingResponseDto;
+import com.yc.snackoverflow.dto.response.BookingUpsertResult;
 import com.yc.snackoverflow.enums.UpsertStatusEnum;
+import com.yc.snackoverflow.handler.CursorPageResult;
+import com.yc.snackoverflow.exception.WebErrorEnum;
+import com.yc.snackoverflow.exception.WebException;
+import com.yc.snackoverflow.mapper.BookingMapper;
 import com.yc.snackoverflow.model.Booking;
 import com.yc.snackoverflow.model.BookingDetail;
+import com.yc.snackoverflow.model.BookingMonthlyCount;
 import com.yc.snackoverflow.model.Member;
 import com.yc.snackoverflow.model.Product;
 import com.yc.snackoverflow.reposity.BookingDao;
+import com.yc.snackoverflow.repository.BookingCursor;
+import com.yc.snackoverflow.repository.BookingMonthlyCountDao;
+import com.yc.snackoverflow.repository.BookingSpecifications;
 import com.yc.snackoverflow.service.BookingService;
 import com.yc.snackoverflow.service.MemberService;
 import com.yc.snackoverflow.service.ProductService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.StringUtils;
 
-import java.util.ArrayList;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
+/**
+ * Booking write path and reports
+ *
+ * A booking write resolves the member and all booked products with one query
+ * each, then saves the booking; its details are persisted by cascade with pooled
+ * ids, so they go out as a single JDBC batch at commit. Creates may carry an
+ * Idempotency-Key: a retry with a key the member already used returns the first
+ * booking without booking again, as long as its payload has the same fingerprint,
+ * and the unique key on (member_id, idempotency_key) rejects a retry that races
+ * the first request.
+ *
+ * Every write also adjusts the monthly booked quantity per product in the same
+ * transaction, with one INSERT ... ON DUPLICATE KEY UPDATE for all of its
+ * products, so the counts report reads that small table instead of the details.
+ * Updates and deletes lock the booking row before reading the details they
+ * subtract, so concurrent writes to one booking cannot make the counts drift.
+ *
+ * Member listings are keyset pages of at most app.booking.max-page-size
+ * bookings, so a request costs the same no matter how many bookings the member has.
+ */
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class BookingServiceImpl implements BookingService {
 
+    /**
+     * Length of the idempotency_key column
+     */
+    private static final int IDEMPOTENCY_KEY_MAX_LENGTH = 64;
+
+    /**
+     * Last month key of the monthly counts, December 9999
+     */
+    private static final int LAST_MONTH = 9999_12;
+
     private final BookingDao bookingDao;
 
     private final MemberService memberService;
 
     private final ProductService productService;
 
+    private final BookingMapper bookingMapper;
+
+    private final BookingMonthlyCountDao bookingMonthlyCountDao;
+
+    /**
+     * Zone booking times are stored in, which decides the day and month they fall on
+     */
+    @Value("${spring.jpa.properties.hibernate.jdbc.time_zone:UTC}")
+    private ZoneId bookingZone;
+
+    @Value("${app.booking.max-page-size:100}")
+    private int maxPageSize;
+
     @Override
-    public UpsertStatusEnum createOrUpdate(BookingDto bookingDto) {
+    @Transactional
+    public BookingUpsertResult createOrUpdate(BookingDto bookingDto) {
+        return createOrUpdate(bookingDto, null);
+    }
+
+    @Override
+    @Transactional
+    public BookingUpsertResult createOrUpdate(BookingDto bookingDto, String idempotencyKey) {
+        validate(bookingDto);
+        if (idempotencyKey != null && idempotencyKey.length() > IDEMPOTENCY_KEY_MAX_LENGTH) {
+            throw WebErrorEnum.INVALID_ARG.exception("Idempotency-Key");
+        }
 
         Member member = memberService.list(List.of(bookingDto.getMemberName())).get(0);
-        Map<String, Product> productMap = productService.list(bookingDto.getBookingDetailDtoList()
-                .stream()
-                .map(BookingDetailDto::getProductName)
-                .distinct()
-                .toList())
-                .stream()
-                .collect(Collectors.toMap(Product::getName, Function.identity(), (existing, replacement) -> existing));
 
-        Booking booking = Booking.builder()
-                .member(member)
-                .date(bookingDto.getDate())
-                .build();
+        Booking booking;
+        UpsertStatusEnum status;
+        Map<BookingMonthlyCount.Key, Long> quantities = new HashMap<>();
+        if (bookingDto.getId() != null) {
+            // Locked, so a concurrent update cannot subtract the same old details again
+            booking = bookingDao.findForUpdateById(bookingDto.getId())
+                    .orElseThrow(() -> WebErrorEnum.BOOKING_NOT_FOUND.exception(bookingDto.getId()));
+            rollUp(quantities, booking, -1);
+            // Replace the details with one DELETE instead of diffing them
+            bookingDao.deleteDetailsByBookingId(booking.getId());
+            status = UpsertStatusEnum.UPDATE;
+        } else {
+            String fingerprint = null;
+            if (StringUtils.hasText(idempotencyKey)) {
+                fingerprint = fingerprint(bookingDto);
+                Optional<Booking> existing = bookingDao.findByMemberIdAndIdempotencyKey(member.getId(), idempotencyKey);
+                if (existing.isPresent()) {
+                    Booking first = existing.get();
+                    // Bookings from before fingerprints were stored cannot be compared
+                    if (first.getIdempotencyFingerprint() != null && !first.getIdempotencyFingerprint().equals(fingerprint)) {
+                        throw WebErrorEnum.IDEMPOTENCY_KEY_REUSED.exception(idempotencyKey);
+                    }
+                    log.info("Booking {} already created with Idempotency-Key {}", first.getId(), idempotencyKey);
+                    return new BookingUpsertResult(UpsertStatusEnum.CREATE_OR_NO_CHANGE, findById(first.getId()));
+                }
+            }
+            booking = new Booking();
+            booking.setIdempotencyKey(StringUtils.hasText(idempotencyKey) ? idempotencyKey : null);
+            booking.setIdempotencyFingerprint(fingerprint);
+            status = UpsertStatusEnum.CREATE_OR_NO_CHANGE;
+        }
 
-        List<BookingDetail> bookingDetails = new ArrayList<>();
-        for(BookingDetailDto bookingData : bookingDto.getBookingDetailDtoList()){
-            BookingDetail bookingDetail = BookingDetail.builder()
+        Map<String, Product> products = findBookableProducts(bookingDto.getBookingDetailDtoList(),
+                status == UpsertStatusEnum.UPDATE ? ErrorCode.BOOKING_UPDATE_FAILED : ErrorCode.BOOKING_CREATE_FAILED);
+
+        Set<BookingDetail> bookingDetails = new HashSet<>();
+        long totalPrice = 0;
+        for (BookingDetailDto detailDto : bookingDto.getBookingDetailDtoList()) {
+            Product product = products.get(detailDto.getProductName());
+            bookingDetails.add(BookingDetail.builder()
                     .booking(booking)
-                    .count(bookingData.getCount())
-                    .priority(bookingData.getPriority())
-                    .product(productMap.get(bookingData.getProductName()))
-                    .build();
-            bookingDetails.add(bookingDetail);
-        }
-
-//        int createOrUpdate = bookingDao.saveOrUpdate(booking);
-//        int createOrUpdate = bookingDao.saveOrUpdate(booking);
-//        log.info("memberDao.saveOrUpdateMember(booking) return {}", UpsertStatusEnum.lookup(createOrUpdate));
-//        return UpsertStatusEnum.lookup(createOrUpdate)
-//                .orElseThrow(WebErrorEnum.UPSERT_FAILED::exception);
-        return null;
+                    .product(product)
+                    .count(detailDto.getCount())
+                    .priority(detailDto.getPriority())
+                    .price(product.getPrice())
+                    .build());
+            totalPrice += (long) product.getPrice() * detailDto.getCount();
+        }
+        // total_price is an INT column
+        if (totalPrice > Integer.MAX_VALUE) {
+            throw WebErrorEnum.INVALID_ARG.exception("bookingDetailDtoList");
+        }
+
+        booking.setMember(member);
+        // An update without a date keeps the booking, and its monthly counts, in its month
+        if (bookingDto.getDate() != null) {
+            booking.setDate(bookingDto.getDate());
+        } else if (booking.getDate() == null) {
+            booking.setDate(new Date());
+        }
+        booking.setTotalPrice((int) totalPrice);
+        booking.setBookingDetails(bookingDetails);
+        rollUp(quantities, booking, 1);
+        // An updated booking is already managed and its new details are persisted by cascade at flush;
+        // merging it instead would copy the details as empty instances
+        Booking savedBooking = booking.getId() == null ? bookingDao.save(booking) : booking;
+        bookingMonthlyCountDao.addQuantities(quantities);
+        log.info("Saved booking {} with {} details for member {}",
+                savedBooking.getId(), bookingDetails.size(), member.getName());
+
+        return new BookingUpsertResult(status, bookingMapper.toResponseDto(savedBooking));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public BookingResponseDto findById(Long id) {
+        return bookingDao.findWithDetailsById(id)
+                .map(bookingMapper::toResponseDto)
+                .orElseThrow(() -> WebErrorEnum.BOOKING_NOT_FOUND.exception(id));
     }
 
     @Override
+    @Transactional(readOnly = true)
     public List<Booking> list(List<String> productNameList) {
-        return null;
+        if (productNameList == null) {
+            return bookingDao.findAll();
+        }
+        return productNameList.isEmpty() ? List.of() : bookingDao.findByProductNames(productNameList);
     }
 
     @Override
-    public List<BookingData> getByMemberAndDate(String memberName, Integer date) {
-        return null;
+    @Transactional(readOnly = true)
+    public CursorPageResult<BookingResponseDto> getByMemberAndDate(String memberName, LocalDate from, LocalDate to,
+                                                                   String after, int size) {
+        if (!StringUtils.hasText(memberName)) {
+            throw WebErrorEnum.INVALID_ARG.exception("member");
+        }
+        if (size < 1 || size > maxPageSize) {
+            throw WebErrorEnum.INVALID_ARG.exception("size");
+        }
+        if (from != null && to != null && from.isAfter(to)) {
+            throw WebErrorEnum.INVALID_ARG.exception("to");
+        }
+        BookingCursor cursor = StringUtils.hasText(after) ? BookingCursor.decode(after) : null;
+        Member member = memberService.list(List.of(memberName)).get(0);
+
+        // Seek along the (member_id, booking_time, id) index, fetching one extra row
+        // to learn whether another page follows
+        List<Booking> bookings = bookingDao.findAfter(
+                Specification.where(BookingSpecifications.ofMember(member.getId()))
+                        .and(BookingSpecifications.bookedBetween(from, to, bookingZone)),
+                cursor, size + 1);
+        boolean hasNext = bookings.size() > size;
+        if (hasNext) {
+            bookings = bookings.subList(0, size);
+        }
+        String nextCursor = hasNext ? BookingCursor.after(bookings.get(bookings.size() - 1)).encode() : null;
+
+        // Load the details of the whole page with one more select
+        Map<Long, Booking> withDetails = bookingDao.findWithDetailsByIdIn(bookings.stream().map(Booking::getId).toList())
+                .stream()
+                .collect(Collectors.toMap(Booking::getId, Function.identity()));
+        return new CursorPageResult<>(
+                bookings.stream()
+                        .map(booking -> bookingMapper.toResponseDto(withDetails.get(booking.getId())))
+                        .collect(Collectors.toList()),
+                nextCursor,
+                size,
+                hasNext
+        );
     }
 
     @Override
-    public List<BookingData> getByMember(String memberName) {
-        return null;
+    @Transactional(readOnly = true)
+    public CursorPageResult<BookingResponseDto> getByMember(String memberName, String after, int size) {
+        return getByMemberAndDate(memberName, null, null, after, size);
     }
 
     @Override
+    @Transactional
     public void deleteBooking(BookingDto member) {
-
+        if (member.getId() == null) {
+            throw WebErrorEnum.INVALID_ARG.exception("id");
+        }
+        Booking booking = bookingDao.findForUpdateById(member.getId())
+                .orElseThrow(() -> WebErrorEnum.BOOKING_NOT_FOUND.exception(member.getId()));
+        Map<BookingMonthlyCount.Key, Long> quantities = new HashMap<>();
+        rollUp(quantities, booking, -1);
+        bookingDao.deleteDetailsByBookingId(booking.getId());
+        bookingDao.delete(booking);
+        bookingMonthlyCountDao.addQuantities(quantities);
+        log.info("Deleted booking {}", booking.getId());
     }
 
     @Override
-    public List<CountBookingReturnData> countBooking(Integer date, Integer maxPrice) {
-        return null;
+    @Transactional(readOnly = true)
+    public List<CountBookingReturnData> countBooking(Integer year, Integer month, Integer maxPrice) {
+        validateMonth(month);
+        if (year != null && (year < 1 || year > 9999)) {
+            throw WebErrorEnum.INVALID_ARG.exception("year");
+        }
+        if (year == null) {
+            return bookingMonthlyCountDao.countByProduct(0, LAST_MONTH, month, maxPrice);
+        }
+        // A year, or a month of a year, is a range of the primary key
+        int firstMonth = year * 100 + (month == null ? 1 : month);
+        int lastMonth = year * 100 + (month == null ? 12 : month);
+        return bookingMonthlyCountDao.countByProduct(firstMonth, lastMonth, null, maxPrice);
+    }
+
+    private static void validate(BookingDto bookingDto) {
+        if (!StringUtils.hasText(bookingDto.getMemberName())) {
+            throw WebErrorEnum.INVALID_ARG.exception("memberName");
+        }
+        List<BookingDetailDto> detailDtos = bookingDto.getBookingDetailDtoList();
+        if (detailDtos == null || detailDtos.isEmpty()) {
+            throw WebErrorEnum.INVALID_ARG.exception("bookingDetailDtoList");
+        }
+        for (BookingDetailDto detailDto : detailDtos) {
+            if (!StringUtils.hasText(detailDto.getProductName())) {
+                throw WebErrorEnum.INVALID_ARG.exception("productName");
+            }
+            if (detailDto.getCount() == null || detailDto.getCount() <= 0) {
+                throw WebErrorEnum.INVALID_ARG.exception("count");
+            }
+        }
+    }
+
+    /**
+     * SHA-256 of the fields a create books from: the requested time and the
+     * details, in a canonical order so a retry that lists them differently matches
+     */
+    static String fingerprint(BookingDto bookingDto) {
+        StringBuilder canonical = new StringBuilder()
+                .append(bookingDto.getDate() != null ? bookingDto.getDate().getTime() : "-");
+        bookingDto.getBookingDetailDtoList().stream()
+                .map(detail -> detail.getProductName() + '\u0000' + detail.getCount() + '\u0000' + detail.getPriority())
+                .sorted()
+                .forEach(detail -> canonical.append('\n').append(detail));
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256")
+                    .digest(canonical.toString().getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    private static void validateMonth(Integer month) {
+        if (month != null && (month < 1 || month > 12)) {
+            throw WebErrorEnum.INVALID_ARG.exception("month");
+        }
+    }
+
+    /**
+     * Add the booked quantities of a booking, times sign, to the monthly deltas
+     */
+    private void rollUp(Map<BookingMonthlyCount.Key, Long> quantities, Booking booking, int sign) {
+        if (booking.getDate() == null || booking.getBookingDetails() == null) {
+            return;
+        }
+        int month = BookingMonthlyCount.monthOf(booking.getDate(), bookingZone);
+        for (BookingDetail detail : booking.getBookingDetails()) {
+            if (detail.getCount() != null) {
+                quantities.merge(new BookingMonthlyCount.Key(month, detail.getProduct().getId()),
+                        (long) sign * detail.getCount(), Long::sum);
+            }
+        }
+    }
+
+    /**
+     * Load every booked product with one IN query; all of them must exist and be active
+     */
+    private Map<String, Product> findBookableProducts(List<BookingDetailDto> detailDtos, int errorCode) {
+        Set<String> names = detailDtos.stream()
+                .map(BookingDetailDto::getProductName)
+                .collect(Collectors.toSet());
+        Map<String, Product> products = productService.list(List.copyOf(names))
+                .stream()
+                .filter(product -> Boolean.TRUE.equals(product.getAlive()))
+                .collect(Collectors.toMap(Product::getName, Function.identity(), (existing, replacement) -> existing));
+        if (products.size() < names.size()) {
+            Set<String> missing = new TreeSet<>(names);
+            missing.removeAll(products.keySet());
+            throw new WebException(errorCode, "Products not found or inactive: " + missing);
+        }
+        return products;
     }
-}
\ No newline at end of file
+}
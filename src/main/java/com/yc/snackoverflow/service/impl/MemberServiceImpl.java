@@ -8,6 +8,7 @@ import com.yc.snackoverflow.enums.VipEnum;
 import com.yc.snackoverflow.exception.WebErrorEnum;
 import com.yc.snackoverflow.model.Member;
 import com.yc.snackoverflow.reposity.MemberDao;
+import com.yc.snackoverflow.search.UniqueNameFilter;
 import com.yc.snackoverflow.service.MemberService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -29,6 +30,8 @@ public class MemberServiceImpl implements MemberService {
 
     private final PasswordEncoder passwordEncoder;
 
+    private final UniqueNameFilter uniqueNameFilter;
+
     @Override
     @Transactional
     public UpsertStatusEnum createOrUpdate(MemberDto memberDto) {
@@ -57,6 +60,7 @@ public class MemberServiceImpl implements MemberService {
                 });
 
         memberDao.save(memberToSave);
+        uniqueNameFilter.addMember(memberToSave);
 
         return UpsertStatusEnum.CREATE_OR_NO_CHANGE;
 
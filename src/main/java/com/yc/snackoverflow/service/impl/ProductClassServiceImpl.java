@@ -1,12 +1,14 @@
 package com.yc.snackoverflow.service.impl;
 
 import com.yc.snackoverflow.data.ProductClassDto;
+import com.yc.snackoverflow.event.ProductClassChangedEvent;
 import com.yc.snackoverflow.exception.WebErrorEnum;
 import com.yc.snackoverflow.model.ProductClass;
 import com.yc.snackoverflow.repository.ProductClassDao;
 import com.yc.snackoverflow.service.ProductClassService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -20,10 +22,14 @@ public class ProductClassServiceImpl implements ProductClassService {
 
     private final ProductClassDao productClassDao;
 
+    private final ApplicationEventPublisher eventPublisher;
+
     @Override
+    @Transactional
     public void create(List<String> nameList) {
         ensureNoExistingProductClasses(nameList);
         save(nameList);
+        eventPublisher.publishEvent(new ProductClassChangedEvent(nameList));
     }
 
     @Override
@@ -54,6 +60,7 @@ public class ProductClassServiceImpl implements ProductClassService {
     }
 
     @Override
+    @Transactional
     public void updateAlive(List<ProductClassDto> nameList) {
         List<ProductClass> productClasses = productClassDao.list(nameList.stream()
                 .map(ProductClassDto::getName)
@@ -69,6 +76,9 @@ public class ProductClassServiceImpl implements ProductClassService {
                     .orElseThrow(WebErrorEnum.PRODUCT_CLASS_NOT_FOUND::exception));
             productClassDao.save(productClass);
         }
+        eventPublisher.publishEvent(new ProductClassChangedEvent(productClasses.stream()
+                .map(ProductClass::getName)
+                .toList()));
     }
 
     private void ensureNoExistingProductClasses(List<String> nameList) {
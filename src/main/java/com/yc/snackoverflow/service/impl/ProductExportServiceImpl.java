@@ -0,0 +1,109 @@
+package com.yc.snackoverflow.service.impl;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.dataformat.csv.CsvMapper;
+import com.fasterxml.jackson.dataformat.csv.CsvSchema;
+import com.yc.snackoverflow.dto.response.ProductResponseDto;
+import com.yc.snackoverflow.mapper.ProductMapper;
+import com.yc.snackoverflow.model.Product;
+import com.yc.snackoverflow.repository.ProductDao;
+import com.yc.snackoverflow.service.ProductExportService;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * Implementation of the ProductExportService interface
+ *
+ * Both methods hold a read-only transaction open while the cursor is consumed
+ * and clear the persistence context every clear-interval rows, so neither the
+ * loaded entities nor the serialized output accumulate in memory.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ProductExportServiceImpl implements ProductExportService {
+
+    private static final ObjectWriter CSV_WRITER;
+
+    static {
+        CsvMapper csvMapper = new CsvMapper();
+        csvMapper.findAndRegisterModules();
+        csvMapper.disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        CsvSchema schema = csvMapper.schemaFor(ProductResponseDto.class)
+                .sortedBy("id", "name", "price", "picture", "alive",
+                        "productClassId", "productClassName", "createdAt", "updatedAt")
+                .withHeader();
+        CSV_WRITER = csvMapper.writer(schema)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+    }
+
+    private final ProductDao productDao;
+    private final ProductMapper productMapper;
+    private final ObjectMapper objectMapper;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Value("${app.product.export.clear-interval:1000}")
+    private int clearInterval;
+
+    @Override
+    @Transactional(readOnly = true)
+    public void exportNdjson(OutputStream output) throws IOException {
+        // Same serialization as the JSON API, but flushed per block of rows instead of per row
+        ObjectWriter writer = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(output);
+             Stream<Product> products = productDao.streamByAliveTrue()) {
+            generator.setRootValueSeparator(null);
+            long count = 0;
+            for (Iterator<Product> iterator = products.iterator(); iterator.hasNext(); ) {
+                writer.writeValue(generator, productMapper.toResponseDto(iterator.next()));
+                generator.writeRaw('\n');
+                count = afterRow(count, generator);
+            }
+            log.info("Exported {} products as NDJSON", count);
+        }
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public void exportCsv(OutputStream output) throws IOException {
+        try (SequenceWriter writer = CSV_WRITER.writeValues(output);
+             Stream<Product> products = productDao.streamByAliveTrue()) {
+            long count = 0;
+            for (Iterator<Product> iterator = products.iterator(); iterator.hasNext(); ) {
+                writer.write(productMapper.toResponseDto(iterator.next()));
+                count = afterRow(count, writer);
+            }
+            log.info("Exported {} products as CSV", count);
+        }
+    }
+
+    /**
+     * Count a written row and periodically push the output to the client and
+     * detach the products read so far
+     */
+    private long afterRow(long count, Flushable output) throws IOException {
+        count++;
+        if (count % clearInterval == 0) {
+            output.flush();
+            entityManager.clear();
+        }
+        return count;
+    }
+}
@@ -0,0 +1,229 @@
+package com.yc.snackoverflow.service.impl;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.dataformat.csv.CsvMapper;
+import com.fasterxml.jackson.dataformat.csv.CsvParser;
+import com.fasterxml.jackson.dataformat.csv.CsvSchema;
+import com.yc.snackoverflow.dto.request.ProductCreateRequestDto;
+import com.yc.snackoverflow.dto.response.ProductImportChunkReport;
+import com.yc.snackoverflow.dto.response.ProductImportReport;
+import com.yc.snackoverflow.exception.WebErrorEnum;
+import com.yc.snackoverflow.model.ProductClass;
+import com.yc.snackoverflow.repository.ProductClassDao;
+import com.yc.snackoverflow.service.ProductImportService;
+import com.yc.snackoverflow.service.ProductService;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Implementation of the ProductImportService interface
+ *
+ * Each chunk is handed to ProductService.createProducts, which runs in its own
+ * transaction, so committed chunks stay committed when a later chunk fails.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ProductImportServiceImpl implements ProductImportService {
+
+    private static final ObjectReader CSV_READER = new CsvMapper()
+            .enable(CsvParser.Feature.EMPTY_STRING_AS_NULL)
+            .readerFor(ProductCreateRequestDto.class)
+            .with(CsvSchema.emptySchema().withHeader())
+            .without(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+
+    private final ProductService productService;
+    private final ProductClassDao productClassDao;
+    private final ObjectMapper objectMapper;
+    private final Validator validator;
+
+    @Value("${app.product.import.chunk-size:500}")
+    private int defaultChunkSize;
+
+    @Value("${app.product.import.max-errors-per-chunk:50}")
+    private int maxErrorsPerChunk;
+
+    @Override
+    public ProductImportReport importNdjson(InputStream input, Integer chunkSize) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+        ObjectReader rowReader = objectMapper.readerFor(ProductCreateRequestDto.class);
+        long[] lineNumber = {0};
+
+        // Parse line by line, so a malformed line cannot desynchronize the lines after it
+        return importRows(() -> {
+            String line;
+            do {
+                line = reader.readLine();
+                lineNumber[0]++;
+            } while (line != null && line.isBlank());
+            if (line == null) {
+                return null;
+            }
+            try {
+                return new ImportRow(lineNumber[0], rowReader.readValue(line), null);
+            } catch (JsonProcessingException e) {
+                return new ImportRow(lineNumber[0], null, e.getOriginalMessage());
+            }
+        }, chunkSize);
+    }
+
+    @Override
+    public ProductImportReport importCsv(InputStream input, Integer chunkSize) throws IOException {
+        MappingIterator<ProductCreateRequestDto> rows = CSV_READER.readValues(input);
+
+        // After a row fails to map, the iterator skips to the next record
+        return importRows(() -> {
+            if (!rows.hasNextValue()) {
+                return null;
+            }
+            long line = rows.getCurrentLocation().getLineNr();
+            try {
+                return new ImportRow(line, rows.nextValue(), null);
+            } catch (JsonProcessingException e) {
+                return new ImportRow(line, null, e.getOriginalMessage());
+            }
+        }, chunkSize);
+    }
+
+    private ProductImportReport importRows(RowSource source, Integer chunkSize) throws IOException {
+        int size = chunkSize != null ? chunkSize : defaultChunkSize;
+        if (size < 1) {
+            throw WebErrorEnum.INVALID_ARG.exception("chunkSize");
+        }
+
+        List<ProductImportChunkReport> chunks = new ArrayList<>();
+        List<ImportRow> rows = new ArrayList<>(size);
+        ImportRow row;
+        while ((row = source.next()) != null) {
+            rows.add(row);
+            if (rows.size() == size) {
+                chunks.add(commitChunk(chunks.size() + 1, rows));
+                rows.clear();
+            }
+        }
+        if (!rows.isEmpty()) {
+            chunks.add(commitChunk(chunks.size() + 1, rows));
+        }
+
+        ProductImportReport report = ProductImportReport.builder()
+                .created(chunks.stream().mapToLong(ProductImportChunkReport::getCreated).sum())
+                .skipped(chunks.stream().mapToLong(ProductImportChunkReport::getSkipped).sum())
+                .failed(chunks.stream().mapToLong(ProductImportChunkReport::getFailed).sum())
+                .chunks(chunks)
+                .build();
+        report.setTotalRows(report.getCreated() + report.getSkipped() + report.getFailed());
+        log.info("Imported {} product rows in {} chunks: {} created, {} skipped, {} failed",
+                report.getTotalRows(), chunks.size(), report.getCreated(), report.getSkipped(), report.getFailed());
+        return report;
+    }
+
+    /**
+     * Validate the rows of one chunk and create the valid ones in one transaction
+     */
+    private ProductImportChunkReport commitChunk(int chunk, List<ImportRow> rows) {
+        List<String> errors = new ArrayList<>();
+        int failed = 0;
+
+        List<ImportRow> validRows = new ArrayList<>(rows.size());
+        for (ImportRow row : rows) {
+            String error = row.error() != null ? row.error() : violations(row.dto());
+            if (error == null) {
+                validRows.add(row);
+            } else {
+                failed++;
+                addError(errors, row.line(), error);
+            }
+        }
+
+        // An unknown product class would roll back the whole chunk, so reject those rows up front
+        Set<Long> classIds = validRows.stream()
+                .map(row -> row.dto().getProductClassId())
+                .collect(Collectors.toSet());
+        Set<Long> knownClassIds = productClassDao.findAllById(classIds).stream()
+                .map(ProductClass::getId)
+                .collect(Collectors.toSet());
+        List<ProductCreateRequestDto> dtos = new ArrayList<>(validRows.size());
+        for (ImportRow row : validRows) {
+            if (knownClassIds.contains(row.dto().getProductClassId())) {
+                dtos.add(row.dto());
+            } else {
+                failed++;
+                addError(errors, row.line(), "Product class not found: " + row.dto().getProductClassId());
+            }
+        }
+
+        int created = 0;
+        int skipped = 0;
+        if (!dtos.isEmpty()) {
+            try {
+                created = productService.createProducts(dtos).size();
+                skipped = dtos.size() - created;
+            } catch (RuntimeException e) {
+                log.warn("Product import chunk {} rolled back: {}", chunk, e.getMessage());
+                failed += dtos.size();
+                addError(errors, rows.get(0).line(), "Chunk rolled back: " + e.getMessage());
+            }
+        }
+
+        log.debug("Product import chunk {}: {} created, {} skipped, {} failed", chunk, created, skipped, failed);
+        return ProductImportChunkReport.builder()
+                .chunk(chunk)
+                .firstLine(rows.get(0).line())
+                .lastLine(rows.get(rows.size() - 1).line())
+                .created(created)
+                .skipped(skipped)
+                .failed(failed)
+                .errors(errors)
+                .build();
+    }
+
+    private String violations(ProductCreateRequestDto dto) {
+        Set<ConstraintViolation<ProductCreateRequestDto>> violations = validator.validate(dto);
+        if (violations.isEmpty()) {
+            return null;
+        }
+        return violations.stream()
+                .map(ConstraintViolation::getMessage)
+                .sorted()
+                .collect(Collectors.joining("; "));
+    }
+
+    private void addError(List<String> errors, long line, String message) {
+        if (errors.size() < maxErrorsPerChunk) {
+            errors.add("Line " + line + ": " + message);
+        }
+    }
+
+    /**
+     * One parsed input row; dto is null when the row could not be parsed
+     */
+    private record ImportRow(long line, ProductCreateRequestDto dto, String error) {
+    }
+
+    /**
+     * Pull-based source of parsed rows, returning null at the end of the input
+     */
+    @FunctionalInterface
+    private interface RowSource {
+
+        ImportRow next() throws IOException;
+    }
+}
@@ -1,83 +1,434 @@
 package com.yc.snackoverflow.service.impl;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.CacheLoader;
+import com.yc.snackoverflow.cache.CatalogSnapshot;
+import com.yc.snackoverflow.cache.ProductCatalog;
+import com.yc.snackoverflow.cache.ProductPageKey;
+import com.yc.snackoverflow.constant.CacheNames;
 import com.yc.snackoverflow.constant.ErrorCode;
 import com.yc.snackoverflow.dto.request.ProductCreateRequestDto;
+import com.yc.snackoverflow.dto.request.ProductSearchRequestDto;
 import com.yc.snackoverflow.dto.request.ProductUpdateRequestDto;
 import com.yc.snackoverflow.dto.response.ProductResponseDto;
+import com.yc.snackoverflow.dto.response.ProductSearchResult;
+import com.yc.snackoverflow.enums.ProductSortEnum;
+import com.yc.snackoverflow.enums.UpsertStatusEnum;
+import com.yc.snackoverflow.event.ProductChangedEvent;
+import com.yc.snackoverflow.event.ProductState;
 import com.yc.snackoverflow.exception.WebErrorEnum;
+import com.yc.snackoverflow.handler.CursorPageResult;
 import com.yc.snackoverflow.exception.WebException;
 import com.yc.snackoverflow.mapper.ProductMapper;
 import com.yc.snackoverflow.model.Product;
 import com.yc.snackoverflow.model.ProductClass;
 import com.yc.snackoverflow.repository.ProductClassDao;
+import com.yc.snackoverflow.repository.ProductCursor;
 import com.yc.snackoverflow.repository.ProductDao;
+import com.yc.snackoverflow.repository.ProductSpecifications;
+import com.yc.snackoverflow.search.NameCollation;
+import com.yc.snackoverflow.search.ProductNameIndex;
+import com.yc.snackoverflow.search.UniqueNameFilter;
 import com.yc.snackoverflow.service.ProductService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.StringUtils;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 /**
  * Implementation of the ProductService interface
+ *
+ * The cached reads use {@code @Cacheable(sync = true)}, so concurrent misses on
+ * one key run a single load. The class also reloads product and page cache entries
+ * for refresh-ahead.
  */
 @Slf4j
 @Service
 @RequiredArgsConstructor
-public class ProductServiceImpl implements ProductService {
+public class ProductServiceImpl implements ProductService, CacheLoader<Object, Object> {
 
     private final ProductDao productDao;
     private final ProductClassDao productClassDao;
     private final ProductMapper productMapper;
+    private final ProductNameIndex productNameIndex;
+    private final UniqueNameFilter uniqueNameFilter;
+    private final ProductCatalog productCatalog;
+    private final ApplicationEventPublisher eventPublisher;
+    private final CacheManager cacheManager;
+
+    @Value("${app.product.upsert-chunk-size:500}")
+    private int upsertChunkSize;
+
+    @Value("${app.product.multi-get-max-ids:100}")
+    private int multiGetMaxIds;
 
     @Override
-    @Cacheable(value = "products", key = "'page:' + #name + ':' + #classId + ':' + #pageable.pageNumber + ':' + #pageable.pageSize")
+    @Cacheable(value = CacheNames.PRODUCT_PAGES, key = "T(com.yc.snackoverflow.cache.ProductPageKey).of(#name, #classId, #pageable)", sync = true)
     public Page<ProductResponseDto> findProducts(String name, Long classId, Pageable pageable) {
-        Page<Product> productPage;
+        CatalogSnapshot catalog = productCatalog.snapshot();
+        if (catalog != null && CatalogSnapshot.canSort(pageable.getSort()) && canFilterByName(name)) {
+            // Answered from the in-memory catalog, with the name filter from the name index
+            return catalog.findPage(nameMatches(name, classId), classId, pageable);
+        }
 
-        if (StringUtils.hasText(name) && classId != null) {
+        // Read-only listing: the queries build the response DTOs directly
+        if (StringUtils.hasText(name) && productNameIndex.isReady()) {
+            // Name filter answered by the in-memory name index
+            return findByIndexedName(name, classId, pageable);
+        } else if (StringUtils.hasText(name) && classId != null) {
             // Both name and classId are provided
-            productPage = productDao.findByNameContainingAndProductClassIdAndAliveTrue(name, classId, pageable);
+            return productDao.findResponsesByNameContainingAndProductClassIdAndAliveTrue(name, classId, pageable);
         } else if (StringUtils.hasText(name)) {
             // Only name is provided
-            productPage = productDao.findByNameContainingAndAliveTrue(name, pageable);
+            return productDao.findResponsesByNameContainingAndAliveTrue(name, pageable);
         } else if (classId != null) {
             // Only classId is provided
-            productPage = productDao.findByProductClassIdAndAliveTrue(classId, pageable);
+            return productDao.findResponsesByProductClassIdAndAliveTrue(classId, pageable);
         } else {
             // No filters
-            productPage = productDao.findByAliveTrue(pageable);
+            return productDao.findResponsesByAliveTrue(pageable);
+        }
+    }
+
+    @Override
+    @Cacheable(value = CacheNames.PRODUCT_PAGES, key = "T(com.yc.snackoverflow.cache.ProductPageKey).ofSlice(#name, #classId, #pageable)", sync = true)
+    public Slice<ProductResponseDto> findProductSlice(String name, Long classId, Pageable pageable) {
+        CatalogSnapshot catalog = productCatalog.snapshot();
+        if (catalog != null && CatalogSnapshot.canSort(pageable.getSort()) && canFilterByName(name)) {
+            return catalog.findSlice(nameMatches(name, classId), classId, pageable);
+        }
+        if (StringUtils.hasText(name) && productNameIndex.isReady()) {
+            return findByIndexedName(name, classId, pageable);
+        }
+
+        Slice<Product> productSlice;
+        if (StringUtils.hasText(name) && classId != null) {
+            productSlice = productDao.findSliceByNameContainingAndProductClassIdAndAliveTrue(name, classId, pageable);
+        } else if (StringUtils.hasText(name)) {
+            productSlice = productDao.findSliceByNameContainingAndAliveTrue(name, pageable);
+        } else if (classId != null) {
+            productSlice = productDao.findSliceByProductClassIdAndAliveTrue(classId, pageable);
+        } else {
+            productSlice = productDao.findSliceByAliveTrue(pageable);
         }
 
-        return productPage.map(productMapper::toResponseDto);
+        return productSlice.map(productMapper::toResponseDto);
     }
 
     @Override
-    @Cacheable(value = "products", key = "#id")
+    @Cacheable(value = CacheNames.PRODUCT_COUNTS, key = "#name + ':' + #classId", sync = true)
+    public long estimateProductCount(String name, Long classId) {
+        CatalogSnapshot catalog = productCatalog.snapshot();
+        if (catalog != null && canFilterByName(name)) {
+            return catalog.count(nameMatches(name, classId), classId);
+        }
+        if (StringUtils.hasText(name) && productNameIndex.isReady()) {
+            return productNameIndex.search(name, classId).length;
+        }
+        return productDao.count(ProductSpecifications.listing(name, classId));
+    }
+
+    /**
+     * Whether the name filter, if any, can be answered by the name index
+     */
+    private boolean canFilterByName(String name) {
+        return !StringUtils.hasText(name) || productNameIndex.isReady();
+    }
+
+    /**
+     * Ids matching the name filter from the name index, or null without a name filter
+     */
+    private long[] nameMatches(String name, Long classId) {
+        return StringUtils.hasText(name) ? productNameIndex.search(name, classId) : null;
+    }
+
+    /**
+     * Answer a name filter from the in-memory name index and load only the matching rows
+     */
+    private Page<ProductResponseDto> findByIndexedName(String name, Long classId, Pageable pageable) {
+        long[] ids = productNameIndex.search(name, classId);
+        if (ids.length == 0) {
+            return Page.empty(pageable);
+        }
+
+        Sort sort = pageable.getSort();
+        Sort.Order idOrder = sort.getOrderFor("id");
+        if (sort.isSorted() && (idOrder == null || sort.stream().count() > 1)) {
+            // Sorted by another column: let the database order the matching rows by primary key lookups
+            return productDao.findResponsesByIdInAndAliveTrue(Arrays.stream(ids).boxed().toList(), pageable);
+        }
+
+        // Sorted by id: the index already holds the order, so page in memory and load one page of rows
+        boolean descending = idOrder != null && idOrder.isDescending();
+        int from = (int) Math.min(pageable.getOffset(), ids.length);
+        int to = Math.min(from + pageable.getPageSize(), ids.length);
+        List<Long> pageIds = new ArrayList<>(to - from);
+        for (int i = from; i < to; i++) {
+            pageIds.add(descending ? ids[ids.length - 1 - i] : ids[i]);
+        }
+        Map<Long, ProductResponseDto> productsById = productDao.findResponsesByIdInAndAliveTrue(pageIds).stream()
+                .collect(Collectors.toMap(ProductResponseDto::getId, Function.identity()));
+        List<ProductResponseDto> products = pageIds.stream()
+                .map(productsById::get)
+                .filter(Objects::nonNull)
+                .toList();
+        return new PageImpl<>(products, pageable, ids.length);
+    }
+
+    @Override
+    public ProductSearchResult searchProducts(ProductSearchRequestDto criteria, Pageable pageable) {
+        if (criteria.getMinPrice() != null && criteria.getMaxPrice() != null
+                && criteria.getMinPrice() > criteria.getMaxPrice()) {
+            throw WebErrorEnum.INVALID_ARG.exception("price");
+        }
+        if (criteria.getCreatedFrom() != null && criteria.getCreatedTo() != null
+                && !criteria.getCreatedFrom().isBefore(criteria.getCreatedTo())) {
+            throw WebErrorEnum.INVALID_ARG.exception("createdAt");
+        }
+        for (Sort.Order order : pageable.getSort()) {
+            if (ProductSortEnum.lookup(order.getProperty()).isEmpty()) {
+                throw WebErrorEnum.INVALID_ARG.exception("sort");
+            }
+        }
+
+        // id as the last sort key keeps the pages stable and matches the trailing id of the indexes
+        Sort sort = pageable.getSort();
+        if (sort.getOrderFor("id") == null) {
+            Sort.Direction direction = sort.stream().findFirst().map(Sort.Order::getDirection).orElse(Sort.Direction.DESC);
+            sort = sort.and(Sort.by(direction, "id"));
+        }
+        Page<ProductResponseDto> page = productDao.findPage(ProductSpecifications.search(criteria),
+                        PageRequest.of(pageable.getPageNumber(), pageable.getPageSize(), sort))
+                .map(productMapper::toResponseDto);
+        return new ProductSearchResult(page, searchPlan(criteria, sort));
+    }
+
+    /**
+     * Describe how the search can run on the composite indexes listed in
+     * {@link ProductSortEnum}: the index whose leading columns the criteria bind,
+     * the criteria left to row checks, and whether the matching rows need sorting.
+     * A range on the sort key is read from that key's index in order; a range on
+     * another column is read from its own index and then sorted. MySQL's optimizer
+     * makes the final choice; this is the plan the predicates and indexes are laid
+     * out for.
+     */
+    static String searchPlan(ProductSearchRequestDto criteria, Sort sort) {
+        Set<Long> classIds = criteria.getClassIds() == null ? Set.of() : criteria.getClassIds();
+        boolean priceRange = criteria.getMinPrice() != null || criteria.getMaxPrice() != null;
+        boolean createdRange = criteria.getCreatedFrom() != null || criteria.getCreatedTo() != null;
+        ProductSortEnum sortedBy = ProductSortEnum.lookup(sort.iterator().next().getProperty())
+                .orElse(ProductSortEnum.ID);
+
+        String index;
+        boolean sorted;
+        // Criteria bound by the index, so not checked row by row
+        Set<String> bound = new HashSet<>();
+        if (criteria.getAlive() == null) {
+            // Every composite index leads with alive
+            index = classIds.isEmpty() ? "PRIMARY" : "idx_product_class";
+            // A secondary index stores its rows in primary key order within each key
+            sorted = sortedBy == ProductSortEnum.ID && classIds.size() <= 1;
+            if (!classIds.isEmpty()) {
+                bound.add("classIds");
+            }
+        } else {
+            boolean sortKeyRange = (sortedBy == ProductSortEnum.PRICE && priceRange)
+                    || (sortedBy == ProductSortEnum.CREATED_AT && createdRange);
+            ProductSortEnum key = sortKeyRange || !(priceRange || createdRange)
+                    ? sortedBy
+                    : priceRange ? ProductSortEnum.PRICE : ProductSortEnum.CREATED_AT;
+            index = classIds.isEmpty() ? key.getIndex() : key.getClassIndex();
+            // Several classes are several ranges, each in key order, so they need merging
+            sorted = key == sortedBy && classIds.size() <= 1;
+            if (!"PRIMARY".equals(index)) {
+                bound.add("alive");
+            }
+            if (!classIds.isEmpty()) {
+                bound.add("classIds");
+            }
+            if (key == ProductSortEnum.PRICE) {
+                bound.add("price");
+            } else if (key == ProductSortEnum.CREATED_AT) {
+                bound.add("createdAt");
+            }
+        }
+
+        List<String> filters = new ArrayList<>();
+        if (criteria.getAlive() != null && !bound.contains("alive")) {
+            filters.add("alive");
+        }
+        if (!classIds.isEmpty() && !bound.contains("classIds")) {
+            filters.add("classIds");
+        }
+        if (priceRange && !bound.contains("price")) {
+            filters.add("price");
+        }
+        if (createdRange && !bound.contains("createdAt")) {
+            filters.add("createdAt");
+        }
+        if (StringUtils.hasText(criteria.getName())) {
+            filters.add("name");
+        }
+        return "index=" + index
+                + "; filter=" + (filters.isEmpty() ? "none" : String.join(",", filters))
+                + "; filesort=" + (sorted ? "no" : "yes");
+    }
+
+    @Override
+    public CursorPageResult<ProductResponseDto> findProductsAfter(String name, Long classId, String after, int size, Sort sort) {
+        if (size < 1) {
+            throw WebErrorEnum.INVALID_ARG.exception("size");
+        }
+        ProductCursor cursor = StringUtils.hasText(after) ? ProductCursor.decode(after) : null;
+        Sort.Order order = cursor != null
+                ? cursor.order()
+                : sort.stream().findFirst().orElse(Sort.Order.desc("id"));
+        if (!ProductCursor.SORT_FIELDS.contains(order.getProperty())) {
+            throw WebErrorEnum.INVALID_ARG.exception("sort");
+        }
+
+        // Fetch one extra row to learn whether another page follows
+        List<Product> products = productDao.findAfter(
+                ProductSpecifications.listing(name, classId), order, cursor, size + 1);
+        boolean hasNext = products.size() > size;
+        if (hasNext) {
+            products = products.subList(0, size);
+        }
+        String nextCursor = hasNext
+                ? ProductCursor.after(order, products.get(products.size() - 1)).encode()
+                : null;
+
+        return new CursorPageResult<>(
+                products.stream().map(productMapper::toResponseDto).collect(Collectors.toList()),
+                nextCursor,
+                size,
+                hasNext
+        );
+    }
+
+    @Override
+    @Cacheable(value = CacheNames.PRODUCTS, key = "#id", sync = true)
     public ProductResponseDto findById(Long id) {
+        CatalogSnapshot catalog = productCatalog.snapshot();
+        ProductResponseDto cataloged = catalog != null ? catalog.get(id) : null;
+        if (cataloged != null) {
+            return cataloged;
+        }
         Product product = productDao.findById(id)
                 .orElseThrow(() -> new WebException(WebErrorEnum.PRODUCT_NOT_FOUND));
         return productMapper.toResponseDto(product);
     }
 
+    @Override
+    public List<ProductResponseDto> findByIds(List<Long> ids) {
+        Set<Long> distinctIds = new LinkedHashSet<>(ids);
+        distinctIds.remove(null);
+        if (distinctIds.size() > multiGetMaxIds) {
+            throw WebErrorEnum.INVALID_ARG.exception("ids");
+        }
+
+        // One bulk lookup in the product cache; all misses are loaded together and cached
+        Map<Object, Object> products;
+        org.springframework.cache.Cache productCache = cacheManager.getCache(CacheNames.PRODUCTS);
+        if (productCache instanceof CaffeineCache caffeineCache) {
+            Cache<Object, Object> cache = caffeineCache.getNativeCache();
+            products = cache.getAll(distinctIds, this::loadByIds);
+        } else {
+            products = loadByIds(distinctIds);
+        }
+
+        // One entry per requested id, so a product listed twice (two cart lines) comes back twice
+        return ids.stream()
+                .filter(Objects::nonNull)
+                .map(id -> (ProductResponseDto) products.get(id))
+                .filter(Objects::nonNull)
+                .toList();
+    }
+
+    /**
+     * Load products missing from the cache: from the catalog snapshot, then the rest
+     * with one select that fetches their classes
+     */
+    private Map<Object, Object> loadByIds(Collection<?> ids) {
+        CatalogSnapshot catalog = productCatalog.snapshot();
+        Map<Object, Object> loaded = new HashMap<>();
+        List<Long> remaining = new ArrayList<>();
+        for (Object key : ids) {
+            Long id = (Long) key;
+            ProductResponseDto cataloged = catalog != null ? catalog.get(id) : null;
+            if (cataloged != null) {
+                loaded.put(id, cataloged);
+            } else {
+                remaining.add(id);
+            }
+        }
+        if (!remaining.isEmpty()) {
+            for (Product product : productDao.findAllById(remaining)) {
+                loaded.put(product.getId(), productMapper.toResponseDto(product));
+            }
+        }
+        return loaded;
+    }
+
+    /**
+     * Reload an entry of the product caches for refresh-ahead
+     *
+     * Caffeine calls this in the background when a hot entry is read after its
+     * refresh interval. The calls below are self-invocations, so they bypass the
+     * caching proxy and recompute the value instead of returning the cached one.
+     *
+     * @param key Product ID or ProductPageKey
+     * @return Fresh value for the key
+     */
+    @Override
+    public Object load(Object key) {
+        if (key instanceof Long id) {
+            return findById(id);
+        }
+        if (key instanceof ProductPageKey pageKey) {
+            return pageKey.counted()
+                    ? findProducts(pageKey.name(), pageKey.classId(), pageKey.pageable())
+                    : findProductSlice(pageKey.name(), pageKey.classId(), pageKey.pageable());
+        }
+        throw new IllegalArgumentException("Not a product cache key: " + key);
+    }
+
     @Override
     @Transactional
-    @CacheEvict(value = "products", allEntries = true)
     public ProductResponseDto createProduct(ProductCreateRequestDto requestDto) {
         // Validate product class exists
         ProductClass productClass = productClassDao.findById(requestDto.getProductClassId())
                 .orElseThrow(() -> new WebException(WebErrorEnum.PRODUCT_CLASS_NOT_FOUND));
 
-        // Check if product name already exists
-        if (productDao.existsByName(requestDto.getName())) {
+        // Check if product name already exists; the filter rules out most new names without a query
+        if (uniqueNameFilter.mightHaveProductName(requestDto.getName())
+                && productDao.existsByName(requestDto.getName())) {
             throw new WebException(ErrorCode.PRODUCT_CREATE_FAILED, "Product with name '" + requestDto.getName() + "' already exists");
         }
 
@@ -91,6 +442,7 @@ public class ProductServiceImpl implements ProductService {
 
         // Save and return
         Product savedProduct = productDao.save(product);
+        eventPublisher.publishEvent(ProductChangedEvent.created(List.of(ProductState.of(savedProduct))));
         log.info("Created new product with ID: {}", savedProduct.getId());
 
         return productMapper.toResponseDto(savedProduct);
@@ -98,18 +450,36 @@ public class ProductServiceImpl implements ProductService {
 
     @Override
     @Transactional
-    @CacheEvict(value = "products", allEntries = true)
     public List<ProductResponseDto> createProducts(List<ProductCreateRequestDto> requestDtos) {
-        List<Product> products = new ArrayList<>();
+        // Validate all product classes with one IN query
+        Set<Long> classIds = requestDtos.stream()
+                .map(ProductCreateRequestDto::getProductClassId)
+                .collect(Collectors.toSet());
+        if (classIds.contains(null)) {
+            throw new WebException(WebErrorEnum.PRODUCT_CLASS_NOT_FOUND);
+        }
+        Map<Long, ProductClass> productClasses = productClassDao.findAllById(classIds).stream()
+                .collect(Collectors.toMap(ProductClass::getId, Function.identity()));
+        if (productClasses.size() != classIds.size()) {
+            throw new WebException(WebErrorEnum.PRODUCT_CLASS_NOT_FOUND);
+        }
 
-        for (ProductCreateRequestDto requestDto : requestDtos) {
-            // Validate product class exists
-            ProductClass productClass = productClassDao.findById(requestDto.getProductClassId())
-                    .orElseThrow(() -> new WebException(WebErrorEnum.PRODUCT_CLASS_NOT_FOUND));
+        // Look up the taken names with one IN query, limited to the names the filter cannot rule out
+        Set<String> candidateNames = requestDtos.stream()
+                .map(ProductCreateRequestDto::getName)
+                .filter(uniqueNameFilter::mightHaveProductName)
+                .collect(Collectors.toSet());
+        // Compared by collation key, as the unique key on the name column compares them
+        Set<String> takenNames = candidateNames.isEmpty()
+                ? new HashSet<>()
+                : productDao.findExistingNames(candidateNames).stream()
+                        .map(NameCollation::key)
+                        .collect(Collectors.toCollection(HashSet::new));
 
-            // Check if product name already exists
-            if (productDao.existsByName(requestDto.getName())) {
-                // Skip this product and log warning
+        List<Product> products = new ArrayList<>();
+        for (ProductCreateRequestDto requestDto : requestDtos) {
+            // Skip names that already exist or repeat earlier in the batch
+            if (!takenNames.add(NameCollation.key(requestDto.getName()))) {
                 log.warn("Product with name '{}' already exists, skipping", requestDto.getName());
                 continue;
             }
@@ -120,13 +490,16 @@ public class ProductServiceImpl implements ProductService {
             product.setPicture(requestDto.getPicture());
             product.setPrice(requestDto.getPrice());
             product.setAlive(true);
-            product.setProductClass(productClass);
+            product.setProductClass(productClasses.get(requestDto.getProductClassId()));
 
             products.add(product);
         }
 
-        // Save all and return
+        // Save all and return; pooled ids let the inserts go out as JDBC batches
         List<Product> savedProducts = productDao.saveAll(products);
+        eventPublisher.publishEvent(ProductChangedEvent.created(savedProducts.stream()
+                .map(ProductState::of)
+                .toList()));
         log.info("Created {} new products", savedProducts.size());
 
         return savedProducts.stream()
@@ -136,16 +509,17 @@ public class ProductServiceImpl implements ProductService {
 
     @Override
     @Transactional
-    @CacheEvict(value = "products", key = "#id")
     public ProductResponseDto updateProduct(Long id, ProductUpdateRequestDto requestDto) {
         // Find product
         Product product = productDao.findById(id)
                 .orElseThrow(() -> new WebException(WebErrorEnum.PRODUCT_NOT_FOUND));
+        ProductState before = ProductState.of(product);
 
         // Update fields if provided
         if (StringUtils.hasText(requestDto.getName()) && !product.getName().equals(requestDto.getName())) {
             // Check if new name already exists
-            if (productDao.existsByNameAndIdNot(requestDto.getName(), id)) {
+            if (uniqueNameFilter.mightHaveProductName(requestDto.getName())
+                    && productDao.existsByNameAndIdNot(requestDto.getName(), id)) {
                 throw new WebException(ErrorCode.PRODUCT_UPDATE_FAILED, "Product with name '" + requestDto.getName() + "' already exists");
             }
             product.setName(requestDto.getName());
@@ -169,8 +543,9 @@ public class ProductServiceImpl implements ProductService {
             product.setProductClass(productClass);
         }
 
-        // Save and return
-        Product updatedProduct = productDao.save(product);
+        // Save and flush, so the response carries the incremented version
+        Product updatedProduct = productDao.saveAndFlush(product);
+        eventPublisher.publishEvent(ProductChangedEvent.updated(before, ProductState.of(updatedProduct)));
         log.info("Updated product with ID: {}", updatedProduct.getId());
 
         return productMapper.toResponseDto(updatedProduct);
@@ -178,39 +553,39 @@ public class ProductServiceImpl implements ProductService {
 
     @Override
     @Transactional
-    @CacheEvict(value = "products", allEntries = true)
     public void deleteProduct(Long id) {
         // Find product
         Product product = productDao.findById(id)
                 .orElseThrow(() -> new WebException(WebErrorEnum.PRODUCT_NOT_FOUND));
 
         // Logical deletion
+        ProductState before = ProductState.of(product);
         product.setAlive(false);
         productDao.save(product);
+        eventPublisher.publishEvent(ProductChangedEvent.updated(before, ProductState.of(product)));
         log.info("Deleted product with ID: {}", id);
     }
 
     @Override
     public List<ProductResponseDto> findByNameList(List<String> productNameList) {
+        CatalogSnapshot catalog = productCatalog.snapshot();
         if (productNameList == null || productNameList.isEmpty()) {
-            return productDao.findByAliveTrue()
-                    .stream()
-                    .map(productMapper::toResponseDto)
-                    .collect(Collectors.toList());
+            return catalog != null ? catalog.findActive() : productDao.findResponsesByAliveTrue();
         }
 
-        List<Product> products = productDao.findByNameInAndAliveTrue(productNameList);
+        List<ProductResponseDto> products = catalog != null
+                ? catalog.findActiveByNames(productNameList)
+                : productDao.findResponsesByNameInAndAliveTrue(productNameList);
         if (products.isEmpty()) {
             throw new WebException(WebErrorEnum.PRODUCT_NOT_FOUND);
         }
 
-        return products.stream()
-                .map(productMapper::toResponseDto)
-                .collect(Collectors.toList());
+        return products;
     }
 
     @Override
     public List<Product> list(List<String> productNameList) {
+        // Callers attach the returned entities to bookings, so they must come from the persistence context
         List<Product> products = productDao.list(productNameList);
         if (products.isEmpty()) {
             throw new WebException(WebErrorEnum.PRODUCT_NOT_FOUND);
@@ -220,59 +595,129 @@ public class ProductServiceImpl implements ProductService {
 
     @Override
     @Transactional
-    @CacheEvict(value = "products", allEntries = true)
-    public void createOrUpdate(List<com.yc.snackoverflow.data.ProductDto> productDtos) {
+    public List<UpsertStatusEnum> createOrUpdate(List<com.yc.snackoverflow.data.ProductDto> productDtos) {
         if (productDtos == null || productDtos.isEmpty()) {
             log.warn("No products provided for create or update operation");
-            return;
-        }
-
-        for (com.yc.snackoverflow.data.ProductDto dto : productDtos) {
-            Product product;
-
-            // Check if product exists
-            boolean exists = productDao.existsByName(dto.getName());
-
-            if (exists) {
-                // Find the existing product
-                List<String> nameList = new ArrayList<>();
-                nameList.add(dto.getName());
-                List<Product> products = productDao.findByNameInAndAliveTrue(nameList);
-
-                if (products.isEmpty()) {
-                    // Product exists but is not active, create new one
-                    product = new Product();
-                    product.setName(dto.getName());
-                    product.setAlive(true);
-                    log.info("Creating new product with name: {}", dto.getName());
-                } else {
-                    // Update existing product
-                    product = products.get(0);
-                    log.info("Updating existing product with name: {}", dto.getName());
-                }
-            } else {
-                // Create new product
-                product = new Product();
-                product.setName(dto.getName());
-                product.setAlive(true);
-                log.info("Creating new product with name: {}", dto.getName());
-            }
+            return List.of();
+        }
 
-            // Update fields
-            product.setPrice(dto.getPrice());
+        // Load every referenced product class with one IN query
+        Set<Long> classIds = productDtos.stream()
+                .map(com.yc.snackoverflow.data.ProductDto::getProductClassId)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+        Map<Long, ProductClass> productClasses = productClassDao.findAllById(classIds).stream()
+                .collect(Collectors.toMap(ProductClass::getId, Function.identity()));
+
+        List<UpsertStatusEnum> statuses = new ArrayList<>(productDtos.size());
+        Map<String, ProductResponseDto> current = new HashMap<>();
+        List<ProductState> beforeStates = new ArrayList<>();
+        List<ProductState> afterStates = new ArrayList<>();
+        for (int from = 0; from < productDtos.size(); from += upsertChunkSize) {
+            List<com.yc.snackoverflow.data.ProductDto> chunk =
+                    productDtos.subList(from, Math.min(from + upsertChunkSize, productDtos.size()));
+            statuses.addAll(upsertChunk(chunk, productClasses, current, beforeStates, afterStates));
+        }
+        eventPublisher.publishEvent(new ProductChangedEvent(beforeStates, afterStates));
 
-            if (dto.getPicture() != null) {
-                product.setPicture(dto.getPicture());
-            }
+        log.info("Processed {} products for create or update", productDtos.size());
+        return statuses;
+    }
 
-            if (dto.getAlive() != null) {
-                product.setAlive(dto.getAlive());
+    /**
+     * Upsert one chunk with one lookup of the products by name and one
+     * INSERT ... ON DUPLICATE KEY UPDATE, skipping rows that would not change
+     *
+     * @param current Products by collation key of their name, active or not, including the rows
+     *                written earlier in this request
+     */
+    private List<UpsertStatusEnum> upsertChunk(List<com.yc.snackoverflow.data.ProductDto> chunk,
+                                               Map<Long, ProductClass> productClasses,
+                                               Map<String, ProductResponseDto> current,
+                                               List<ProductState> beforeStates,
+                                               List<ProductState> afterStates) {
+        // Names are keyed like the unique key compares them, so a case or accent variant
+        // of an existing name updates that product instead of colliding with it
+        List<String> unknownNames = chunk.stream()
+                .map(com.yc.snackoverflow.data.ProductDto::getName)
+                .filter(name -> !current.containsKey(NameCollation.key(name)))
+                .distinct()
+                .toList();
+        Set<String> newKeys = unknownNames.stream()
+                .map(NameCollation::key)
+                .collect(Collectors.toCollection(HashSet::new));
+        if (!unknownNames.isEmpty()) {
+            for (ProductResponseDto existing : productDao.findResponsesByNameIn(unknownNames)) {
+                String key = NameCollation.key(existing.getName());
+                current.putIfAbsent(key, existing);
+                newKeys.remove(key);
+            }
+        }
+        // Every name still unknown may become a new row, so reserve that many ids up front
+        long nextId = newKeys.isEmpty() ? 0 : productDao.reserveIds(newKeys.size());
+
+        List<UpsertStatusEnum> statuses = new ArrayList<>(chunk.size());
+        List<Product> rows = new ArrayList<>();
+        int expectedAffectedRows = 0;
+        for (com.yc.snackoverflow.data.ProductDto dto : chunk) {
+            ProductResponseDto before = current.get(NameCollation.key(dto.getName()));
+            Long classId = dto.getProductClassId() != null
+                    ? dto.getProductClassId()
+                    : before != null ? before.getProductClassId() : null;
+            String picture = dto.getPicture() != null
+                    ? dto.getPicture()
+                    : before != null ? before.getPicture() : null;
+            // Names are unique, so a name only an inactive product uses revives that product
+            boolean alive = !Boolean.FALSE.equals(dto.getAlive());
+
+            if (classId == null || picture == null || (dto.getProductClassId() != null && !productClasses.containsKey(classId))) {
+                // A new product needs a picture and an existing product class
+                log.warn("Cannot create or update product with name '{}': missing picture or unknown product class", dto.getName());
+                statuses.add(UpsertStatusEnum.ERROR);
+                continue;
+            }
+            if (before != null && before.getPrice() == dto.getPrice() && picture.equals(before.getPicture())
+                    && alive == before.getAlive() && classId.equals(before.getProductClassId())) {
+                statuses.add(UpsertStatusEnum.CREATE_OR_NO_CHANGE);
+                continue;
             }
 
-            // Save product
-            productDao.save(product);
+            Product product = new Product();
+            product.setId(before != null ? before.getId() : nextId++);
+            product.setName(dto.getName());
+            product.setPicture(picture);
+            product.setPrice(dto.getPrice());
+            product.setAlive(alive);
+            product.setProductClass(productClasses.containsKey(classId)
+                    ? productClasses.get(classId)
+                    : productClassDao.getReferenceById(classId));
+            rows.add(product);
+
+            if (before != null) {
+                beforeStates.add(new ProductState(before.getId(), before.getName(), before.getProductClassId(), before.getAlive()));
+            }
+            afterStates.add(ProductState.of(product));
+            // A duplicate name later in the request updates this row instead of creating another one
+            current.put(NameCollation.key(dto.getName()), ProductResponseDto.builder()
+                    .id(product.getId())
+                    .name(product.getName())
+                    .price(product.getPrice())
+                    .picture(picture)
+                    .alive(alive)
+                    .productClassId(classId)
+                    .build());
+            // With useAffectedRows MySQL reports 1 per inserted row and 2 per changed row
+            UpsertStatusEnum status = before != null ? UpsertStatusEnum.UPDATE : UpsertStatusEnum.CREATE_OR_NO_CHANGE;
+            statuses.add(status);
+            expectedAffectedRows += status.getValue();
         }
 
-        log.info("Processed {} products for create or update", productDtos.size());
+        int affectedRows = productDao.upsert(rows);
+        if (affectedRows != expectedAffectedRows) {
+            // The statuses came from the lookup above, so roll the whole request back rather than report them
+            throw new OptimisticLockingFailureException("Product upsert affected " + affectedRows
+                    + " rows, expected " + expectedAffectedRows + "; products were changed concurrently");
+        }
+        return statuses;
     }
 }
@@ -0,0 +1,3 @@
+-- Member booking listings filter by member and booking time and page newest first
+-- with id as tiebreak, so the keyset pages are read straight from this index.
+CREATE INDEX idx_booking_member_time ON booking (member_id, booking_time, id);
@@ -0,0 +1,23 @@
+-- Booked quantity per month (yyyyMM) and product, kept up to date by every booking
+-- write, so GET /api/bookings/count reads this table instead of grouping booking_detail.
+CREATE TABLE IF NOT EXISTS booking_monthly_count (
+    booking_month INT NOT NULL,
+    product_id BIGINT NOT NULL,
+    quantity BIGINT NOT NULL DEFAULT 0,
+    PRIMARY KEY (booking_month, product_id)
+);
+
+-- Roll up the bookings made so far. Months are those of Asia/Hong_Kong (UTC+8,
+-- no DST), the zone the application buckets new bookings in. UNIX_TIMESTAMP of a
+-- TIMESTAMP column is its stored UTC epoch, so the session time_zone plays no part.
+INSERT INTO booking_monthly_count (booking_month, product_id, quantity)
+SELECT YEAR(t.local_time) * 100 + MONTH(t.local_time), t.product_id, SUM(t.quantity)
+FROM (
+    SELECT TIMESTAMPADD(SECOND, UNIX_TIMESTAMP(b.booking_time) + 8 * 3600, '1970-01-01 00:00:00') AS local_time,
+           d.product_id,
+           d.quantity
+    FROM booking_detail d
+    JOIN booking b ON b.id = d.booking_id
+    WHERE b.booking_time IS NOT NULL AND d.quantity IS NOT NULL
+) t
+GROUP BY YEAR(t.local_time) * 100 + MONTH(t.local_time), t.product_id;
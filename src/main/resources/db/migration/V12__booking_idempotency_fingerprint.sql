@@ -0,0 +1,4 @@
+-- Fingerprint of the create request an Idempotency-Key was first used with, so a
+-- retry with the same key but a different payload is rejected instead of ignored.
+-- Bookings created before this column was added are not checked.
+ALTER TABLE booking ADD COLUMN idempotency_fingerprint CHAR(64);
@@ -0,0 +1,18 @@
+-- Product names are checked for uniqueness, active or not, against an in-memory
+-- filter that only learns names created on other nodes from the change log, so the
+-- table enforces them
+
+-- Existing duplicates are renamed like the member duplicates in V8
+UPDATE product
+SET name = CONCAT(LEFT(name, 254 - CHAR_LENGTH(id)), '#', id)
+WHERE id IN (
+    SELECT id FROM (
+        SELECT DISTINCT later.id
+        FROM product later
+        JOIN product earlier ON earlier.name = later.name AND earlier.id < later.id
+    ) duplicate
+);
+
+-- The unique key replaces the plain name index
+DROP INDEX idx_product_name ON product;
+CREATE UNIQUE INDEX uk_product_name ON product (name);
@@ -0,0 +1,11 @@
+-- Pooled id sequence for product
+
+-- MySQL has no sequences, so Hibernate keeps the next value in a one-row table.
+-- Each call reserves a block of 50 ids; start above the existing AUTO_INCREMENT ids.
+CREATE TABLE IF NOT EXISTS product_seq (
+    next_val BIGINT
+);
+
+INSERT INTO product_seq (next_val)
+SELECT COALESCE(MAX(id), 0) + 51 FROM product
+WHERE NOT EXISTS (SELECT 1 FROM product_seq);
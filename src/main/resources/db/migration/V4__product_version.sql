@@ -0,0 +1,2 @@
+-- Optimistic lock version of product, also used as the ETag of product reads
+ALTER TABLE product ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
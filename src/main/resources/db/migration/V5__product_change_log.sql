@@ -0,0 +1,15 @@
+-- Change log of product and product class writes, tailed by every node to evict its local caches
+
+-- A product write adds one row per product state before and after the write;
+-- a product class write adds one row per class with product_id NULL.
+CREATE TABLE IF NOT EXISTS product_change_log (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    origin VARCHAR(36) NOT NULL,
+    product_id BIGINT,
+    name VARCHAR(255),
+    product_class_id BIGINT,
+    alive BOOLEAN NOT NULL,
+    before_write BOOLEAN NOT NULL,
+    created_at TIMESTAMP(6) NOT NULL DEFAULT CURRENT_TIMESTAMP(6),
+    INDEX idx_product_change_log_created_at (created_at)
+);
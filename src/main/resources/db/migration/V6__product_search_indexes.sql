@@ -0,0 +1,12 @@
+-- Composite indexes for GET /api/products/search
+-- Each index leads with the equality columns, then the range or sort column, and
+-- ends with id, so a page sorted by that column with id as tiebreak needs no filesort.
+
+-- Class set plus price range / price order
+CREATE INDEX idx_product_alive_class_price ON product (alive, product_class_id, price, id);
+
+-- Price range / price order across all classes
+CREATE INDEX idx_product_alive_price ON product (alive, price, id);
+
+-- Creation time range / newest first
+CREATE INDEX idx_product_alive_created ON product (alive, created_at, id);
@@ -0,0 +1,14 @@
+-- Indexes for the sort keys of ProductSortEnum that V6 does not cover yet
+-- Every listing filters alive = true and sorts by one key with id as tiebreak,
+-- so each index is (alive[, product_class_id], key, id) and pages are read in index order.
+-- Price and creation time of all classes use idx_product_alive_price / idx_product_alive_created from V6.
+
+-- Listing of one class by id
+CREATE INDEX idx_product_alive_class ON product (alive, product_class_id, id);
+
+-- Listings by name
+CREATE INDEX idx_product_alive_name ON product (alive, name, id);
+CREATE INDEX idx_product_alive_class_name ON product (alive, product_class_id, name, id);
+
+-- Listing of one class by creation time
+CREATE INDEX idx_product_alive_class_created ON product (alive, product_class_id, created_at, id);
@@ -0,0 +1,31 @@
+-- Member names and emails are checked for uniqueness against an in-memory filter
+-- that may briefly miss members created on other nodes, so the table enforces them
+
+-- Existing duplicates would fail the unique keys. The first member keeps the value,
+-- later ones get '#<id>' appended, cut to fit the column; the grouping follows the
+-- column collation, like the keys. The derived table is materialized, which lets
+-- MySQL read the table being updated.
+UPDATE member
+SET name = CONCAT(LEFT(name, 99 - CHAR_LENGTH(id)), '#', id)
+WHERE id IN (
+    SELECT id FROM (
+        SELECT DISTINCT later.id
+        FROM member later
+        JOIN member earlier ON earlier.name = later.name AND earlier.id < later.id
+    ) duplicate
+);
+
+UPDATE member
+SET email = CONCAT(LEFT(email, 99 - CHAR_LENGTH(id)), '#', id)
+WHERE id IN (
+    SELECT id FROM (
+        SELECT DISTINCT later.id
+        FROM member later
+        JOIN member earlier ON earlier.email = later.email AND earlier.id < later.id
+    ) duplicate
+);
+
+DROP INDEX idx_member_email ON member;
+CREATE UNIQUE INDEX uk_member_email ON member (email);
+
+CREATE UNIQUE INDEX uk_member_name ON member (name);
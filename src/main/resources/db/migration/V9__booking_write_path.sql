@@ -0,0 +1,20 @@
+-- Booking write path
+
+-- Pooled id sequence for booking_detail, so the details of a booking are inserted
+-- as one JDBC batch; like product_seq, start above the existing AUTO_INCREMENT ids.
+CREATE TABLE IF NOT EXISTS booking_detail_seq (
+    next_val BIGINT
+);
+
+INSERT INTO booking_detail_seq (next_val)
+SELECT COALESCE(MAX(id), 0) + 51 FROM booking_detail
+WHERE NOT EXISTS (SELECT 1 FROM booking_detail_seq);
+
+-- The application does not track a status yet; new bookings start out processing
+ALTER TABLE booking ALTER COLUMN status SET DEFAULT 'PROCESSING';
+
+-- Retried creates with the same Idempotency-Key header return the first booking
+ALTER TABLE booking ADD COLUMN idempotency_key VARCHAR(64);
+CREATE UNIQUE INDEX uk_booking_member_idempotency_key ON booking (member_id, idempotency_key);
+
+ALTER TABLE booking_detail ADD COLUMN priority INT;
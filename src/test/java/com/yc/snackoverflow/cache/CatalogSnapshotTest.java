@@ -0,0 +1,130 @@
+package com.yc.snackoverflow.cache;
+
+import com.yc.snackoverflow.dto.response.ProductResponseDto;
+import com.yc.snackoverflow.model.Product;
+import com.yc.snackoverflow.model.ProductClass;
+import com.yc.snackoverflow.projector.ProductCatalogChecksum;
+import com.yc.snackoverflow.repository.ProductDao;
+import com.yc.snackoverflow.search.ProductNameIndex;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * The in-memory catalog must answer listings exactly like the DTO queries
+ */
+@DataJpaTest(properties = {
+        "spring.flyway.enabled=false",
+        "spring.jpa.hibernate.ddl-auto=create-drop"
+})
+class CatalogSnapshotTest {
+
+    private static final int PRODUCT_COUNT = 30;
+
+    @Autowired
+    private ProductDao productDao;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    private Long firstClassId;
+
+    @BeforeEach
+    void setUp() {
+        ProductClass first = entityManager.persist(ProductClass.builder().name("chips").alive(true).build());
+        ProductClass second = entityManager.persist(ProductClass.builder().name("candy").alive(true).build());
+        firstClassId = first.getId();
+        for (int i = 0; i < PRODUCT_COUNT; i++) {
+            entityManager.persist(Product.builder()
+                    .name((i % 2 == 0 ? "snack-" : "treat-") + (char) ('a' + (i * 7) % 26) + i)
+                    .picture("snack-" + i + ".png")
+                    .price(100 + (i * 13) % PRODUCT_COUNT)
+                    .alive(i % 5 != 0)
+                    .productClass(i % 3 == 0 ? first : second)
+                    .build());
+        }
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    @Test
+    void pagesMatchTheDatabase() {
+        CatalogSnapshot snapshot = CatalogSnapshot.of(productDao.findAllResponses());
+        ProductNameIndex nameIndex = new ProductNameIndex(productDao);
+        nameIndex.build();
+
+        for (Sort sort : List.of(Sort.by("id").descending(), Sort.by("id"), Sort.by("name"),
+                Sort.by("name").descending(), Sort.by("price").descending(), Sort.by("price", "name"))) {
+            for (int page = 0; page < 3; page++) {
+                Pageable pageable = PageRequest.of(page, 7, sort);
+                assertThat(snapshot.findPage(null, null, pageable))
+                        .containsExactlyElementsOf(productDao.findResponsesByAliveTrue(pageable));
+                assertThat(snapshot.findPage(nameIndex.search("SNACK", null), null, pageable))
+                        .containsExactlyElementsOf(productDao.findResponsesByNameContainingAndAliveTrue("snack", pageable));
+                assertThat(snapshot.findPage(null, firstClassId, pageable))
+                        .containsExactlyElementsOf(productDao.findResponsesByProductClassIdAndAliveTrue(firstClassId, pageable));
+            }
+        }
+        assertThat(snapshot.findPage(nameIndex.search("treat", firstClassId), firstClassId, PageRequest.of(0, 5)).getTotalElements())
+                .isEqualTo(productDao.findResponsesByNameContainingAndProductClassIdAndAliveTrue(
+                        "treat", firstClassId, PageRequest.of(0, 5)).getTotalElements());
+    }
+
+    @Test
+    void checksumMatchesTheDatabase() {
+        CatalogSnapshot snapshot = CatalogSnapshot.of(productDao.findAllResponses());
+        ProductCatalogChecksum checksum = productDao.findCatalogChecksum();
+
+        assertThat(checksum.getCount()).isEqualTo(snapshot.size());
+        assertThat(checksum.getVersionSum()).isEqualTo(snapshot.versionSum());
+    }
+
+    @Test
+    void patchKeepsTheNewestVersion() {
+        CatalogSnapshot snapshot = CatalogSnapshot.of(productDao.findAllResponses());
+        ProductResponseDto product = snapshot.findActive().get(0);
+        ProductResponseDto deactivated = ProductResponseDto.builder()
+                .id(product.getId())
+                .name(product.getName())
+                .productClassId(product.getProductClassId())
+                .alive(false)
+                .version(product.getVersion() + 1)
+                .build();
+
+        CatalogSnapshot patched = snapshot.patch(List.of(deactivated));
+        // A late patch carrying the older row must not bring the product back
+        CatalogSnapshot stale = patched.patch(List.of(product));
+
+        assertThat(patched.findActive()).doesNotContain(product);
+        assertThat(stale.get(product.getId())).isSameAs(deactivated);
+        assertThat(stale.findActiveByNames(List.of(product.getName()))).isEmpty();
+        assertThat(snapshot.get(product.getId())).isSameAs(product);
+    }
+
+    @Test
+    void namesSortAndMatchUnderTheColumnCollation() {
+        CatalogSnapshot snapshot = CatalogSnapshot.of(List.of(
+                activeProduct(1L, "ezra"), activeProduct(2L, "Éclair"), activeProduct(3L, "Straße"), activeProduct(4L, "apple")));
+
+        // utf8mb4_unicode_ci ignores accents and case, where a plain case-insensitive order puts É after z
+        assertThat(snapshot.findPage(null, null, PageRequest.of(0, 10, Sort.by("name"))))
+                .extracting(ProductResponseDto::getName)
+                .containsExactly("apple", "Éclair", "ezra", "Straße");
+        assertThat(snapshot.findActiveByNames(List.of("STRASSE", "eclair ")))
+                .extracting(ProductResponseDto::getId)
+                .containsExactly(3L, 2L);
+    }
+
+    private static ProductResponseDto activeProduct(Long id, String name) {
+        return ProductResponseDto.builder().id(id).name(name).alive(true).version(0L).build();
+    }
+}
@@ -0,0 +1,65 @@
+package com.yc.snackoverflow.cache;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Concurrent misses on one key must share a single load
+ */
+class CoalescingCaffeineCacheTest {
+
+    private static final int CALLERS = 16;
+
+    @Test
+    void concurrentMissesRunOneLoad() throws Exception {
+        Counter coalesced = new SimpleMeterRegistry().counter("cache.coalesced");
+        CoalescingCaffeineCache cache = new CoalescingCaffeineCache(
+                "products", Caffeine.newBuilder().build(), false, coalesced);
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        ExecutorService executor = Executors.newFixedThreadPool(CALLERS);
+        try {
+            List<Future<String>> results = new ArrayList<>();
+            results.add(executor.submit(() -> cache.get(1L, () -> {
+                loads.incrementAndGet();
+                loading.countDown();
+                release.await();
+                return "snack";
+            })));
+            // Every other caller arrives while the first load is still running
+            loading.await();
+            for (int i = 1; i < CALLERS; i++) {
+                results.add(executor.submit(() -> cache.get(1L, () -> {
+                    loads.incrementAndGet();
+                    return "other";
+                })));
+            }
+            TimeUnit.MILLISECONDS.sleep(200);
+            release.countDown();
+
+            for (Future<String> result : results) {
+                assertThat(result.get(5, TimeUnit.SECONDS)).isEqualTo("snack");
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertThat(loads).hasValue(1);
+        assertThat(coalesced.count()).isEqualTo(CALLERS - 1);
+    }
+}
@@ -0,0 +1,139 @@
+package com.yc.snackoverflow.cache;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.yc.snackoverflow.constant.CacheNames;
+import com.yc.snackoverflow.dto.response.ProductResponseDto;
+import com.yc.snackoverflow.model.Product;
+import com.yc.snackoverflow.model.ProductClass;
+import com.yc.snackoverflow.repository.ProductDao;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Dumped cache entries must come back after a restart unless the catalog changed under them
+ */
+@DataJpaTest(properties = {
+        "spring.flyway.enabled=false",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "app.cache.dump.enabled=true",
+        "app.cache.dump.file=target/product-cache-dump-test.bin"
+})
+@Import({ProductCacheDump.class, ProductCatalog.class, ProductCacheDumpTest.Caches.class})
+class ProductCacheDumpTest {
+
+    private static final Pageable FIRST_PAGE = PageRequest.of(0, 2, Sort.by("name"));
+
+    @TestConfiguration
+    static class Caches {
+
+        @Bean
+        CacheManager cacheManager() {
+            CaffeineCacheManager cacheManager = new CaffeineCacheManager(CacheNames.PRODUCTS, CacheNames.PRODUCT_PAGES);
+            cacheManager.setCaffeine(Caffeine.newBuilder().maximumSize(100));
+            return cacheManager;
+        }
+    }
+
+    @Autowired
+    private ProductCacheDump productCacheDump;
+
+    @Autowired
+    private ProductCatalog productCatalog;
+
+    @Autowired
+    private ProductDao productDao;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    private List<ProductResponseDto> products;
+
+    @BeforeEach
+    void setUp() {
+        ProductClass chips = entityManager.persist(ProductClass.builder().name("chips").alive(true).build());
+        for (String name : List.of("salted", "paprika", "vinegar")) {
+            entityManager.persist(Product.builder()
+                    .name(name)
+                    .picture(name + ".png")
+                    .price(30)
+                    .alive(true)
+                    .productClass(chips)
+                    .build());
+        }
+        entityManager.flush();
+        entityManager.clear();
+        productCatalog.build();
+        products = productDao.findAllResponses();
+
+        products.forEach(product -> productCache().put(product.getId(), product));
+        pageCache().put(ProductPageKey.of(null, null, FIRST_PAGE),
+                productCatalog.snapshot().findPage(null, null, FIRST_PAGE));
+    }
+
+    @Test
+    void unchangedCatalogRestoresEveryEntry() {
+        productCacheDump.dump();
+        productCache().clear();
+        pageCache().clear();
+
+        productCacheDump.restore();
+
+        for (ProductResponseDto product : products) {
+            assertThat(productCache().get(product.getId(), ProductResponseDto.class)).isEqualTo(product);
+        }
+        @SuppressWarnings("unchecked")
+        Page<ProductResponseDto> page = pageCache().get(ProductPageKey.of(null, null, FIRST_PAGE), Page.class);
+        assertThat(page).isNotNull();
+        assertThat(page.getContent()).containsExactlyElementsOf(
+                productCatalog.snapshot().findPage(null, null, FIRST_PAGE).getContent());
+        assertThat(page.getTotalElements()).isEqualTo(products.size());
+    }
+
+    @Test
+    void changedProductsAndPagesAreDiscarded() {
+        productCacheDump.dump();
+        productCache().clear();
+        pageCache().clear();
+        ProductResponseDto changed = products.get(0);
+        Product product = productDao.findById(changed.getId()).orElseThrow();
+        product.setPrice(35);
+        productDao.saveAndFlush(product);
+        productCatalog.build();
+
+        productCacheDump.restore();
+
+        assertThat(productCache().get(changed.getId())).isNull();
+        for (ProductResponseDto unchanged : products.subList(1, products.size())) {
+            assertThat(productCache().get(unchanged.getId(), ProductResponseDto.class)).isEqualTo(unchanged);
+        }
+        assertThat(pageCache().get(ProductPageKey.of(null, null, FIRST_PAGE))).isNull();
+    }
+
+    private Cache productCache() {
+        return cacheManager.getCache(CacheNames.PRODUCTS);
+    }
+
+    private Cache pageCache() {
+        return cacheManager.getCache(CacheNames.PRODUCT_PAGES);
+    }
+}
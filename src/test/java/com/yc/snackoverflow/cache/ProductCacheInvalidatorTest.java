@@ -0,0 +1,127 @@
+package com.yc.snackoverflow.cache;
+
+import com.yc.snackoverflow.constant.CacheNames;
+import com.yc.snackoverflow.dto.response.ProductResponseDto;
+import com.yc.snackoverflow.event.ProductChangedEvent;
+import com.yc.snackoverflow.event.ProductState;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.Cache;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.SliceImpl;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * A product write evicts its id entry and the pages it is or may become part of,
+ * and nothing else
+ */
+class ProductCacheInvalidatorTest {
+
+    private Cache products;
+
+    private Cache pages;
+
+    private ProductCacheInvalidator invalidator;
+
+    @BeforeEach
+    void setUp() {
+        CaffeineCacheManager cacheManager = new CaffeineCacheManager();
+        cacheManager.setCacheNames(List.of(CacheNames.PRODUCTS, CacheNames.PRODUCT_PAGES));
+        products = cacheManager.getCache(CacheNames.PRODUCTS);
+        pages = cacheManager.getCache(CacheNames.PRODUCT_PAGES);
+        invalidator = new ProductCacheInvalidator(cacheManager);
+    }
+
+    @Test
+    void writtenProductIdsAreEvicted() {
+        products.put(1L, "snack-1");
+        products.put(2L, "snack-2");
+
+        invalidator.onProductChanged(ProductChangedEvent.updated(
+                new ProductState(1L, "Chips", 10L, true), new ProductState(1L, "Chips", 10L, false)));
+
+        assertThat(products.get(1L)).isNull();
+        assertThat(products.get(2L)).isNotNull();
+    }
+
+    @Test
+    void pagesContainingTheProductAreEvicted() {
+        ProductPageKey containing = key("tea", null);
+        ProductPageKey other = key("tea", 20L);
+        pages.put(containing, page(1L, 2L));
+        pages.put(other, page(2L));
+
+        // Renamed away from the filter, so only the ids still tie it to the page
+        invalidator.onProductChanged(ProductChangedEvent.updated(
+                new ProductState(1L, "Chips", 10L, false), new ProductState(1L, "Crisps", 10L, false)));
+
+        assertThat(pages.get(containing)).isNull();
+        assertThat(pages.get(other)).isNotNull();
+    }
+
+    @Test
+    void classFilteredPagesOfTheProductClassesAreEvicted() {
+        ProductPageKey before = key(null, 10L);
+        ProductPageKey after = key(null, 20L);
+        ProductPageKey unrelated = key(null, 30L);
+        ProductPageKey unfiltered = key(null, null);
+        for (ProductPageKey key : List.of(before, after, unrelated, unfiltered)) {
+            pages.put(key, page());
+        }
+
+        invalidator.onProductChanged(ProductChangedEvent.updated(
+                new ProductState(1L, "Chips", 10L, true), new ProductState(1L, "Chips", 20L, true)));
+
+        assertThat(pages.get(before)).isNull();
+        assertThat(pages.get(after)).isNull();
+        assertThat(pages.get(unfiltered)).isNull();
+        assertThat(pages.get(unrelated)).isNotNull();
+    }
+
+    @Test
+    void nameFilteredPagesMatchUnderTheColumnCollation() {
+        ProductPageKey plain = key("chip", null);
+        ProductPageKey accentless = key("cafe", null);
+        ProductPageKey fullWidth = key("ＣＡＦＥ", null);
+        ProductPageKey unrelatedName = key("tea", null);
+        ProductPageKey unrelatedClass = key("cafe", 20L);
+        for (ProductPageKey key : List.of(plain, accentless, fullWidth, unrelatedName, unrelatedClass)) {
+            pages.put(key, page());
+        }
+
+        invalidator.onProductChanged(ProductChangedEvent.created(List.of(new ProductState(1L, "Café Chips", 10L, true))));
+
+        assertThat(pages.get(plain)).isNull();
+        assertThat(pages.get(accentless)).isNull();
+        assertThat(pages.get(fullWidth)).isNull();
+        assertThat(pages.get(unrelatedName)).isNotNull();
+        assertThat(pages.get(unrelatedClass)).isNotNull();
+    }
+
+    @Test
+    void inactiveProductsOutsideThePagesLeaveThemCached() {
+        ProductPageKey matchingName = key("chip", 10L);
+        pages.put(matchingName, page(2L));
+
+        // Neither state can appear in an active listing
+        invalidator.onProductChanged(ProductChangedEvent.updated(
+                new ProductState(1L, "Chips", 10L, false), new ProductState(1L, "Chips", 10L, false)));
+
+        assertThat(pages.get(matchingName)).isNotNull();
+    }
+
+    private static ProductPageKey key(String name, Long classId) {
+        return ProductPageKey.of(name, classId, PageRequest.of(0, 20));
+    }
+
+    private static SliceImpl<ProductResponseDto> page(Long... ids) {
+        return new SliceImpl<>(Arrays.stream(ids)
+                .map(id -> ProductResponseDto.builder().id(id).name("snack-" + id).build())
+                .toList());
+    }
+}
@@ -0,0 +1,135 @@
+package com.yc.snackoverflow.cache;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.yc.snackoverflow.constant.CacheNames;
+import com.yc.snackoverflow.repository.ProductClassDao;
+import com.yc.snackoverflow.repository.ProductDao;
+import com.yc.snackoverflow.service.ProductService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.cache.Cache;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * The listing queries recorded at shutdown are replayed at the next start exactly
+ * as they were cached, whatever their name filter holds
+ */
+class ProductCacheWarmerTest {
+
+    private static final Pageable FIRST_PAGE = PageRequest.of(0, 10, Sort.by(Sort.Direction.DESC, "id"));
+
+    @TempDir
+    private Path directory;
+
+    private Path queriesFile;
+
+    private Cache pages;
+
+    private ProductCacheWarmer warmer;
+
+    /**
+     * Page keys of the listings the warm-up loaded
+     */
+    private final Set<ProductPageKey> replayed = ConcurrentHashMap.newKeySet();
+
+    @BeforeEach
+    void setUp() {
+        CaffeineCacheManager cacheManager = new CaffeineCacheManager(CacheNames.PRODUCT_PAGES);
+        cacheManager.setCaffeine(Caffeine.newBuilder().maximumSize(100));
+        pages = cacheManager.getCache(CacheNames.PRODUCT_PAGES);
+
+        ProductService productService = mock(ProductService.class);
+        when(productService.findProducts(any(), any(), any())).thenAnswer(invocation -> {
+            replayed.add(ProductPageKey.of(invocation.getArgument(0), invocation.getArgument(1), invocation.getArgument(2)));
+            return null;
+        });
+        when(productService.findProductSlice(any(), any(), any())).thenAnswer(invocation -> {
+            replayed.add(ProductPageKey.ofSlice(invocation.getArgument(0), invocation.getArgument(1), invocation.getArgument(2)));
+            return null;
+        });
+        ProductDao productDao = mock(ProductDao.class);
+        when(productDao.findMostBookedIds(any())).thenReturn(List.of());
+        ProductClassDao productClassDao = mock(ProductClassDao.class);
+        when(productClassDao.findActiveIds()).thenReturn(List.of());
+
+        queriesFile = directory.resolve("hot-queries.txt");
+        warmer = new ProductCacheWarmer(productService, productDao, productClassDao, cacheManager, new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(warmer, "enabled", true);
+        ReflectionTestUtils.setField(warmer, "topProducts", 200);
+        ReflectionTestUtils.setField(warmer, "recordedQueries", 500);
+        ReflectionTestUtils.setField(warmer, "replayedQueries", 100);
+        ReflectionTestUtils.setField(warmer, "queriesFile", queriesFile);
+        ReflectionTestUtils.setField(warmer, "threads", 2);
+        ReflectionTestUtils.setField(warmer, "timeout", Duration.ofSeconds(10));
+    }
+
+    @Test
+    void recordedQueriesAreReplayedAsCached() {
+        List<ProductPageKey> keys = List.of(
+                ProductPageKey.of(null, null, PageRequest.of(2, 20, Sort.by("name"))),
+                ProductPageKey.ofSlice("chips", 3L, PageRequest.of(0, 10, Sort.by(Sort.Order.desc("price"), Sort.Order.asc("id")))),
+                ProductPageKey.of("salt | vinegar", null, PageRequest.of(1, 5, Sort.unsorted())),
+                ProductPageKey.ofSlice("|", 7L, PageRequest.of(0, 10, Sort.by("createdAt"))),
+                ProductPageKey.of("a||b|c,d;e", 1L, FIRST_PAGE),
+                ProductPageKey.of(" 抹茶 | 🍫 ", null, FIRST_PAGE));
+        keys.forEach(key -> pages.put(key, "page"));
+
+        warmer.recordHotQueries();
+        warmer.warmUp();
+
+        assertThat(replayed).containsAll(keys);
+        // Besides the recorded queries, only the default first page is loaded
+        assertThat(replayed).hasSize(keys.size() + 1).contains(ProductPageKey.of(null, null, FIRST_PAGE));
+    }
+
+    @Test
+    void namesWithLineBreaksAreNotRecorded() throws IOException {
+        ProductPageKey plain = ProductPageKey.of("chips", null, FIRST_PAGE);
+        pages.put(plain, "page");
+        pages.put(ProductPageKey.of("chips\n1|2|3|4|id,ASC|injected", null, FIRST_PAGE), "page");
+        pages.put(ProductPageKey.of("tea\r", null, FIRST_PAGE), "page");
+
+        warmer.recordHotQueries();
+
+        assertThat(Files.readAllLines(queriesFile, StandardCharsets.UTF_8)).hasSize(1);
+        warmer.warmUp();
+        assertThat(replayed).containsExactlyInAnyOrder(plain, ProductPageKey.of(null, null, FIRST_PAGE));
+    }
+
+    @Test
+    void unreadableLinesAreSkipped() throws IOException {
+        Files.write(queriesFile, List.of(
+                "true||0|10|name,ASC|chips",
+                "true|x|0|10||tea",
+                "false||0|10|name|tea",
+                "too|few",
+                "false|2|1|10|price,DESC|crisps"), StandardCharsets.UTF_8);
+
+        warmer.warmUp();
+
+        assertThat(replayed).containsExactlyInAnyOrder(
+                ProductPageKey.of("chips", null, PageRequest.of(0, 10, Sort.by("name"))),
+                ProductPageKey.ofSlice("crisps", 2L, PageRequest.of(1, 10, Sort.by(Sort.Direction.DESC, "price"))),
+                ProductPageKey.of(null, null, FIRST_PAGE));
+    }
+}
@@ -0,0 +1,114 @@
+package com.yc.snackoverflow.cache;
+
+import com.yc.snackoverflow.SnackOverFlowApplication;
+import com.yc.snackoverflow.dto.request.ProductCreateRequestDto;
+import com.yc.snackoverflow.dto.request.ProductUpdateRequestDto;
+import com.yc.snackoverflow.model.Product;
+import com.yc.snackoverflow.model.ProductClass;
+import com.yc.snackoverflow.repository.ProductClassDao;
+import com.yc.snackoverflow.repository.ProductDao;
+import com.yc.snackoverflow.service.ProductService;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Two nodes sharing one database: a write on one node must reach the caches of the other,
+ * through the change log or, for a write the log missed, through a catalog reset
+ */
+class ProductChangeLogCoherenceTest {
+
+    private static final long TIMEOUT_MILLIS = 10_000;
+
+    private static ConfigurableApplicationContext nodeA;
+
+    private static ConfigurableApplicationContext nodeB;
+
+    @BeforeAll
+    static void startNodes() {
+        nodeA = startNode("create");
+        nodeB = startNode("none");
+    }
+
+    @AfterAll
+    static void stopNodes() {
+        nodeB.close();
+        nodeA.close();
+    }
+
+    @Test
+    void writeOnOneNodeEvictsTheOtherNodesCache() throws InterruptedException {
+        ProductClass productClass = nodeA.getBean(ProductClassDao.class)
+                .save(ProductClass.builder().name("chips").alive(true).build());
+        ProductService serviceA = nodeA.getBean(ProductService.class);
+        ProductService serviceB = nodeB.getBean(ProductService.class);
+        Long id = serviceA.createProduct(ProductCreateRequestDto.builder()
+                .name("salted")
+                .picture("salted.png")
+                .price(30)
+                .productClassId(productClass.getId())
+                .build()).getId();
+
+        // Cache the product on node B
+        assertThat(serviceB.findById(id).getName()).isEqualTo("salted");
+
+        serviceA.updateProduct(id, ProductUpdateRequestDto.builder().name("sea salt").build());
+
+        assertThat(eventually(() -> "sea salt".equals(serviceB.findById(id).getName()))).isTrue();
+        assertThat(serviceA.findById(id).getName()).isEqualTo("sea salt");
+    }
+
+    @Test
+    void writeMissingFromTheLogIsPickedUpByTheCatalogCheck() {
+        ProductClass productClass = nodeA.getBean(ProductClassDao.class)
+                .save(ProductClass.builder().name("candy").alive(true).build());
+        ProductService serviceB = nodeB.getBean(ProductService.class);
+        Long id = nodeA.getBean(ProductService.class).createProduct(ProductCreateRequestDto.builder()
+                .name("gummy")
+                .picture("gummy.png")
+                .price(20)
+                .productClassId(productClass.getId())
+                .build()).getId();
+        assertThat(serviceB.findById(id).getName()).isEqualTo("gummy");
+
+        // A write that bypasses the service, and so the change log
+        ProductDao productDao = nodeA.getBean(ProductDao.class);
+        Product product = productDao.findById(id).orElseThrow();
+        product.setName("sour gummy");
+        productDao.saveAndFlush(product);
+
+        nodeB.getBean(ProductCatalog.class).check();
+        assertThat(serviceB.findById(id).getName()).isEqualTo("sour gummy");
+    }
+
+    private static ConfigurableApplicationContext startNode(String ddlAuto) {
+        // Command line arguments, so they override application.yml
+        return new SpringApplicationBuilder(SnackOverFlowApplication.class).run(
+                "--server.port=0",
+                "--spring.datasource.url=jdbc:h2:mem:coherence;DB_CLOSE_DELAY=-1;MODE=MySQL",
+                "--spring.datasource.driver-class-name=org.h2.Driver",
+                "--spring.datasource.username=sa",
+                "--spring.datasource.password=",
+                "--spring.flyway.enabled=false",
+                "--spring.jpa.hibernate.ddl-auto=" + ddlAuto,
+                "--spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+                "--app.product.change-log.poll-interval=PT0.1S");
+    }
+
+    private static boolean eventually(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+        while (System.currentTimeMillis() < deadline) {
+            if (condition.getAsBoolean()) {
+                return true;
+            }
+            Thread.sleep(50);
+        }
+        return false;
+    }
+}
@@ -0,0 +1,58 @@
+package com.yc.snackoverflow.config;
+
+import org.flywaydb.core.Flyway;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * V8 and V13 add unique keys on names a deployment may already hold duplicates of;
+ * the duplicates are renamed first so the migrations go through
+ */
+class UniqueNameMigrationTest {
+
+    @Test
+    void duplicateNamesAreRenamedBeforeTheUniqueKeys() {
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:unique-names;DB_CLOSE_DELAY=-1;MODE=MySQL");
+        dataSource.setUser("sa");
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+
+        flyway(dataSource, "7").migrate();
+        for (int i = 0; i < 3; i++) {
+            jdbcTemplate.update("INSERT INTO member (username, password, email, name) VALUES (?, 'secret', ?, 'twin')",
+                    "twin-" + i, i < 2 ? "twin@example.com" : "twin-" + i + "@example.com");
+            jdbcTemplate.update("INSERT INTO product (name, picture, price, alive, product_class_id) "
+                    + "SELECT 'Twin Chips', 'twin.png', 10, ?, MIN(id) FROM product_class", i == 0);
+        }
+        List<Long> memberIds = jdbcTemplate.queryForList("SELECT id FROM member WHERE username LIKE 'twin-%' ORDER BY id", Long.class);
+        List<Long> productIds = jdbcTemplate.queryForList("SELECT id FROM product WHERE name = 'Twin Chips' ORDER BY id", Long.class);
+
+        flyway(dataSource, "latest").migrate();
+
+        assertThat(jdbcTemplate.queryForList("SELECT name FROM member WHERE username LIKE 'twin-%' ORDER BY id", String.class))
+                .containsExactly("twin", "twin#" + memberIds.get(1), "twin#" + memberIds.get(2));
+        assertThat(jdbcTemplate.queryForList("SELECT email FROM member WHERE username LIKE 'twin-%' ORDER BY id", String.class))
+                .containsExactly("twin@example.com", "twin@example.com#" + memberIds.get(1), "twin-2@example.com");
+        assertThat(jdbcTemplate.queryForList("SELECT name FROM product WHERE id IN (?, ?, ?) ORDER BY id", String.class,
+                productIds.toArray()))
+                .containsExactly("Twin Chips", "Twin Chips#" + productIds.get(1), "Twin Chips#" + productIds.get(2));
+        assertThatThrownBy(() -> jdbcTemplate.update("INSERT INTO product (name, picture, price, alive, product_class_id) "
+                + "SELECT 'Twin Chips', 'twin.png', 10, TRUE, MIN(id) FROM product_class"))
+                .hasMessageContaining("UK_PRODUCT_NAME");
+    }
+
+    private static Flyway flyway(JdbcDataSource dataSource, String target) {
+        return Flyway.configure()
+                .dataSource(dataSource)
+                .locations("classpath:db/migration")
+                .table("schema_version")
+                .target(target)
+                .load();
+    }
+}
@@ -0,0 +1,56 @@
+package com.yc.snackoverflow.controller;
+
+import com.yc.snackoverflow.data.auth.RegisterReq;
+import com.yc.snackoverflow.exception.WebErrorEnum;
+import com.yc.snackoverflow.service.AuthenticationService;
+import com.yc.snackoverflow.service.JwtTokenProvider;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.MediaType;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Registration answers a taken name or email with 409
+ */
+@WebMvcTest(AuthenticationController.class)
+@WithMockUser
+class AuthenticationControllerTest {
+
+    private static final String REGISTRATION =
+            "{\"username\":\"alice\",\"email\":\"alice@example.com\",\"password\":\"secret\"}";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private AuthenticationService authenticationService;
+
+    @MockBean
+    private JwtTokenProvider jwtTokenProvider;
+
+    @MockBean
+    private UserDetailsService userDetailsService;
+
+    @Test
+    void duplicateRegistrationIsAConflict() throws Exception {
+        when(authenticationService.register(any(RegisterReq.class))).thenThrow(WebErrorEnum.USER_ALREADY_EXISTS.exception());
+
+        mockMvc.perform(post("/api/auth/register")
+                        .with(csrf())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(REGISTRATION))
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.code").value(17));
+    }
+}
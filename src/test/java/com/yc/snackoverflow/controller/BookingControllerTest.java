@@ -0,0 +1,94 @@
+package com.yc.snackoverflow.controller;
+
+import com.yc.snackoverflow.constant.ErrorCode;
+import com.yc.snackoverflow.data.BookingDto;
+import com.yc.snackoverflow.exception.WebErrorEnum;
+import com.yc.snackoverflow.exception.WebException;
+import com.yc.snackoverflow.service.BookingExportService;
+import com.yc.snackoverflow.service.BookingService;
+import com.yc.snackoverflow.service.JwtTokenProvider;
+import com.yc.snackoverflow.service.MemberService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.MediaType;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.when;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Booking endpoints answer a WebException with the status of its WebError
+ */
+@WebMvcTest(BookingController.class)
+@WithMockUser
+class BookingControllerTest {
+
+    private static final String BOOKING =
+            "{\"memberName\":\"alice\",\"bookingDetailDtoList\":[{\"productName\":\"chips\",\"count\":1}]}";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private BookingService bookingService;
+
+    @MockBean
+    private BookingExportService bookingExportService;
+
+    @MockBean
+    private MemberService memberService;
+
+    @MockBean
+    private JwtTokenProvider jwtTokenProvider;
+
+    @MockBean
+    private UserDetailsService userDetailsService;
+
+    @Test
+    void unknownBookingIsNotFound() throws Exception {
+        when(bookingService.findById(999L)).thenThrow(WebErrorEnum.BOOKING_NOT_FOUND.exception(999L));
+
+        mockMvc.perform(get("/api/bookings/999"))
+                .andExpect(status().isNotFound())
+                .andExpect(jsonPath("$.code").value(6))
+                .andExpect(jsonPath("$.message").value(WebErrorEnum.BOOKING_NOT_FOUND.getFormatAsString(999L)));
+    }
+
+    @Test
+    void reusedIdempotencyKeyIsAConflict() throws Exception {
+        when(bookingService.createOrUpdate(any(BookingDto.class), eq("retry-1")))
+                .thenThrow(WebErrorEnum.IDEMPOTENCY_KEY_REUSED.exception("retry-1"));
+
+        mockMvc.perform(post("/api/bookings")
+                        .with(csrf())
+                        .header("Idempotency-Key", "retry-1")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(BOOKING))
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.code").value(22));
+    }
+
+    @Test
+    void errorWithoutWebErrorIsABadRequest() throws Exception {
+        when(bookingService.createOrUpdate(any(BookingDto.class), isNull()))
+                .thenThrow(new WebException(ErrorCode.PRODUCT_NOT_FOUND, "Products not found or inactive: [chips]"));
+
+        mockMvc.perform(post("/api/bookings")
+                        .with(csrf())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(BOOKING))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.code").value(ErrorCode.PRODUCT_NOT_FOUND));
+    }
+}
@@ -0,0 +1,126 @@
+package com.yc.snackoverflow.controller;
+
+import com.yc.snackoverflow.cache.CatalogVersion;
+import com.yc.snackoverflow.constant.ApiPath;
+import com.yc.snackoverflow.dto.response.ProductResponseDto;
+import com.yc.snackoverflow.event.ProductChangedEvent;
+import com.yc.snackoverflow.event.ProductState;
+import com.yc.snackoverflow.service.JwtTokenProvider;
+import com.yc.snackoverflow.service.ProductExportService;
+import com.yc.snackoverflow.service.ProductImportService;
+import com.yc.snackoverflow.service.ProductService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Product GETs answer a current If-None-Match with 304, and a write changes the ETag
+ */
+@WebMvcTest(ProductController.class)
+@Import(CatalogVersion.class)
+@WithMockUser
+class ProductControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @MockBean
+    private ProductService productService;
+
+    @MockBean
+    private ProductImportService productImportService;
+
+    @MockBean
+    private ProductExportService productExportService;
+
+    @MockBean
+    private JwtTokenProvider jwtTokenProvider;
+
+    @MockBean
+    private UserDetailsService userDetailsService;
+
+    @Test
+    void currentListingIsNotModifiedWithoutLoadingThePage() throws Exception {
+        when(productService.findProducts(isNull(), isNull(), any(Pageable.class)))
+                .thenReturn(new PageImpl<>(List.of(product(1L, 0L))));
+        String etag = mockMvc.perform(get(ApiPath.PRODUCTS))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "no-cache"))
+                .andExpect(jsonPath("$..content[0].id").value(1))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        mockMvc.perform(get(ApiPath.PRODUCTS).header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, etag))
+                .andExpect(content().string(""));
+
+        verify(productService, times(1)).findProducts(isNull(), isNull(), any(Pageable.class));
+    }
+
+    @Test
+    void productWriteChangesTheListingEtag() throws Exception {
+        when(productService.findProducts(isNull(), isNull(), any(Pageable.class)))
+                .thenReturn(new PageImpl<>(List.of(product(1L, 0L))));
+        String etag = mockMvc.perform(get(ApiPath.PRODUCTS))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        // Published by the product service once the write commits
+        eventPublisher.publishEvent(ProductChangedEvent.created(List.of(new ProductState(2L, "Tea", 1L, true))));
+
+        String newEtag = mockMvc.perform(get(ApiPath.PRODUCTS).header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertThat(newEtag).isNotNull().isNotEqualTo(etag);
+        mockMvc.perform(get(ApiPath.PRODUCTS).header(HttpHeaders.IF_NONE_MATCH, newEtag))
+                .andExpect(status().isNotModified());
+    }
+
+    @Test
+    void productEtagFollowsItsVersion() throws Exception {
+        when(productService.findById(1L)).thenReturn(product(1L, 3L));
+        String etag = mockMvc.perform(get(ApiPath.PRODUCTS + "/1"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"product-1-3\""))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        mockMvc.perform(get(ApiPath.PRODUCTS + "/1").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified());
+
+        // An update bumps the version
+        when(productService.findById(1L)).thenReturn(product(1L, 4L));
+        mockMvc.perform(get(ApiPath.PRODUCTS + "/1").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"product-1-4\""))
+                .andExpect(jsonPath("$..version").value(4));
+    }
+
+    private static ProductResponseDto product(Long id, Long version) {
+        return ProductResponseDto.builder().id(id).name("snack-" + id).price(10).version(version).build();
+    }
+}
@@ -0,0 +1,30 @@
+package com.yc.snackoverflow.enums;
+
+import com.yc.snackoverflow.exception.WebException;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Sort;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Only registered sort keys reach the queries, always with the id tiebreak
+ */
+class ProductSortEnumTest {
+
+    @Test
+    void registeredKeyGetsIdTiebreakInTheSameDirection() {
+        assertThat(ProductSortEnum.parse("name,asc"))
+                .containsExactly(Sort.Order.asc("name"), Sort.Order.asc("id"));
+        assertThat(ProductSortEnum.parse("price"))
+                .containsExactly(Sort.Order.desc("price"), Sort.Order.desc("id"));
+        assertThat(ProductSortEnum.parse("id,asc"))
+                .containsExactly(Sort.Order.asc("id"));
+    }
+
+    @Test
+    void unknownKeyIsRejected() {
+        assertThatThrownBy(() -> ProductSortEnum.parse("picture,asc")).isInstanceOf(WebException.class);
+        assertThatThrownBy(() -> ProductSortEnum.parse("productClass.name")).isInstanceOf(WebException.class);
+    }
+}
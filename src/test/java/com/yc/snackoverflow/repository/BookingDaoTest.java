@@ -0,0 +1,198 @@
+package com.yc.snackoverflow.repository;
+
+import com.yc.snackoverflow.data.CountBookingReturnData;
+import com.yc.snackoverflow.dto.response.BookingResponseDto;
+import com.yc.snackoverflow.enums.Role;
+import com.yc.snackoverflow.enums.VipEnum;
+import com.yc.snackoverflow.mapper.BookingMapper;
+import com.yc.snackoverflow.mapper.BookingMapperImpl;
+import com.yc.snackoverflow.model.Booking;
+import com.yc.snackoverflow.model.BookingDetail;
+import com.yc.snackoverflow.model.BookingMonthlyCount;
+import com.yc.snackoverflow.model.Member;
+import com.yc.snackoverflow.model.Product;
+import com.yc.snackoverflow.model.ProductClass;
+import com.yc.snackoverflow.reposity.BookingDao;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+/**
+ * A booking and its details are written and read with a constant number of statements,
+ * and the booking reports read the monthly counts
+ */
+@DataJpaTest(properties = {
+        // MySQL mode for the INSERT ... ON DUPLICATE KEY UPDATE of the monthly counts
+        "spring.datasource.url=jdbc:h2:mem:bookings;DB_CLOSE_DELAY=-1;MODE=MySQL",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.flyway.enabled=false",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class BookingDaoTest {
+
+    private static final int DETAIL_COUNT = 20;
+
+    @Autowired
+    private BookingDao bookingDao;
+
+    @Autowired
+    private BookingMonthlyCountDao bookingMonthlyCountDao;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private final BookingMapper bookingMapper = new BookingMapperImpl();
+
+    private Member member;
+
+    private final List<Product> products = new ArrayList<>();
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        member = entityManager.persist(Member.builder()
+                .name("alice")
+                .email("alice@example.com")
+                .password("secret")
+                .alive(true)
+                .vip(VipEnum.VIP1)
+                .role(Role.USER)
+                .build());
+        ProductClass productClass = entityManager.persist(ProductClass.builder().name("chips").alive(true).build());
+        for (int i = 0; i < DETAIL_COUNT; i++) {
+            products.add(entityManager.persist(Product.builder()
+                    .name("snack-" + i)
+                    .picture("snack-" + i + ".png")
+                    .price(10 + i)
+                    .alive(true)
+                    .productClass(productClass)
+                    .build()));
+        }
+        entityManager.flush();
+
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    void detailsAreInsertedAsOneBatch() {
+        bookingDao.saveAndFlush(booking("retry-1", products));
+
+        assertThat(statistics.getEntityInsertCount()).isEqualTo(DETAIL_COUNT + 1);
+        // Booking insert, detail id block and one batched detail insert, not one statement per detail
+        assertThat(statistics.getPrepareStatementCount()).isLessThanOrEqualTo(4);
+        assertThat(bookingDao.findByMemberIdAndIdempotencyKey(member.getId(), "retry-1")).isPresent();
+        assertThat(bookingDao.findByMemberIdAndIdempotencyKey(member.getId(), "retry-2")).isEmpty();
+    }
+
+    @Test
+    void bookingMapsWithItsDetailsFromOneSelect() {
+        Long id = bookingDao.saveAndFlush(booking(null, products.subList(0, 3))).getId();
+        entityManager.clear();
+        statistics.clear();
+
+        BookingResponseDto dto = bookingDao.findWithDetailsById(id).map(bookingMapper::toResponseDto).orElseThrow();
+
+        assertThat(dto.getMemberName()).isEqualTo("alice");
+        assertThat(dto.getDetails()).hasSize(3).allSatisfy(detail -> assertThat(detail.getProductClassName()).isEqualTo("chips"));
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    @Test
+    void keysetPagesWalkTheMembersBookingsNewestFirst() {
+        // Two bookings share a timestamp, so the id tiebreak decides their order
+        Date sameTime = new Date(1_700_000_000_000L);
+        List<Long> ids = new ArrayList<>();
+        for (Date date : List.of(new Date(1_600_000_000_000L), sameTime, sameTime, new Date(1_800_000_000_000L))) {
+            Booking booking = booking(null, products.subList(0, 1));
+            booking.setDate(date);
+            ids.add(bookingDao.saveAndFlush(booking).getId());
+        }
+        entityManager.clear();
+
+        Specification<Booking> ofMember = BookingSpecifications.ofMember(member.getId());
+        List<Booking> first = bookingDao.findAfter(ofMember, null, 2);
+        List<Booking> second = bookingDao.findAfter(ofMember, BookingCursor.decode(BookingCursor.after(first.get(1)).encode()), 2);
+        List<Booking> last = bookingDao.findAfter(ofMember, BookingCursor.after(second.get(1)), 2);
+
+        assertThat(first).extracting(Booking::getId).containsExactly(ids.get(3), ids.get(2));
+        assertThat(second).extracting(Booking::getId).containsExactly(ids.get(1), ids.get(0));
+        assertThat(last).isEmpty();
+    }
+
+    @Test
+    void monthlyCountsAddUpTheBookedQuantities() {
+        Long first = products.get(0).getId();
+        Long second = products.get(1).getId();
+        bookingMonthlyCountDao.addQuantities(Map.of(
+                new BookingMonthlyCount.Key(2025_11, first), 2L,
+                new BookingMonthlyCount.Key(2025_11, second), 2L,
+                new BookingMonthlyCount.Key(2026_11, second), 3L,
+                new BookingMonthlyCount.Key(2026_10, second), 5L));
+        // A booking of the first product moved out of November 2025
+        bookingMonthlyCountDao.addQuantities(Map.of(
+                new BookingMonthlyCount.Key(2025_11, first), -2L,
+                new BookingMonthlyCount.Key(2026_11, first), 2L));
+        entityManager.clear();
+
+        assertThat(bookingMonthlyCountDao.countByProduct(0, 9999_12, 11, null))
+                .extracting(CountBookingReturnData::getProduct, CountBookingReturnData::getProductCount)
+                .containsExactly(tuple("snack-0", 2), tuple("snack-1", 5));
+        assertThat(bookingMonthlyCountDao.countByProduct(2025_01, 2025_12, null, null))
+                .extracting(CountBookingReturnData::getProduct, CountBookingReturnData::getProductCount)
+                .containsExactly(tuple("snack-1", 2));
+        assertThat(bookingMonthlyCountDao.countByProduct(2026_01, 2026_12, null, 10))
+                .extracting(CountBookingReturnData::getProduct, CountBookingReturnData::getProductCount)
+                .containsExactly(tuple("snack-0", 2));
+        assertThat(BookingMonthlyCount.monthOf(new Date(1_700_000_000_000L), ZoneId.of("Asia/Hong_Kong"))).isEqualTo(2023_11);
+    }
+
+    private Booking booking(String idempotencyKey, List<Product> bookedProducts) {
+        Booking booking = new Booking();
+        booking.setMember(member);
+        booking.setDate(new Date());
+        booking.setIdempotencyKey(idempotencyKey);
+        Set<BookingDetail> details = new HashSet<>();
+        int totalPrice = 0;
+        for (Product product : bookedProducts) {
+            details.add(BookingDetail.builder()
+                    .booking(booking)
+                    .product(product)
+                    .count(2)
+                    .priority(1)
+                    .price(product.getPrice())
+                    .build());
+            totalPrice += product.getPrice() * 2;
+        }
+        booking.setTotalPrice(totalPrice);
+        booking.setBookingDetails(details);
+        return booking;
+    }
+}
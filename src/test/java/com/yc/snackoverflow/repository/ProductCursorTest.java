@@ -0,0 +1,65 @@
+package com.yc.snackoverflow.repository;
+
+import com.yc.snackoverflow.exception.WebException;
+import com.yc.snackoverflow.model.Product;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Sort;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * A cursor token decodes to the position it was created at, whatever the name
+ * holds, and anything else is rejected as an invalid argument
+ */
+class ProductCursorTest {
+
+    @Test
+    void cursorsRoundTripForEverySortField() {
+        Product product = Product.builder().id(42L).name("Chips").price(15).build();
+
+        for (Sort.Order order : new Sort.Order[]{Sort.Order.desc("id"), Sort.Order.asc("name"), Sort.Order.desc("price")}) {
+            ProductCursor cursor = ProductCursor.after(order, product);
+
+            assertThat(ProductCursor.decode(cursor.encode())).isEqualTo(cursor);
+            assertThat(cursor.order()).isEqualTo(order);
+        }
+        assertThat(ProductCursor.after(Sort.Order.asc("price"), product).sortValue()).isEqualTo(15);
+        assertThat(ProductCursor.after(Sort.Order.asc("id"), product).sortValue()).isEqualTo(42L);
+    }
+
+    @Test
+    void namesWithTheSeparatorAndAnyScriptSurvive() {
+        for (String name : new String[]{"Salt | Vinegar", "|", "a||b|", "抹茶巧克力", "🍫 Bar", "", " padded "}) {
+            ProductCursor cursor = ProductCursor.after(Sort.Order.asc("name"),
+                    Product.builder().id(7L).name(name).price(1).build());
+
+            String token = cursor.encode();
+
+            assertThat(token).matches("[A-Za-z0-9_-]*");
+            assertThat(ProductCursor.decode(token)).isEqualTo(cursor);
+        }
+    }
+
+    @Test
+    void malformedTokensAreInvalidArguments() {
+        for (String token : new String[]{
+                "not base64!",
+                encode("name|ASC|7"),
+                encode("createdAt|ASC|7|2026"),
+                encode("price|ASC|7|cheap"),
+                encode("id|SIDEWAYS|7|7"),
+                encode("id|ASC|seven|7")}) {
+            assertThatThrownBy(() -> ProductCursor.decode(token))
+                    .as(token)
+                    .isInstanceOfSatisfying(WebException.class, e -> assertThat(e.getCode()).isEqualTo(4));
+        }
+    }
+
+    private static String encode(String raw) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+}
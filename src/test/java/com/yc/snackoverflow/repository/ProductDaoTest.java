@@ -0,0 +1,232 @@
+package com.yc.snackoverflow.repository;
+
+import com.yc.snackoverflow.dto.request.ProductSearchRequestDto;
+import com.yc.snackoverflow.dto.response.ProductResponseDto;
+import com.yc.snackoverflow.mapper.ProductMapper;
+import com.yc.snackoverflow.mapper.ProductMapperImpl;
+import com.yc.snackoverflow.model.Product;
+import com.yc.snackoverflow.model.ProductClass;
+import com.yc.snackoverflow.projector.ProductNameProjection;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Statement counts of the product listing queries
+ *
+ * Mapping a page to ProductResponseDto reads each product's class, so every
+ * listing must fetch the classes in its own select rather than one per product.
+ */
+@DataJpaTest(properties = {
+        "spring.flyway.enabled=false",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        // H2 rejects the MySQL streaming fetch size
+        "app.product.export.fetch-size=1000"
+})
+class ProductDaoTest {
+
+    private static final int PRODUCT_COUNT = 6;
+
+    @Autowired
+    private ProductDao productDao;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private final ProductMapper productMapper = new ProductMapperImpl();
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        for (int i = 0; i < PRODUCT_COUNT; i++) {
+            // A class per product, so lazy loading would cost one select each
+            ProductClass productClass = entityManager.persist(
+                    ProductClass.builder().name("class-" + i).alive(true).build());
+            entityManager.persist(Product.builder()
+                    .name("snack-" + i)
+                    .picture("snack-" + i + ".png")
+                    .price(10 + i)
+                    .alive(true)
+                    .productClass(productClass)
+                    .build());
+        }
+        entityManager.flush();
+        entityManager.clear();
+
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    void pageOfActiveProductsMapsWithoutExtraSelects() {
+        List<ProductResponseDto> dtos = productDao.findByAliveTrue(PageRequest.of(0, PRODUCT_COUNT * 2))
+                .map(productMapper::toResponseDto)
+                .getContent();
+
+        assertThat(dtos).hasSize(PRODUCT_COUNT).allSatisfy(dto -> assertThat(dto.getProductClassName()).isNotNull());
+        // One page select; the count is skipped because the page is not full
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    @Test
+    void filteredPageMapsWithPageAndCountSelectsOnly() {
+        List<ProductResponseDto> dtos = productDao.findByNameContainingAndAliveTrue("snack", PageRequest.of(0, 2))
+                .map(productMapper::toResponseDto)
+                .getContent();
+
+        assertThat(dtos).hasSize(2).allSatisfy(dto -> assertThat(dto.getProductClassName()).isNotNull());
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+    }
+
+    @Test
+    void sliceMapsWithoutExtraSelects() {
+        List<ProductResponseDto> dtos = productDao.findSliceByAliveTrue(PageRequest.of(0, 3))
+                .map(productMapper::toResponseDto)
+                .getContent();
+
+        assertThat(dtos).hasSize(3).allSatisfy(dto -> assertThat(dto.getProductClassName()).isNotNull());
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    @Test
+    void sliceHasNextComesFromTheExtraRowWithoutACount() {
+        Slice<Product> first = productDao.findSliceByNameContainingAndAliveTrue("snack", PageRequest.of(0, 3, Sort.by("id")));
+        Slice<Product> last = productDao.findSliceByNameContainingAndAliveTrue("snack", PageRequest.of(1, 3, Sort.by("id")));
+        Slice<Product> beyond = productDao.findSliceByNameContainingAndAliveTrue("snack", PageRequest.of(2, 3, Sort.by("id")));
+
+        assertThat(first.getContent()).hasSize(3);
+        assertThat(first.hasNext()).isTrue();
+        // A full last page still knows it is the last one
+        assertThat(last.getContent()).hasSize(3);
+        assertThat(last.hasNext()).isFalse();
+        assertThat(beyond.getContent()).isEmpty();
+        assertThat(beyond.hasNext()).isFalse();
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(3);
+    }
+
+    @Test
+    void keysetPageMapsWithoutExtraSelects() {
+        List<ProductResponseDto> dtos = productDao.findAfter(ProductSpecifications.listing(null, null),
+                        Sort.Order.asc("name"), null, 4)
+                .stream()
+                .map(productMapper::toResponseDto)
+                .toList();
+
+        assertThat(dtos).hasSize(4).allSatisfy(dto -> assertThat(dto.getProductClassName()).isNotNull());
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    @Test
+    void keysetPagesBreakTiesOnTheId() {
+        ProductClass productClass = entityManager.persist(ProductClass.builder().name("tied").alive(true).build());
+        for (int i = 0; i < 5; i++) {
+            // Ties on the price and on the name with the products of setUp
+            entityManager.persist(Product.builder()
+                    .name("snack-" + (i % 2))
+                    .picture("tied-" + i + ".png")
+                    .price(12)
+                    .alive(true)
+                    .productClass(productClass)
+                    .build());
+        }
+        entityManager.flush();
+        entityManager.clear();
+        List<Product> all = productDao.findAll();
+
+        for (Sort.Order order : List.of(Sort.Order.asc("price"), Sort.Order.desc("price"),
+                Sort.Order.asc("name"), Sort.Order.desc("name"), Sort.Order.desc("id"))) {
+            Comparator<Product> byKey = "price".equals(order.getProperty())
+                    ? Comparator.comparing(Product::getPrice)
+                    : "name".equals(order.getProperty())
+                    ? Comparator.comparing(Product::getName)
+                    : Comparator.comparing(Product::getId);
+            Comparator<Product> expectedOrder = byKey.thenComparing(Product::getId);
+            List<Long> expected = all.stream()
+                    .sorted(order.isAscending() ? expectedOrder : expectedOrder.reversed())
+                    .map(Product::getId)
+                    .toList();
+
+            assertThat(walk(order, 2)).as(order.toString()).containsExactlyElementsOf(expected);
+        }
+    }
+
+    @Test
+    void searchPageMapsWithPageAndCountSelectsOnly() {
+        ProductSearchRequestDto criteria = ProductSearchRequestDto.builder()
+                .alive(true)
+                .minPrice(11)
+                .maxPrice(14)
+                .build();
+
+        Page<ProductResponseDto> page = productDao.findPage(ProductSpecifications.search(criteria),
+                        PageRequest.of(0, 2, Sort.by("price", "id")))
+                .map(productMapper::toResponseDto);
+
+        assertThat(page.getContent()).extracting(ProductResponseDto::getPrice).containsExactly(11, 12);
+        assertThat(page.getContent()).allSatisfy(dto -> assertThat(dto.getProductClassName()).isNotNull());
+        assertThat(page.getTotalElements()).isEqualTo(4);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+    }
+
+    @Test
+    void productsByIdMapWithoutExtraSelects() {
+        List<Long> ids = productDao.findNameIndexEntries().stream().map(ProductNameProjection::getId).toList();
+        statistics.clear();
+
+        List<ProductResponseDto> dtos = productDao.findAllById(ids).stream()
+                .map(productMapper::toResponseDto)
+                .toList();
+
+        assertThat(dtos).hasSize(PRODUCT_COUNT).allSatisfy(dto -> assertThat(dto.getProductClassName()).isNotNull());
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    @Test
+    void exportStreamMapsWithoutExtraSelects() {
+        List<ProductResponseDto> dtos;
+        try (Stream<Product> products = productDao.streamByAliveTrue()) {
+            dtos = products.map(productMapper::toResponseDto).toList();
+        }
+
+        assertThat(dtos).hasSize(PRODUCT_COUNT).allSatisfy(dto -> assertThat(dto.getProductClassName()).isNotNull());
+        assertThat(dtos).extracting(ProductResponseDto::getId).isSorted();
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    /**
+     * Ids of every listed product, read in keyset pages through encoded cursors
+     */
+    private List<Long> walk(Sort.Order order, int size) {
+        List<Long> ids = new ArrayList<>();
+        ProductCursor cursor = null;
+        while (true) {
+            List<Product> page = productDao.findAfter(ProductSpecifications.listing(null, null), order, cursor, size);
+            page.forEach(product -> ids.add(product.getId()));
+            if (page.size() < size) {
+                return ids;
+            }
+            cursor = ProductCursor.decode(ProductCursor.after(order, page.get(size - 1)).encode());
+        }
+    }
+}
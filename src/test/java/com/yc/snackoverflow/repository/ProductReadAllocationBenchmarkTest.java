@@ -0,0 +1,108 @@
+package com.yc.snackoverflow.repository;
+
+import com.yc.snackoverflow.dto.response.ProductResponseDto;
+import com.yc.snackoverflow.mapper.ProductMapper;
+import com.yc.snackoverflow.mapper.ProductMapperImpl;
+import com.yc.snackoverflow.model.Product;
+import com.yc.snackoverflow.model.ProductClass;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+
+import java.lang.management.ManagementFactory;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Heap allocated per listing request by the entity read path (hydrate, then map)
+ * and by the DTO projection read path
+ *
+ * Each request runs in a fresh persistence context, like a request in production.
+ * Tagged benchmark, so it only runs with the benchmark profile.
+ */
+@Slf4j
+@Tag("benchmark")
+@DataJpaTest(properties = {
+        "spring.flyway.enabled=false",
+        "spring.jpa.hibernate.ddl-auto=create-drop"
+})
+class ProductReadAllocationBenchmarkTest {
+
+    private static final int PRODUCT_COUNT = 200;
+
+    private static final int WARMUP_REQUESTS = 200;
+
+    private static final int MEASURED_REQUESTS = 500;
+
+    private static final Pageable PAGE = PageRequest.of(0, 50, Sort.by("name"));
+
+    @Autowired
+    private ProductDao productDao;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    private final ProductMapper productMapper = new ProductMapperImpl();
+
+    @BeforeEach
+    void setUp() {
+        ProductClass productClass = entityManager.persist(
+                ProductClass.builder().name("snacks").alive(true).build());
+        for (int i = 0; i < PRODUCT_COUNT; i++) {
+            entityManager.persist(Product.builder()
+                    .name("snack-" + i)
+                    .picture("snack-" + i + ".png")
+                    .price(10 + i)
+                    .alive(true)
+                    .productClass(productClass)
+                    .build());
+        }
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    @Test
+    void projectionAllocatesLessPerRequestThanEntityMapping() {
+        Supplier<Page<ProductResponseDto>> entityPath = () ->
+                productDao.findByNameContainingAndAliveTrue("snack", PAGE).map(productMapper::toResponseDto);
+        Supplier<Page<ProductResponseDto>> projectionPath = () ->
+                productDao.findResponsesByNameContainingAndAliveTrue("snack", PAGE);
+
+        assertThat(projectionPath.get().getContent()).isEqualTo(entityPath.get().getContent());
+
+        long entityBytes = allocatedPerRequest(entityPath);
+        long projectionBytes = allocatedPerRequest(projectionPath);
+        log.info("Heap allocated per request: entity + mapper {} bytes, DTO projection {} bytes",
+                entityBytes, projectionBytes);
+
+        assertThat(projectionBytes).isLessThan(entityBytes);
+    }
+
+    private long allocatedPerRequest(Supplier<Page<ProductResponseDto>> request) {
+        for (int i = 0; i < WARMUP_REQUESTS; i++) {
+            runRequest(request);
+        }
+        com.sun.management.ThreadMXBean threadBean =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().threadId();
+        long before = threadBean.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < MEASURED_REQUESTS; i++) {
+            runRequest(request);
+        }
+        return (threadBean.getThreadAllocatedBytes(threadId) - before) / MEASURED_REQUESTS;
+    }
+
+    private void runRequest(Supplier<Page<ProductResponseDto>> request) {
+        request.get();
+        entityManager.clear();
+    }
+}
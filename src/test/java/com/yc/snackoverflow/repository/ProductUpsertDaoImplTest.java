@@ -0,0 +1,96 @@
+package com.yc.snackoverflow.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Query;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.data.domain.AuditorAware;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.RETURNS_SELF;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * reserveIds claims whole blocks of the pooled sequence that Hibernate will never
+ * hand out
+ *
+ * H2 ignores LAST_INSERT_ID(expr), so the sequence row is simulated: the update
+ * adds its increment and LAST_INSERT_ID() returns the new value, as on MySQL.
+ */
+class ProductUpsertDaoImplTest {
+
+    private static final int BLOCK_SIZE = 50;
+
+    /**
+     * next_val of product_seq
+     */
+    private final AtomicLong nextValue = new AtomicLong(151);
+
+    private ProductUpsertDaoImpl productUpsertDao;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        EntityManager entityManager = mock(EntityManager.class);
+        Query update = mock(Query.class, RETURNS_SELF);
+        AtomicLong increment = new AtomicLong();
+        when(update.setParameter(anyInt(), anyLong())).thenAnswer(invocation -> {
+            increment.set(invocation.getArgument(1));
+            return update;
+        });
+        when(update.executeUpdate()).thenAnswer(invocation -> {
+            nextValue.addAndGet(increment.get());
+            return 1;
+        });
+        Query lastInsertId = mock(Query.class);
+        when(lastInsertId.getSingleResult()).thenAnswer(invocation -> nextValue.get());
+        when(entityManager.createNativeQuery("UPDATE product_seq SET next_val = LAST_INSERT_ID(next_val + ?)"))
+                .thenReturn(update);
+        when(entityManager.createNativeQuery("SELECT LAST_INSERT_ID()")).thenReturn(lastInsertId);
+
+        productUpsertDao = new ProductUpsertDaoImpl(mock(ObjectProvider.class));
+        ReflectionTestUtils.setField(productUpsertDao, "entityManager", entityManager);
+    }
+
+    @Test
+    void reservedIdsAreTheBlocksEndingAtTheSkippedValues() {
+        // Without the reservation Hibernate would read 151 next and hand out 102..151
+        long firstId = productUpsertDao.reserveIds(60);
+
+        assertThat(nextValue.get()).isEqualTo(251);
+        assertThat(firstId).isEqualTo(102);
+        // 102..201 are the blocks ending at 151 and 201, so Hibernate continues with 202..251
+        assertThat(firstBlockIdHibernateReads()).isEqualTo(firstId + 2 * BLOCK_SIZE);
+    }
+
+    @Test
+    void wholeBlocksAreReservedEvenForOneId() {
+        long firstId = productUpsertDao.reserveIds(1);
+
+        assertThat(nextValue.get()).isEqualTo(201);
+        assertThat(firstBlockIdHibernateReads()).isEqualTo(firstId + BLOCK_SIZE);
+    }
+
+    @Test
+    void consecutiveReservationsDoNotOverlap() {
+        long first = productUpsertDao.reserveIds(BLOCK_SIZE);
+        long second = productUpsertDao.reserveIds(BLOCK_SIZE + 1);
+
+        assertThat(second).isEqualTo(first + BLOCK_SIZE);
+        assertThat(firstBlockIdHibernateReads()).isEqualTo(second + 2 * BLOCK_SIZE);
+    }
+
+    /**
+     * First id of the block the pooled optimizer builds from the value it reads next
+     */
+    private long firstBlockIdHibernateReads() {
+        return nextValue.get() - BLOCK_SIZE + 1;
+    }
+}
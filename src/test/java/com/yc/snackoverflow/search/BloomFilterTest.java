@@ -0,0 +1,42 @@
+package com.yc.snackoverflow.search;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * A name that was added is never reported absent, and absent names rarely pass
+ */
+class BloomFilterTest {
+
+    private static final int KEYS = 10_000;
+
+    @Test
+    void addedKeysAreAlwaysFoundAndAbsentKeysStayNearTheTargetRate() {
+        BloomFilter filter = BloomFilter.create(KEYS, 0.01);
+        for (int i = 0; i < KEYS; i++) {
+            filter.put("product-" + i);
+        }
+
+        for (int i = 0; i < KEYS; i++) {
+            assertThat(filter.mightContain("product-" + i)).isTrue();
+        }
+        int falsePositives = 0;
+        for (int i = 0; i < KEYS * 10; i++) {
+            if (filter.mightContain("member-" + i)) {
+                falsePositives++;
+            }
+        }
+        assertThat(falsePositives / (double) (KEYS * 10)).isLessThan(0.02);
+    }
+
+    @Test
+    void namesEqualUnderTheCollationShareOneKey() {
+        assertThat(UniqueNameFilter.normalize("Crème Brûlée  "))
+                .isEqualTo(UniqueNameFilter.normalize("creme brulee"));
+        assertThat(UniqueNameFilter.normalize("Straße")).isEqualTo(UniqueNameFilter.normalize("STRASSE"));
+        assertThat(UniqueNameFilter.normalize("ﬁsh")).isEqualTo(UniqueNameFilter.normalize("fish"));
+        assertThat(UniqueNameFilter.normalize("ＳＮＡＣＫ")).isEqualTo(UniqueNameFilter.normalize("snack"));
+        assertThat(UniqueNameFilter.normalize("snack")).isNotEqualTo(UniqueNameFilter.normalize("snacks"));
+    }
+}
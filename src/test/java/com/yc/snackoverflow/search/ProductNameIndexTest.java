@@ -0,0 +1,165 @@
+package com.yc.snackoverflow.search;
+
+import com.yc.snackoverflow.event.ProductChangedEvent;
+import com.yc.snackoverflow.event.ProductState;
+import com.yc.snackoverflow.projector.ProductNameProjection;
+import com.yc.snackoverflow.repository.ProductDao;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Trigram search must find exactly the products a plain contains on the folded
+ * names finds
+ */
+class ProductNameIndexTest {
+
+    private static final List<String> NAMES = List.of(
+            "抹茶巧克力",
+            "巧克力餅乾",
+            "北海道牛奶糖",
+            "Pocky 抹茶味",
+            "キットカット 抹茶",
+            "초코파이 情",
+            "🍫 Chocolate Bar",
+            "Café Crème",
+            "Straße Snacks",
+            "ＦＵＬＬ Width Chips",
+            "Chips"
+    );
+
+    /**
+     * Live products of the test, by id: name and class
+     */
+    private final Map<Long, ProductState> products = new TreeMap<>();
+
+    private ProductNameIndex index;
+
+    @Test
+    void cjkAndMixedScriptSubstringsMatchLikeContains() {
+        build(NAMES);
+
+        for (String query : List.of("巧克力", "抹茶巧", "克力餅乾", "北海道牛奶糖", "pocky 抹", "y 抹茶", "キットカット",
+                "カット 抹", "초코파", "파이 情", "🍫 ch", "🍫 chocolate", "力餅", "巧克力蛋糕")) {
+            assertSearchMatchesContains(query);
+        }
+        assertThat(index.search("巧克力", null)).containsExactly(1L, 2L);
+        assertThat(index.search("🍫 ch", null)).containsExactly(7L);
+    }
+
+    @Test
+    void queriesShorterThanATrigramScanTheNames() {
+        build(NAMES);
+
+        for (String query : List.of("抹", "抹茶", "茶", "🍫", "ch", "c", "ß", "ss", "é", " ")) {
+            assertSearchMatchesContains(query);
+        }
+        assertThat(index.search("抹茶", null)).containsExactly(1L, 4L, 5L);
+    }
+
+    @Test
+    void foldedNamesMatchAcrossCaseAccentsAndWidth() {
+        build(NAMES);
+
+        for (String query : List.of("cafe", "CAFÉ", "creme", "strasse", "STRASSE", "straße", "full", "ｗｉｄｔｈ", "chips")) {
+            assertSearchMatchesContains(query);
+        }
+        assertThat(index.search("CAFE CREME", null)).containsExactly(8L);
+        assertThat(index.search("strasse", null)).containsExactly(9L);
+        assertThat(index.search("full width", null)).containsExactly(10L);
+    }
+
+    @Test
+    void classFilterRestrictsTheMatches() {
+        build(NAMES);
+
+        for (long classId = 1; classId <= 3; classId++) {
+            for (String query : List.of("抹茶", "chips", "巧克力", "a")) {
+                assertSearchMatchesContains(query, classId);
+            }
+        }
+    }
+
+    @Test
+    void updatesDeletesAndReaddsSurviveCompaction() {
+        List<String> names = new ArrayList<>();
+        for (int i = 0; i < 1500; i++) {
+            names.add((i % 2 == 0 ? "抹茶餅乾 " : "Salted Chips ") + i);
+        }
+        build(names);
+        List<String> queries = List.of("抹茶餅", "chips 1", "salted", "焙茶", "roasted", "1", "99", "茶");
+        queries.forEach(query -> assertSearchMatchesContains(query));
+
+        // Rename every product, leaving as many deleted documents as live ones
+        List<ProductState> renamed = new ArrayList<>();
+        for (ProductState state : products.values()) {
+            renamed.add(new ProductState(state.id(), state.name().replace("抹茶", "焙茶").replace("Salted", "Roasted"),
+                    state.classId(), true));
+        }
+        apply(renamed);
+        queries.forEach(query -> assertSearchMatchesContains(query));
+
+        // Deleting more tips the deleted documents past half and compacts the index
+        List<ProductState> deleted = new ArrayList<>();
+        for (long id = 1; id <= 300; id++) {
+            ProductState state = products.get(id);
+            deleted.add(new ProductState(id, state.name(), state.classId(), false));
+        }
+        apply(deleted);
+        queries.forEach(query -> assertSearchMatchesContains(query));
+
+        List<ProductState> readded = new ArrayList<>();
+        for (long id = 1; id <= 100; id++) {
+            readded.add(new ProductState(id, "抹茶 Chips " + id, id % 3 + 1, true));
+        }
+        apply(readded);
+        queries.forEach(query -> assertSearchMatchesContains(query));
+        assertThat(index.search("抹茶 chips", null)).hasSize(100);
+        assertThat(index.search("roasted", null)).hasSize(600);
+    }
+
+    private void build(List<String> names) {
+        List<ProductNameProjection> entries = new ArrayList<>();
+        for (int i = 0; i < names.size(); i++) {
+            ProductState state = new ProductState(i + 1L, names.get(i), i % 3 + 1L, true);
+            products.put(state.id(), state);
+            entries.add(new NameEntry(state.id(), state.name(), state.classId()));
+        }
+        ProductDao productDao = mock(ProductDao.class);
+        when(productDao.findNameIndexEntries()).thenReturn(entries);
+        index = new ProductNameIndex(productDao);
+        index.build();
+    }
+
+    private void apply(List<ProductState> after) {
+        List<ProductState> before = after.stream().map(state -> products.get(state.id())).filter(Objects::nonNull).toList();
+        after.forEach(state -> products.put(state.id(), state));
+        index.onProductChanged(new ProductChangedEvent(before, after));
+    }
+
+    private void assertSearchMatchesContains(String query) {
+        assertSearchMatchesContains(query, null);
+    }
+
+    private void assertSearchMatchesContains(String query, Long classId) {
+        String folded = NameCollation.fold(query);
+        long[] expected = products.values().stream()
+                .filter(ProductState::alive)
+                .filter(state -> classId == null || classId.equals(state.classId()))
+                .filter(state -> NameCollation.fold(state.name()).contains(folded))
+                .mapToLong(ProductState::id)
+                .toArray();
+        assertThat(index.search(query, classId)).as("search(%s, %s)", query, classId).containsExactly(expected);
+    }
+
+    private record NameEntry(Long getId, String getName, Long getProductClassId) implements ProductNameProjection {
+    }
+}
@@ -0,0 +1,138 @@
+package com.yc.snackoverflow.search;
+
+import com.yc.snackoverflow.event.ProductChangedEvent;
+import com.yc.snackoverflow.event.ProductState;
+import com.yc.snackoverflow.model.Member;
+import com.yc.snackoverflow.reposity.MemberDao;
+import com.yc.snackoverflow.repository.ProductDao;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * The filters rule out only names that are not taken, through rebuilds and writes
+ */
+class UniqueNameFilterTest {
+
+    private ProductDao productDao;
+
+    private MemberDao memberDao;
+
+    private UniqueNameFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        productDao = mock(ProductDao.class);
+        memberDao = mock(MemberDao.class);
+        when(productDao.findAllNames()).thenReturn(List.of("Crème Brûlée", "Chips"));
+        when(memberDao.findAllNames()).thenReturn(List.of("alice"));
+        when(memberDao.findAllEmails()).thenReturn(List.of("alice@example.com"));
+        filter = new UniqueNameFilter(productDao, memberDao);
+        ReflectionTestUtils.setField(filter, "enabled", true);
+        ReflectionTestUtils.setField(filter, "minCapacity", 1000);
+        ReflectionTestUtils.setField(filter, "fpp", 0.0001);
+    }
+
+    @Test
+    void everyNameMightBeTakenBeforeTheFirstBuild() {
+        assertThat(filter.mightHaveProductName("tea")).isTrue();
+        assertThat(filter.mightHaveMemberName("bob")).isTrue();
+        assertThat(filter.mightHaveMemberEmail("bob@example.com")).isTrue();
+    }
+
+    @Test
+    void buildLoadsTheNamesUnderTheColumnCollation() {
+        filter.build();
+
+        assertThat(filter.mightHaveProductName("creme brulee  ")).isTrue();
+        assertThat(filter.mightHaveProductName("ＣＨＩＰＳ")).isTrue();
+        assertThat(filter.mightHaveProductName("tea")).isFalse();
+        assertThat(filter.mightHaveMemberName("ALICE")).isTrue();
+        assertThat(filter.mightHaveMemberName("bob")).isFalse();
+        assertThat(filter.mightHaveMemberEmail("Alice@Example.com")).isTrue();
+        assertThat(filter.mightHaveMemberEmail("bob@example.com")).isFalse();
+    }
+
+    @Test
+    void rebuildDropsNamesNoLongerUsed() {
+        filter.build();
+        when(productDao.findAllNames()).thenReturn(List.of("Tea"));
+
+        filter.build();
+
+        assertThat(filter.mightHaveProductName("chips")).isFalse();
+        assertThat(filter.mightHaveProductName("tea")).isTrue();
+    }
+
+    @Test
+    void namesWrittenDuringARebuildReachTheNewFilters() {
+        filter.build();
+        when(productDao.findAllNames()).thenAnswer(invocation -> {
+            // Committed after the load query read the table
+            filter.onProductChanged(ProductChangedEvent.created(List.of(new ProductState(3L, "Pretzel", 1L, true))));
+            return List.of("Chips");
+        });
+
+        filter.build();
+
+        assertThat(filter.mightHaveProductName("pretzel")).isTrue();
+    }
+
+    @Test
+    void failedBuildKeepsEveryNameTaken() {
+        when(productDao.count()).thenThrow(new DataAccessResourceFailureException("database down"));
+
+        filter.build();
+
+        assertThat(filter.mightHaveProductName("tea")).isTrue();
+    }
+
+    @Test
+    void committedProductWritesAreAdded() {
+        filter.build();
+
+        filter.onProductChanged(ProductChangedEvent.updated(
+                new ProductState(2L, "Chips", 1L, true), new ProductState(2L, "Sea Salt Chips", 1L, true)));
+
+        assertThat(filter.mightHaveProductName("sea salt chips")).isTrue();
+        // The old name stays until the next rebuild, which only costs a query
+        assertThat(filter.mightHaveProductName("chips")).isTrue();
+    }
+
+    @Test
+    void membersAreAddedWhenTheirTransactionCommits() {
+        filter.build();
+        Member member = Member.builder().name("bob").email("bob@example.com").build();
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            filter.addMember(member);
+            assertThat(filter.mightHaveMemberName("bob")).isFalse();
+
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        assertThat(filter.mightHaveMemberName("bob")).isTrue();
+        assertThat(filter.mightHaveMemberEmail("bob@example.com")).isTrue();
+    }
+
+    @Test
+    void disabledFilterRulesNothingOut() {
+        ReflectionTestUtils.setField(filter, "enabled", false);
+
+        filter.build();
+
+        assertThat(filter.mightHaveProductName("tea")).isTrue();
+    }
+}
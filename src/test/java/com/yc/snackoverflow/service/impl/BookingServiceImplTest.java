@@ -0,0 +1,282 @@
+package com.yc.snackoverflow.service.impl;
+
+import com.yc.snackoverflow.data.BookingDetailDto;
+import com.yc.snackoverflow.data.BookingDto;
+import com.yc.snackoverflow.dto.response.BookingDetailResponseDto;
+import com.yc.snackoverflow.dto.response.BookingUpsertResult;
+import com.yc.snackoverflow.enums.Role;
+import com.yc.snackoverflow.enums.UpsertStatusEnum;
+import com.yc.snackoverflow.enums.VipEnum;
+import com.yc.snackoverflow.exception.WebErrorEnum;
+import com.yc.snackoverflow.exception.WebException;
+import com.yc.snackoverflow.mapper.BookingMapperImpl;
+import com.yc.snackoverflow.model.BookingMonthlyCount;
+import com.yc.snackoverflow.model.Member;
+import com.yc.snackoverflow.model.Product;
+import com.yc.snackoverflow.model.ProductClass;
+import com.yc.snackoverflow.reposity.BookingDao;
+import com.yc.snackoverflow.repository.BookingMonthlyCountDao;
+import com.yc.snackoverflow.repository.ProductDao;
+import com.yc.snackoverflow.service.BookingService;
+import com.yc.snackoverflow.service.MemberService;
+import com.yc.snackoverflow.service.ProductService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.when;
+
+/**
+ * Booking writes against the database: an update replaces the details with one
+ * bulk delete, a retried create returns the first booking, and every write keeps
+ * the monthly counts equal to a regrouping of the details
+ */
+@DataJpaTest(properties = {
+        // MySQL mode for the INSERT ... ON DUPLICATE KEY UPDATE of the monthly counts
+        "spring.datasource.url=jdbc:h2:mem:booking-service;DB_CLOSE_DELAY=-1;MODE=MySQL",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.flyway.enabled=false",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({BookingServiceImpl.class, BookingMapperImpl.class})
+class BookingServiceImplTest {
+
+    /**
+     * hibernate.jdbc.time_zone of application.yml
+     */
+    private static final ZoneId BOOKING_ZONE = ZoneId.of("Asia/Hong_Kong");
+
+    @Autowired
+    private BookingService bookingService;
+
+    @Autowired
+    private BookingDao bookingDao;
+
+    @Autowired
+    private ProductDao productDao;
+
+    @Autowired
+    private BookingMonthlyCountDao bookingMonthlyCountDao;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @MockBean
+    private MemberService memberService;
+
+    @MockBean
+    private ProductService productService;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        Member member = entityManager.persist(Member.builder()
+                .name("alice")
+                .email("alice@example.com")
+                .password("secret")
+                .alive(true)
+                .vip(VipEnum.VIP1)
+                .role(Role.USER)
+                .build());
+        ProductClass productClass = entityManager.persist(ProductClass.builder().name("chips").alive(true).build());
+        for (int i = 0; i < 3; i++) {
+            entityManager.persist(Product.builder()
+                    .name("snack-" + i)
+                    .picture("snack-" + i + ".png")
+                    .price(10 + i)
+                    .alive(true)
+                    .productClass(productClass)
+                    .build());
+        }
+        entityManager.flush();
+
+        // Like the real services, return entities attached to the current persistence context
+        when(memberService.list(anyList())).thenAnswer(invocation -> List.of(entityManager.find(Member.class, member.getId())));
+        when(productService.list(anyList())).thenAnswer(invocation -> productDao.list(invocation.getArgument(0)));
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @Test
+    void updateReplacesTheDetailsWithOneBulkDelete() {
+        Long id = bookingService.createOrUpdate(booking(Map.of("snack-0", 2, "snack-1", 3))).getBooking().getId();
+        entityManager.flush();
+        entityManager.clear();
+        statistics.clear();
+
+        BookingDto update = booking(Map.of("snack-1", 1, "snack-2", 4));
+        update.setId(id);
+        BookingUpsertResult result = bookingService.createOrUpdate(update);
+        entityManager.flush();
+
+        assertThat(result.getStatus()).isEqualTo(UpsertStatusEnum.UPDATE);
+        assertThat(result.getBooking().getId()).isEqualTo(id);
+        assertThat(result.getBooking().getTotalPrice()).isEqualTo(11 + 12 * 4);
+        // The old details go with one DELETE statement, not one entity delete each
+        assertThat(statistics.getEntityDeleteCount()).isZero();
+        assertThat(statistics.getEntityInsertCount()).isEqualTo(2);
+
+        entityManager.clear();
+        assertThat(bookingService.findById(id).getDetails())
+                .extracting(BookingDetailResponseDto::getProductName, BookingDetailResponseDto::getCount)
+                .containsExactlyInAnyOrder(tuple("snack-1", 1), tuple("snack-2", 4));
+    }
+
+    @Test
+    void retriedCreateReturnsTheFirstBooking() {
+        BookingUpsertResult first = bookingService.createOrUpdate(booking(Map.of("snack-0", 2, "snack-1", 3)), "retry-1");
+        entityManager.flush();
+        entityManager.clear();
+
+        // Same payload with the details listed in another order
+        BookingDto retry = booking(Map.of("snack-0", 2));
+        retry.getBookingDetailDtoList().add(0, detail("snack-1", 3));
+        BookingUpsertResult second = bookingService.createOrUpdate(retry, "retry-1");
+
+        assertThat(second.getStatus()).isEqualTo(UpsertStatusEnum.CREATE_OR_NO_CHANGE);
+        assertThat(second.getBooking().getId()).isEqualTo(first.getBooking().getId());
+        assertThat(second.getBooking().getDetails()).hasSize(2);
+        assertThat(bookingDao.count()).isEqualTo(1);
+    }
+
+    @Test
+    void reusedKeyWithAnotherPayloadIsRejected() {
+        bookingService.createOrUpdate(booking(Map.of("snack-0", 2)), "retry-1");
+        entityManager.flush();
+        entityManager.clear();
+
+        assertThatThrownBy(() -> bookingService.createOrUpdate(booking(Map.of("snack-0", 5)), "retry-1"))
+                .isInstanceOf(WebException.class)
+                .extracting(exception -> ((WebException) exception).getWebError())
+                .isEqualTo(WebErrorEnum.IDEMPOTENCY_KEY_REUSED);
+        assertThat(bookingDao.count()).isEqualTo(1);
+    }
+
+    @Test
+    void monthlyCountsFollowCreatesUpdatesAndDeletes() {
+        // 20:00 UTC on January 31 is already February in Hong Kong
+        BookingDto january = booking(Map.of("snack-0", 2, "snack-1", 3));
+        january.setDate(utc("2024-01-31T20:00:00Z"));
+        Long first = bookingService.createOrUpdate(january).getBooking().getId();
+        BookingDto march = booking(Map.of("snack-1", 4));
+        march.setDate(utc("2024-03-10T08:00:00Z"));
+        Long second = bookingService.createOrUpdate(march).getBooking().getId();
+        assertThat(monthlyCounts()).isEqualTo(groupedDetails())
+                .containsEntry(new BookingMonthlyCount.Key(202402, productId("snack-1")), 3L);
+
+        BookingDto update = booking(Map.of("snack-1", 1, "snack-2", 5));
+        update.setId(first);
+        update.setDate(utc("2024-03-01T01:00:00Z"));
+        bookingService.createOrUpdate(update);
+        assertThat(monthlyCounts()).isEqualTo(groupedDetails());
+
+        BookingDto delete = new BookingDto();
+        delete.setId(second);
+        bookingService.deleteBooking(delete);
+        assertThat(monthlyCounts()).isEqualTo(groupedDetails())
+                .containsOnlyKeys(new BookingMonthlyCount.Key(202403, productId("snack-1")),
+                        new BookingMonthlyCount.Key(202403, productId("snack-2")));
+    }
+
+    @Test
+    void updateWithoutADateKeepsTheBookingMonth() {
+        BookingDto create = booking(Map.of("snack-0", 2));
+        create.setDate(utc("2024-01-10T04:00:00Z"));
+        Long id = bookingService.createOrUpdate(create).getBooking().getId();
+        entityManager.flush();
+        entityManager.clear();
+
+        BookingDto update = booking(Map.of("snack-0", 3));
+        update.setId(id);
+        bookingService.createOrUpdate(update);
+
+        assertThat(monthlyCounts()).isEqualTo(groupedDetails())
+                .containsOnlyKeys(new BookingMonthlyCount.Key(202401, productId("snack-0")));
+        assertThat(bookingDao.findById(id).orElseThrow().getDate()).hasSameTimeAs(utc("2024-01-10T04:00:00Z"));
+    }
+
+    @Test
+    void totalBeyondTheColumnIsRejected() {
+        assertThatThrownBy(() -> bookingService.createOrUpdate(booking(Map.of("snack-0", Integer.MAX_VALUE))))
+                .isInstanceOf(WebException.class)
+                .extracting(exception -> ((WebException) exception).getWebError())
+                .isEqualTo(WebErrorEnum.INVALID_ARG);
+        assertThat(bookingDao.count()).isZero();
+    }
+
+    /**
+     * Non-zero monthly counts as maintained by the writes
+     */
+    private Map<BookingMonthlyCount.Key, Long> monthlyCounts() {
+        entityManager.flush();
+        entityManager.clear();
+        return bookingMonthlyCountDao.findAll().stream()
+                .filter(count -> count.getQuantity() != 0)
+                .collect(Collectors.toMap(BookingMonthlyCount::getId, BookingMonthlyCount::getQuantity));
+    }
+
+    /**
+     * Monthly counts regrouped from all booking details
+     */
+    private Map<BookingMonthlyCount.Key, Long> groupedDetails() {
+        List<Object[]> rows = entityManager.getEntityManager().createQuery(
+                        "SELECT b.date, d.product.id, SUM(d.count) FROM BookingDetail d JOIN d.booking b " +
+                                "GROUP BY b.date, d.product.id", Object[].class)
+                .getResultList();
+        return rows.stream().collect(Collectors.groupingBy(
+                row -> new BookingMonthlyCount.Key(BookingMonthlyCount.monthOf((Date) row[0], BOOKING_ZONE), (Long) row[1]),
+                Collectors.summingLong(row -> (Long) row[2])));
+    }
+
+    private Long productId(String name) {
+        return productDao.list(List.of(name)).get(0).getId();
+    }
+
+    private static Date utc(String instant) {
+        return Date.from(Instant.parse(instant));
+    }
+
+    private static BookingDto booking(Map<String, Integer> counts) {
+        BookingDto booking = new BookingDto();
+        booking.setMemberName("alice");
+        booking.setBookingDetailDtoList(new ArrayList<>(counts.entrySet().stream()
+                .map(entry -> detail(entry.getKey(), entry.getValue()))
+                .toList()));
+        return booking;
+    }
+
+    private static BookingDetailDto detail(String productName, int count) {
+        BookingDetailDto detail = new BookingDetailDto();
+        detail.setProductName(productName);
+        detail.setCount(count);
+        return detail;
+    }
+}
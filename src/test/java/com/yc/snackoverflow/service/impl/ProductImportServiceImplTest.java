@@ -0,0 +1,159 @@
+package com.yc.snackoverflow.service.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.yc.snackoverflow.dto.request.ProductCreateRequestDto;
+import com.yc.snackoverflow.dto.response.ProductImportChunkReport;
+import com.yc.snackoverflow.dto.response.ProductImportReport;
+import com.yc.snackoverflow.dto.response.ProductResponseDto;
+import com.yc.snackoverflow.model.ProductClass;
+import com.yc.snackoverflow.repository.ProductClassDao;
+import com.yc.snackoverflow.service.ProductService;
+import jakarta.validation.Validation;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * A bad row fails only itself, and a chunk that rolls back is reported as
+ * failed without losing the chunks around it
+ */
+class ProductImportServiceImplTest {
+
+    private static final long KNOWN_CLASS_ID = 1;
+
+    private ProductService productService;
+
+    private ProductImportServiceImpl productImportService;
+
+    /**
+     * Names of every product handed to createProducts, per call
+     */
+    private final List<List<String>> createdChunks = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        productService = mock(ProductService.class);
+        ProductClassDao productClassDao = mock(ProductClassDao.class);
+        when(productClassDao.findAllById(anyCollection())).thenAnswer(invocation -> {
+            Collection<Long> ids = invocation.getArgument(0);
+            return ids.contains(KNOWN_CLASS_ID)
+                    ? List.of(ProductClass.builder().id(KNOWN_CLASS_ID).name("chips").alive(true).build())
+                    : List.of();
+        });
+        // Products named "taken" already exist and are skipped
+        when(productService.createProducts(anyList())).thenAnswer(invocation -> {
+            List<ProductCreateRequestDto> dtos = invocation.getArgument(0);
+            createdChunks.add(dtos.stream().map(ProductCreateRequestDto::getName).toList());
+            return dtos.stream()
+                    .filter(dto -> !dto.getName().startsWith("taken"))
+                    .map(dto -> ProductResponseDto.builder().name(dto.getName()).build())
+                    .toList();
+        });
+
+        productImportService = new ProductImportServiceImpl(productService, productClassDao, new ObjectMapper(),
+                Validation.buildDefaultValidatorFactory().getValidator());
+        ReflectionTestUtils.setField(productImportService, "defaultChunkSize", 500);
+        ReflectionTestUtils.setField(productImportService, "maxErrorsPerChunk", 50);
+    }
+
+    @Test
+    void badRowsFailAloneAndTheRestOfTheirChunkIsCreated() throws IOException {
+        ProductImportReport report = productImportService.importNdjson(input(
+                row("chips", 10),
+                "{\"name\": \"broken\", ",
+                "{\"name\": \"no picture\", \"price\": 5, \"productClassId\": 1}",
+                "",
+                row("taken chips", 12),
+                "{\"name\": \"cola\", \"price\": 20, \"picture\": \"cola.png\", \"productClassId\": 99}",
+                row("pretzel", 15)), 3);
+
+        assertThat(createdChunks).containsExactly(List.of("chips"), List.of("taken chips", "pretzel"));
+        assertThat(report.getChunks())
+                .extracting(ProductImportChunkReport::getChunk, ProductImportChunkReport::getFirstLine,
+                        ProductImportChunkReport::getLastLine, ProductImportChunkReport::getCreated,
+                        ProductImportChunkReport::getSkipped, ProductImportChunkReport::getFailed)
+                .containsExactly(tuple(1, 1L, 3L, 1, 0, 2), tuple(2, 5L, 7L, 1, 1, 1));
+        assertThat(report.getChunks().get(0).getErrors()).hasSize(2)
+                .satisfies(errors -> assertThat(errors.get(0)).startsWith("Line 2: "))
+                .contains("Line 3: Product picture URL is required");
+        assertThat(report.getChunks().get(1).getErrors()).containsExactly("Line 6: Product class not found: 99");
+        assertThat(report.getTotalRows()).isEqualTo(6);
+        assertThat(report.getCreated()).isEqualTo(2);
+        assertThat(report.getSkipped()).isEqualTo(1);
+        assertThat(report.getFailed()).isEqualTo(3);
+    }
+
+    @Test
+    void rolledBackChunkFailsAllItsRowsAndLaterChunksStillCommit() throws IOException {
+        when(productService.createProducts(anyList()))
+                .thenAnswer(invocation -> List.of(ProductResponseDto.builder().name("a").build(),
+                        ProductResponseDto.builder().name("b").build()))
+                .thenThrow(new DataIntegrityViolationException("Duplicate entry 'c' for key 'uk_product_name'"))
+                .thenAnswer(invocation -> List.of(ProductResponseDto.builder().name("e").build()));
+
+        ProductImportReport report = productImportService.importNdjson(input(
+                row("a", 1), row("b", 2), row("c", 3), row("d", 4), row("e", 5)), 2);
+
+        assertThat(report.getChunks())
+                .extracting(ProductImportChunkReport::getCreated, ProductImportChunkReport::getFailed)
+                .containsExactly(tuple(2, 0), tuple(0, 2), tuple(1, 0));
+        assertThat(report.getChunks().get(1).getErrors())
+                .containsExactly("Line 3: Chunk rolled back: Duplicate entry 'c' for key 'uk_product_name'");
+        assertThat(report.getCreated()).isEqualTo(3);
+        assertThat(report.getFailed()).isEqualTo(2);
+        assertThat(report.getTotalRows()).isEqualTo(5);
+    }
+
+    @Test
+    void csvRowsThatDoNotMapFailAlone() throws IOException {
+        ProductImportReport report = productImportService.importCsv(input(
+                "name,price,picture,productClassId",
+                "chips,10,chips.png,1",
+                "cola,cheap,cola.png,1",
+                "pretzel,15,pretzel.png,1"), null);
+
+        assertThat(createdChunks).containsExactly(List.of("chips", "pretzel"));
+        assertThat(report.getChunks()).singleElement().satisfies(chunk -> {
+            assertThat(chunk.getCreated()).isEqualTo(2);
+            assertThat(chunk.getFailed()).isEqualTo(1);
+            assertThat(chunk.getErrors()).singleElement().asString().startsWith("Line 3: ");
+        });
+    }
+
+    @Test
+    void errorsAreCappedPerChunkButEveryFailureCounted() throws IOException {
+        ReflectionTestUtils.setField(productImportService, "maxErrorsPerChunk", 2);
+
+        ProductImportReport report = productImportService.importNdjson(input(
+                "{", "{", "{", "{", row("chips", 10)), null);
+
+        assertThat(report.getFailed()).isEqualTo(4);
+        assertThat(report.getCreated()).isEqualTo(1);
+        assertThat(report.getChunks().get(0).getErrors()).hasSize(2);
+    }
+
+    private static String row(String name, int price) {
+        return "{\"name\": \"" + name + "\", \"price\": " + price + ", \"picture\": \"" + name + ".png\", "
+                + "\"productClassId\": " + KNOWN_CLASS_ID + "}";
+    }
+
+    private static InputStream input(String... lines) {
+        return new ByteArrayInputStream(String.join("\n", lines).getBytes(StandardCharsets.UTF_8));
+    }
+}
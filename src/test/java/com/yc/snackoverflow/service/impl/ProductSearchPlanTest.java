@@ -0,0 +1,47 @@
+package com.yc.snackoverflow.service.impl;
+
+import com.yc.snackoverflow.dto.request.ProductSearchRequestDto;
+import com.yc.snackoverflow.enums.ProductSortEnum;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * The reported search plan names the index ProductSortEnum lays out for the criteria and sort
+ */
+class ProductSearchPlanTest {
+
+    @Test
+    void sortKeyIsReadFromItsOwnIndex() {
+        assertThat(plan(ProductSearchRequestDto.builder().alive(true).build(), "name,asc"))
+                .isEqualTo("index=idx_product_alive_name; filter=none; filesort=no");
+        assertThat(plan(ProductSearchRequestDto.builder().alive(true).classIds(Set.of(1L)).build(), "createdAt"))
+                .isEqualTo("index=idx_product_alive_class_created; filter=none; filesort=no");
+        assertThat(plan(ProductSearchRequestDto.builder().alive(true).minPrice(10).build(), "price,asc"))
+                .isEqualTo("index=idx_product_alive_price; filter=none; filesort=no");
+    }
+
+    @Test
+    void rangeOnAnotherColumnIsSeekedThenSorted() {
+        assertThat(plan(ProductSearchRequestDto.builder().alive(true).maxPrice(50).build(), "name,asc"))
+                .isEqualTo("index=idx_product_alive_price; filter=none; filesort=yes");
+        assertThat(plan(ProductSearchRequestDto.builder().alive(true).classIds(Set.of(1L, 2L))
+                        .createdFrom(LocalDateTime.of(2026, 1, 1, 0, 0)).build(), "createdAt"))
+                .isEqualTo("index=idx_product_alive_class_created; filter=none; filesort=yes");
+    }
+
+    @Test
+    void withoutAliveOnlyThePrimaryAndClassIndexesApply() {
+        assertThat(plan(ProductSearchRequestDto.builder().name("chip").build(), "id"))
+                .isEqualTo("index=PRIMARY; filter=name; filesort=no");
+        assertThat(plan(ProductSearchRequestDto.builder().classIds(Set.of(1L)).minPrice(5).build(), "price"))
+                .isEqualTo("index=idx_product_class; filter=price; filesort=yes");
+    }
+
+    private static String plan(ProductSearchRequestDto criteria, String sort) {
+        return ProductServiceImpl.searchPlan(criteria, ProductSortEnum.parse(sort));
+    }
+}
@@ -0,0 +1,379 @@
+package com.yc.snackoverflow.service.impl;
+
+import com.yc.snackoverflow.cache.ProductCatalog;
+import com.yc.snackoverflow.constant.CacheNames;
+import com.yc.snackoverflow.data.ProductDto;
+import com.yc.snackoverflow.dto.request.ProductCreateRequestDto;
+import com.yc.snackoverflow.dto.response.ProductResponseDto;
+import com.yc.snackoverflow.enums.UpsertStatusEnum;
+import com.yc.snackoverflow.exception.WebException;
+import com.yc.snackoverflow.mapper.ProductMapperImpl;
+import com.yc.snackoverflow.model.Product;
+import com.yc.snackoverflow.model.ProductClass;
+import com.yc.snackoverflow.repository.ProductDao;
+import com.yc.snackoverflow.search.ProductNameIndex;
+import com.yc.snackoverflow.search.UniqueNameFilter;
+import com.yc.snackoverflow.service.ProductService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Product writes against the database: a batch of new products is inserted in JDBC
+ * batches after one lookup of the taken names, each row's status in the bulk upsert follows the
+ * rows the INSERT ... ON DUPLICATE KEY UPDATE affects, an update bumps the
+ * version, and a count that disagrees with the statuses rolls the request back;
+ * listings without a total read one extra row, totals are estimated from a cache, and
+ * a multi-get loads all its cache misses with one query
+ */
+@DataJpaTest(properties = {
+        // MySQL mode for INSERT ... ON DUPLICATE KEY UPDATE and its affected-row counts,
+        // and names compared without case like the column collation
+        "spring.datasource.url=jdbc:h2:mem:product-service;DB_CLOSE_DELAY=-1;MODE=MySQL;IGNORECASE=TRUE",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.flyway.enabled=false",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({ProductServiceImpl.class, ProductMapperImpl.class, ProductServiceImplTest.CachingConfig.class})
+class ProductServiceImplTest {
+
+    /**
+     * First id reserveIds hands out; H2 ignores the LAST_INSERT_ID(expr) the real one relies on
+     */
+    private static final long RESERVED_ID = 1000;
+
+    @Autowired
+    private ProductService productService;
+
+    @SpyBean
+    private ProductDao productDao;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @MockBean
+    private ProductNameIndex productNameIndex;
+
+    @MockBean
+    private UniqueNameFilter uniqueNameFilter;
+
+    @MockBean
+    private ProductCatalog productCatalog;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    private ProductClass chips;
+
+    private ProductClass drinks;
+
+    private Product chipsProduct;
+
+    private Product cola;
+
+    private Product pretzel;
+
+    @BeforeEach
+    void setUp() {
+        // The unique key of V13, which the entities do not declare
+        entityManager.getEntityManager()
+                .createNativeQuery("CREATE UNIQUE INDEX IF NOT EXISTS uk_product_name ON product (name)")
+                .executeUpdate();
+        chips = entityManager.persist(ProductClass.builder().name("chips").alive(true).build());
+        drinks = entityManager.persist(ProductClass.builder().name("drinks").alive(true).build());
+        chipsProduct = persist("Chips", 10, true, chips);
+        cola = persist("Cola", 20, true, drinks);
+        pretzel = persist("Pretzel", 15, false, chips);
+        entityManager.flush();
+        entityManager.clear();
+
+        doReturn(RESERVED_ID).when(productDao).reserveIds(anyInt());
+        cacheManager.getCacheNames().forEach(name -> cacheManager.getCache(name).clear());
+    }
+
+    @Test
+    void newProductsAreInsertedInBatchesAfterOneNameLookup() {
+        // The filter rules out every name but the two that are taken
+        when(uniqueNameFilter.mightHaveProductName(anyString()))
+                .thenAnswer(invocation -> invocation.<String>getArgument(0).equalsIgnoreCase("chips")
+                        || invocation.<String>getArgument(0).equals("Cola"));
+        List<ProductCreateRequestDto> requests = new ArrayList<>();
+        for (int i = 0; i < 120; i++) {
+            requests.add(create("Snack " + i, i % 2 == 0 ? chips : drinks));
+        }
+        requests.add(create("CHIPS", chips));
+        requests.add(create("Cola", drinks));
+        requests.add(create("snack 7", drinks));
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        List<ProductResponseDto> created = productService.createProducts(requests);
+        entityManager.flush();
+
+        // Names taken before or earlier in the batch are skipped, compared like the unique key
+        assertThat(created).extracting(ProductResponseDto::getName)
+                .containsExactlyElementsOf(requests.subList(0, 120).stream().map(ProductCreateRequestDto::getName).toList());
+        assertThat(created).extracting(ProductResponseDto::getId).doesNotHaveDuplicates().doesNotContainNull();
+        verify(productDao).findExistingNames(Set.of("CHIPS", "Cola"));
+        assertThat(statistics.getEntityInsertCount()).isEqualTo(120);
+        // One class lookup, one name lookup, one batched insert and a sequence call per block of 50 ids
+        assertThat(statistics.getPrepareStatementCount()).isLessThanOrEqualTo(3 + 4);
+    }
+
+    @Test
+    void rowStatusesFollowTheAffectedRows() {
+        List<UpsertStatusEnum> statuses = productService.createOrUpdate(List.of(
+                dto("Tea", 5, "tea.png", drinks.getId()),
+                dto("Chips", 12, null, null),
+                dto("Cola", 20, null, null),
+                dto("Mystery", 1, null, null),
+                // A case variant of an inactive product's name revives that product
+                dto("PRETZEL", 15, null, null)));
+
+        assertThat(statuses).containsExactly(
+                UpsertStatusEnum.CREATE_OR_NO_CHANGE,
+                UpsertStatusEnum.UPDATE,
+                UpsertStatusEnum.CREATE_OR_NO_CHANGE,
+                UpsertStatusEnum.ERROR,
+                UpsertStatusEnum.UPDATE);
+        // Tea and Mystery are both unknown names, so both may need an id
+        verify(productDao).reserveIds(2);
+        entityManager.clear();
+        assertThat(product("Tea")).get()
+                .satisfies(product -> {
+                    assertThat(product.getId()).isEqualTo(RESERVED_ID);
+                    assertThat(product.getVersion()).isZero();
+                    assertThat(product.getProductClass().getId()).isEqualTo(drinks.getId());
+                });
+        assertThat(product("Chips")).get()
+                .satisfies(product -> {
+                    assertThat(product.getPrice()).isEqualTo(12);
+                    assertThat(product.getVersion()).isEqualTo(1L);
+                });
+        // Unchanged rows are not written at all
+        assertThat(product("Cola").orElseThrow().getVersion()).isZero();
+        assertThat(product("Mystery")).isEmpty();
+        assertThat(productDao.findById(pretzel.getId())).get()
+                .satisfies(product -> {
+                    assertThat(product.getName()).isEqualTo("PRETZEL");
+                    assertThat(product.getAlive()).isTrue();
+                    assertThat(product.getVersion()).isEqualTo(1L);
+                });
+    }
+
+    @Test
+    void duplicateNamesInARequestUpdateTheRowCreatedFirst() {
+        List<UpsertStatusEnum> statuses = productService.createOrUpdate(List.of(
+                dto("Tea", 5, "tea.png", drinks.getId()),
+                dto("tea", 6, null, null),
+                dto("Tea", 6, null, null)));
+
+        assertThat(statuses).containsExactly(
+                UpsertStatusEnum.CREATE_OR_NO_CHANGE, UpsertStatusEnum.UPDATE, UpsertStatusEnum.CREATE_OR_NO_CHANGE);
+        verify(productDao).reserveIds(1);
+        entityManager.clear();
+        assertThat(productDao.findById(RESERVED_ID)).get()
+                .satisfies(product -> {
+                    assertThat(product.getName()).isEqualTo("tea");
+                    assertThat(product.getPrice()).isEqualTo(6);
+                    assertThat(product.getVersion()).isEqualTo(1L);
+                });
+    }
+
+    @Test
+    void affectedRowsThatDisagreeRollTheRequestBack() {
+        ReflectionTestUtils.setField(productService, "upsertChunkSize", 1);
+        doAnswer(invocation -> {
+            // Another request creates the name between the lookup and the upsert,
+            // so the insert turns into an update of that row
+            entityManager.getEntityManager()
+                    .createNativeQuery("INSERT INTO product (id, name, picture, price, alive, product_class_id, version) "
+                            + "VALUES (500, 'Tea', 'other.png', 7, TRUE, ?, 0)")
+                    .setParameter(1, drinks.getId())
+                    .executeUpdate();
+            return RESERVED_ID;
+        }).when(productDao).reserveIds(anyInt());
+
+        assertThatThrownBy(() -> productService.createOrUpdate(List.of(
+                dto("Chips", 12, null, null),
+                dto("Tea", 5, "tea.png", drinks.getId()))))
+                .isInstanceOf(OptimisticLockingFailureException.class)
+                .hasMessageContaining("affected 2 rows, expected 1");
+        // The first chunk was written, but the whole request is rolled back with the failed one
+        assertThat(transactionManager.getTransaction(TransactionDefinition.withDefaults()).isRollbackOnly()).isTrue();
+    }
+
+    @Test
+    void sliceReportsHasNextWithoutCounting() {
+        Slice<ProductResponseDto> first = productService.findProductSlice(null, null, PageRequest.of(0, 1, Sort.by("id")));
+        Slice<ProductResponseDto> last = productService.findProductSlice(null, null, PageRequest.of(1, 1, Sort.by("id")));
+
+        assertThat(first.getContent()).extracting(ProductResponseDto::getName).containsExactly("Chips");
+        assertThat(first.hasNext()).isTrue();
+        assertThat(last.getContent()).extracting(ProductResponseDto::getName).containsExactly("Cola");
+        assertThat(last.hasNext()).isFalse();
+        verify(productDao, never()).count(anySpecification());
+    }
+
+    @Test
+    void estimatedTotalsAreCachedPerFilter() {
+        assertThat(productService.estimateProductCount(null, null)).isEqualTo(2);
+        assertThat(productService.estimateProductCount(null, chips.getId())).isEqualTo(1);
+
+        persist("Tea", 5, true, entityManager.find(ProductClass.class, drinks.getId()));
+        entityManager.flush();
+
+        // Served from the cache until it expires, so the new product is not counted yet
+        assertThat(productService.estimateProductCount(null, null)).isEqualTo(2);
+        assertThat(productService.estimateProductCount(null, drinks.getId())).isEqualTo(2);
+        verify(productDao, times(3)).count(anySpecification());
+
+        cacheManager.getCache(CacheNames.PRODUCT_COUNTS).clear();
+        assertThat(productService.estimateProductCount(null, null)).isEqualTo(3);
+    }
+
+    @Test
+    void multiGetKeepsTheRequestedOrderAndRepeats() {
+        List<ProductResponseDto> products = productService.findByIds(
+                Arrays.asList(cola.getId(), chipsProduct.getId(), 999L, null, cola.getId()));
+
+        assertThat(products).extracting(ProductResponseDto::getName).containsExactly("Cola", "Chips", "Cola");
+        assertThat(products.get(1).getProductClassName()).isEqualTo("chips");
+    }
+
+    @Test
+    void multiGetLoadsOnlyTheMissesWithOneQuery() {
+        productService.findByIds(List.of(chipsProduct.getId()));
+        entityManager.clear();
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        List<ProductResponseDto> products = productService.findByIds(
+                List.of(pretzel.getId(), chipsProduct.getId(), cola.getId(), pretzel.getId()));
+
+        assertThat(products).extracting(ProductResponseDto::getName).containsExactly("Pretzel", "Chips", "Cola", "Pretzel");
+        verify(productDao).findAllById(List.of(pretzel.getId(), cola.getId()));
+        // The products and their classes in one select
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+
+        statistics.clear();
+        productService.findByIds(List.of(cola.getId(), pretzel.getId()));
+        assertThat(statistics.getPrepareStatementCount()).isZero();
+    }
+
+    @Test
+    void multiGetLimitCountsDistinctIds() {
+        assertThat(productService.findByIds(Collections.nCopies(150, cola.getId()))).hasSize(150);
+
+        List<Long> tooMany = LongStream.rangeClosed(1, 101).boxed().toList();
+        assertThatThrownBy(() -> productService.findByIds(tooMany))
+                .isInstanceOfSatisfying(WebException.class, e -> assertThat(e.getCode()).isEqualTo(4));
+        verify(productDao, never()).findAllById(tooMany);
+    }
+
+    private Optional<Product> product(String name) {
+        return entityManager.getEntityManager()
+                .createQuery("SELECT p FROM Product p WHERE p.name = :name", Product.class)
+                .setParameter("name", name)
+                .getResultStream()
+                .findFirst();
+    }
+
+    private Product persist(String name, int price, boolean alive, ProductClass productClass) {
+        return entityManager.persist(Product.builder()
+                .name(name)
+                .picture(name.toLowerCase() + ".png")
+                .price(price)
+                .alive(alive)
+                .productClass(productClass)
+                .build());
+    }
+
+    private static ProductCreateRequestDto create(String name, ProductClass productClass) {
+        return ProductCreateRequestDto.builder()
+                .name(name)
+                .picture(name.toLowerCase() + ".png")
+                .price(10)
+                .productClassId(productClass.getId())
+                .build();
+    }
+
+    private static ProductDto dto(String name, int price, String picture, Long productClassId) {
+        ProductDto dto = new ProductDto();
+        dto.setName(name);
+        dto.setPrice(price);
+        dto.setPicture(picture);
+        dto.setProductClassId(productClassId);
+        return dto;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Specification<Product> anySpecification() {
+        return any(Specification.class);
+    }
+
+    @TestConfiguration
+    @EnableCaching
+    static class CachingConfig {
+
+        @Bean
+        CacheManager cacheManager() {
+            CaffeineCacheManager cacheManager = new CaffeineCacheManager();
+            cacheManager.setCacheNames(List.of(CacheNames.PRODUCTS, CacheNames.PRODUCT_PAGES, CacheNames.PRODUCT_COUNTS));
+            return cacheManager;
+        }
+    }
+}